@@ -3,14 +3,29 @@ package si.deisinger.business;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import si.deisinger.business.archive.SnapshotArchive;
+import si.deisinger.business.catalog.StationCatalogRegistry;
 import si.deisinger.business.controller.ApiController;
 import si.deisinger.business.controller.EmailController;
 import si.deisinger.business.entity.ChargingStationsEntity;
 import si.deisinger.business.exceptions.JsonParsingException;
+import si.deisinger.business.export.StationExporter;
+import si.deisinger.business.geo.RegionAssigner;
+import si.deisinger.business.journal.CheckpointStage;
+import si.deisinger.business.journal.ProviderRunRecorder;
+import si.deisinger.business.journal.RunCheckpoint;
+import si.deisinger.business.journal.RunCheckpoints;
+import si.deisinger.business.journal.RunJournal;
+import si.deisinger.business.journal.RunStage;
+import si.deisinger.business.registry.KnownStationRegistry;
+import si.deisinger.business.registry.LongHashSet;
 import si.deisinger.business.repository.ChargingStationsRepository;
+import si.deisinger.business.subscription.AreaSubscriptionMatcher;
+import si.deisinger.business.webhook.WebhookPublisher;
 import si.deisinger.providers.enums.Providers;
 import si.deisinger.providers.model.ampeco.AmpecoDetailedLocation;
 import si.deisinger.providers.model.ampeco.AmpecoLocationPins;
@@ -19,8 +34,16 @@ import si.deisinger.providers.model.implera.ImpleraLocations;
 import si.deisinger.providers.model.mooncharge.MoonChargeLocation;
 import si.deisinger.providers.model.petrol.PetrolLocations;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
@@ -33,70 +56,148 @@ public class ProviderProcessor {
     private final ChargingStationsRepository chargingStationsRepository;
     private final EmailController emailController;
     private final ApiController apiController;
+    private final SnapshotArchive snapshotArchive;
+    private final KnownStationRegistry knownStationRegistry;
+    private final WebhookPublisher webhookPublisher;
+    private final AreaSubscriptionMatcher areaSubscriptionMatcher;
+    private final RunJournal runJournal;
+    private final RunCheckpoints runCheckpoints;
+    private final RegionAssigner regionAssigner;
+    private final StationExporter stationExporter;
+    private final StationCatalogRegistry stationCatalogRegistry;
 
     private static final Logger LOG = LoggerFactory.getLogger(ProviderProcessor.class);
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-    public ProviderProcessor(ChargingStationsRepository chargingStationsRepository, EmailController emailController, ApiController apiController) {
+    public ProviderProcessor(ChargingStationsRepository chargingStationsRepository, EmailController emailController, ApiController apiController, SnapshotArchive snapshotArchive, KnownStationRegistry knownStationRegistry,
+            WebhookPublisher webhookPublisher, AreaSubscriptionMatcher areaSubscriptionMatcher, RunJournal runJournal,
+            RunCheckpoints runCheckpoints, RegionAssigner regionAssigner, StationExporter stationExporter,
+            StationCatalogRegistry stationCatalogRegistry) {
         this.chargingStationsRepository = chargingStationsRepository;
         this.emailController = emailController;
         this.apiController = apiController;
+        this.snapshotArchive = snapshotArchive;
+        this.knownStationRegistry = knownStationRegistry;
+        this.webhookPublisher = webhookPublisher;
+        this.areaSubscriptionMatcher = areaSubscriptionMatcher;
+        this.runJournal = runJournal;
+        this.runCheckpoints = runCheckpoints;
+        this.regionAssigner = regionAssigner;
+        this.stationExporter = stationExporter;
+        this.stationCatalogRegistry = stationCatalogRegistry;
     }
 
     /**
-     * Checks and processes provider stations.
+     * Checks and processes provider stations. The run, with its stage timings, is written to the {@link RunJournal} whether it succeeds or fails.
+     * <p>
+     * Progress is checkpointed through {@link RunCheckpoints}. If the previous run of the provider did not finish, this run resumes it: responses whose snapshot is archived are read from the archive instead of fetched,
+     * a recorded diff is reused, stations the interrupted run already committed are not inserted again, and area alerts it already sent are not repeated. The checkpoint is only completed once the notification email was
+     * handed to the mail server; if sending fails, the run fails and the next one resumes after the area alerts and sends only the email again.
+     * <p>
+     * After the run the in-memory {@link StationCatalogRegistry station catalog} is rebuilt if the stored stations changed.
      *
      * @param provider
      *         the provider to process
      * @param locationClass
      *         the expected class type for deserialization
+     *
+     * @return the number of new stations found
      */
-    public void checkProviderStations(Providers provider, Class<?> locationClass) {
-        Object locationDataFromApi = fetchLocationDataFromAPI(provider, locationClass);
-        int numberOfStationsFromApi = getNumberOfStationsFromApi(locationDataFromApi);
-        LOG.info("Fetched {} stations for provider: {}", numberOfStationsFromApi, provider);
-        Set<Long> apiStationIds = getStationIdsFromApiData(locationDataFromApi);
-
-        // For providers other than Avant2Go, compare API IDs with the ones in DB.
-        if (!provider.equals(Providers.AVANT2GO)) {
-            Set<Long> newStations = findNewStationIds(provider, apiStationIds);
-            if (newStations.isEmpty()) {
-                LOG.info("No new stations found for provider: {}", provider);
-                return;
+    public int checkProviderStations(Providers provider, Class<?> locationClass) {
+        ProviderRunRecorder run = runJournal.start(provider);
+        try {
+            Optional<RunCheckpoint> checkpoint = runCheckpoints.findResumable(provider);
+            checkpoint.ifPresent(resumed -> LOG.info("Resuming run of provider {} started at {} after stage {}", provider, resumed.startedAt(), resumed.stage()));
+            ResponseSource source = ResponseSource.live(snapshotArchive, checkpoint.map(RunCheckpoint::snapshots).orElse(Map.of()));
+            Object locationDataFromApi = fetchLocationDataFromAPI(provider, locationClass, source, run);
+            int numberOfStationsFromApi = getNumberOfStationsFromApi(locationDataFromApi);
+            run.setStationsFetched(numberOfStationsFromApi);
+            LOG.info("Fetched {} stations for provider: {}", numberOfStationsFromApi, provider);
+            long[] apiStationIds = getStationIdsFromApiData(locationDataFromApi);
+            if (checkpoint.isEmpty() || !checkpoint.get().isDiffed()) {
+                runCheckpoints.fetched(provider, checkpoint.map(RunCheckpoint::startedAt).orElse(run.getStartedAt()), source.fetchedSnapshots());
+            }
+
+            // For providers other than Avant2Go, compare API IDs with the ones in DB.
+            if (!provider.equals(Providers.AVANT2GO)) {
+                LongHashSet newStations;
+                if (checkpoint.isPresent() && checkpoint.get().isDiffed()) {
+                    newStations = checkpoint.get().newStationIds();
+                } else {
+                    newStations = run.call(RunStage.DIFF, () -> knownStationRegistry.findNewStationIds(provider, apiStationIds));
+                    runCheckpoints.diffed(provider, newStations);
+                }
+                run.setNewStations(newStations.size());
+                run.run(RunStage.PERSIST, () -> chargingStationsRepository.markStationsSeen(provider, apiStationIds, run.getStartedAt()));
+                if (newStations.isEmpty()) {
+                    LOG.info("No new stations found for provider: {}", provider);
+                    runCheckpoints.completed(provider);
+                    return 0;
+                }
+                LOG.info("Found {} new stations for provider: {}", newStations.size(), provider);
+                processNewStations(provider, locationDataFromApi, newStations, checkpoint.filter(RunCheckpoint::isPersisted).map(RunCheckpoint::stage).orElse(CheckpointStage.DIFFED), run);
+                runCheckpoints.completed(provider);
+                return newStations.size();
             }
-            LOG.info("Found {} new stations for provider: {}", newStations.size(), provider);
-            processNewStations(provider, locationDataFromApi, newStations);
+            // You can extend processing for AVANT2GO (or any other provider) here if needed.
+            runCheckpoints.completed(provider);
+            return 0;
+        } catch (RuntimeException e) {
+            run.failed(e);
+            throw e;
+        } finally {
+            runJournal.finish(run);
+            stationCatalogRegistry.refresh();
         }
-        // You can extend processing for AVANT2GO (or any other provider) here if needed.
     }
 
     /**
-     * Fetches location data from the API and deserializes it.
+     * Re-runs the fetch, parse and diff steps against archived snapshots instead of the live API. Nothing is persisted and no email is sent; the stations that would have been reported as new are logged and returned.
+     *
+     * @param provider
+     *         the provider to replay
+     * @param locationClass
+     *         the expected class type for deserialization
+     * @param at
+     *         the point in time to replay; the latest snapshot taken at or before it is used for every request
+     *
+     * @return the IDs of stations in the snapshot that are not stored in the database
+     */
+    public LongHashSet replayProviderStations(Providers provider, Class<?> locationClass, Instant at) {
+        // Replays are not journaled; the recorder only satisfies the shared fetch path.
+        Object locationDataFromArchive = fetchLocationDataFromAPI(provider, locationClass, ResponseSource.replay(snapshotArchive, at), new ProviderRunRecorder(provider));
+        LOG.info("Replayed {} stations for provider: {} at {}", getNumberOfStationsFromApi(locationDataFromArchive), provider, at);
+        LongHashSet newStations = knownStationRegistry.findNewStationIds(provider, getStationIdsFromApiData(locationDataFromArchive));
+        LOG.info("Replay found {} stations not in DB for provider {}: {}", newStations.size(), provider, newStations);
+        return newStations;
+    }
+
+    /**
+     * Fetches location data from the API (or the snapshot archive) and deserializes it.
      *
      * @param provider
      *         the provider to fetch data for
      * @param locationClass
      *         the expected class type for deserialization
+     * @param source
+     *         where the responses come from
+     * @param run
+     *         the recorder of the current run
      *
      * @return the deserialized location data
      */
-    private Object fetchLocationDataFromAPI(Providers provider, Class<?> locationClass) {
+    private Object fetchLocationDataFromAPI(Providers provider, Class<?> locationClass, ResponseSource source, ProviderRunRecorder run) {
         switch (provider) {
-            // For providers using Ampeco URLs, fetch two regions (west and east) then combine.
+            // For providers using Ampeco URLs, fetch two regions (west and east) in parallel then combine.
             case GREMONAELEKTRIKO, MEGATEL, EFREND -> {
                 String queryParamsWest = "?includeAvailability=false&minLatitude=45.4215&minLongitude=13.3753&maxLatitude=46.8763&maxLongitude=14.5000&limit=5000";
                 String queryParamsEast = "?includeAvailability=false&minLatitude=45.4215&minLongitude=14.5000&maxLatitude=46.8763&maxLongitude=16.6106&limit=5000";
-                String locationsWest = apiController.getLocationsFromApi(provider, queryParamsWest);
-                String locationsEast = apiController.getLocationsFromApi(provider, queryParamsEast);
-
-                AmpecoLocationPins pinsWest;
-                AmpecoLocationPins pinsEast;
-                try {
-                    pinsWest = (AmpecoLocationPins) OBJECT_MAPPER.readValue(locationsWest, locationClass);
-                    pinsEast = (AmpecoLocationPins) OBJECT_MAPPER.readValue(locationsEast, locationClass);
-                } catch (JsonProcessingException e) {
-                    throw new JsonParsingException("Failed to parse Ampeco location pins", e);
-                }
+                List<byte[]> regions = run.call(RunStage.FETCH, () -> fetchLocationsInParallel(provider, List.of(queryParamsWest, queryParamsEast), source, run.getTransfers()));
+                byte[] locationsWest = regions.get(0);
+                byte[] locationsEast = regions.get(1);
+
+                AmpecoLocationPins pinsWest = (AmpecoLocationPins) parse(locationsWest, locationClass, "Failed to parse Ampeco location pins", run);
+                AmpecoLocationPins pinsEast = (AmpecoLocationPins) parse(locationsEast, locationClass, "Failed to parse Ampeco location pins", run);
 
                 // Ensure pins list is non-null
                 if (pinsWest.pins == null) {
@@ -108,33 +209,89 @@ public class ProviderProcessor {
 
                 // Fetch detailed data based on the combined set of IDs.
                 Set<Long> ids = pinsWest.pins.stream().map(pin -> pin.id).collect(Collectors.toCollection(LinkedHashSet::new));
-                return fetchDetailedLocationData(provider, ids);
+                return fetchDetailedLocationData(provider, ids, source, run);
             }
             default -> {
-                try {
-                    String apiResponse = apiController.getLocationsFromApi(provider, "");
-                    return OBJECT_MAPPER.readValue(apiResponse, locationClass);
-                } catch (JsonProcessingException e) {
-                    throw new JsonParsingException("Failed to fetch location data for provider: " + provider, e);
-                }
+                byte[] apiResponse = run.call(RunStage.FETCH, () -> fetchLocations(provider, "", source, run.getTransfers()));
+                return parse(apiResponse, locationClass, "Failed to fetch location data for provider: " + provider, run);
             }
         }
     }
 
     /**
-     * Finds new station IDs by comparing API data with IDs stored in the database.
+     * Fetches several location data requests of one provider concurrently on virtual threads. {@link ApiController} bounds how many of them actually run at once per host.
      *
      * @param provider
-     *         the provider to process
-     * @param apiStationIds
-     *         the set of station IDs fetched from the API
+     *         the provider to fetch data for
+     * @param parameters
+     *         the URL parameters of each request
+     * @param source
+     *         where the responses come from
+     * @param transfers
+     *         the counter to add the bytes transferred by all requests to
+     *
+     * @return the raw response bodies, in the order of {@code parameters}
+     */
+    private List<byte[]> fetchLocationsInParallel(Providers provider, List<String> parameters, ResponseSource source, ApiController.TransferCounter transfers) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<byte[]>> responses = parameters.stream().map(params -> executor.submit(() -> fetchLocations(provider, params, source, transfers))).toList();
+            List<byte[]> bodies = new ArrayList<>(responses.size());
+            for (Future<byte[]> response : responses) {
+                bodies.add(response.get());
+            }
+            return bodies;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching location data for provider: " + provider, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to fetch location data for provider: " + provider, e.getCause());
+        }
+    }
+
+    /**
+     * Deserializes a response, adding the time spent to the {@link RunStage#PARSE} stage.
+     *
+     * @param json
+     *         the UTF-8 encoded response body
+     * @param type
+     *         the class to deserialize into
+     * @param errorMessage
+     *         the message of the {@link JsonParsingException} thrown if the body cannot be parsed
+     * @param run
+     *         the recorder of the current run
+     *
+     * @return the deserialized object
+     */
+    private Object parse(byte[] json, Class<?> type, String errorMessage, ProviderRunRecorder run) {
+        long started = System.nanoTime();
+        try {
+            return OBJECT_MAPPER.readValue(json, type);
+        } catch (IOException e) {
+            throw new JsonParsingException(errorMessage, e);
+        } finally {
+            run.addStageNanos(RunStage.PARSE, System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Returns the location data response from the given source.
+     *
+     * @param provider
+     *         the provider to fetch data for
+     * @param parameters
+     *         additional URL parameters for the request
+     * @param source
+     *         where the response comes from
+     * @param transfers
+     *         the counter to add the transferred bytes to
      *
-     * @return a set of new station IDs not yet stored in the database
+     * @return the raw response body
      */
-    private Set<Long> findNewStationIds(Providers provider, Set<Long> apiStationIds) {
-        Set<Long> dbStationIds = chargingStationsRepository.findStationIdsByProvider(provider);
-        LOG.info("Charging stations in DB: {}, Charging stations online: {}", dbStationIds.size(), apiStationIds.size());
-        return apiStationIds.stream().filter(id -> !dbStationIds.contains(id)).collect(Collectors.toCollection(LinkedHashSet::new));
+    private byte[] fetchLocations(Providers provider, String parameters, ResponseSource source, ApiController.TransferCounter transfers) {
+        return source.get(provider, ApiController.locationsRequestKey(provider, parameters), () -> apiController.getLocationsFromApi(provider, parameters, transfers));
     }
 
     /**
@@ -146,24 +303,28 @@ public class ProviderProcessor {
      *         the fetched location data
      * @param newStations
      *         the set of new station IDs
+     * @param stage
+     *         the last completed stage: {@link CheckpointStage#DIFFED}, or a later stage an interrupted run reached
+     * @param run
+     *         the recorder of the current run
      */
-    private void processNewStations(Providers provider, Object locationDataFromApi, Set<Long> newStations) {
+    private void processNewStations(Providers provider, Object locationDataFromApi, LongHashSet newStations, CheckpointStage stage, ProviderRunRecorder run) {
         switch (locationDataFromApi) {
             case AmpecoDetailedLocation ampecoDetailedLocation -> {
                 // Retain only the new stations.
                 ampecoDetailedLocation.locations.removeIf(location -> !newStations.contains(location.id));
-                saveAmpecoChargingStationsToDb(ampecoDetailedLocation, provider);
-                sendEmailAboutNewChargingStations(ampecoDetailedLocation, provider);
+                saveAmpecoChargingStationsToDb(ampecoDetailedLocation, provider, stage, run);
+                run.run(RunStage.NOTIFY, () -> sendEmailAboutNewChargingStations(ampecoDetailedLocation, provider));
             }
             case PetrolLocations[] petrolLocations -> {
                 List<PetrolLocations> filtered = filterLocationData(petrolLocations, newStations, PetrolLocations::getId);
-                saveChargingStationsToDb(filtered, petrol -> new ChargingStationsEntity(petrol.id, Providers.PETROL.getId(), petrol.friendlyName, petrol.address.toString(), petrol.access != null ? petrol.access.toString() : null));
-                sendEmailAboutNewChargingStations(filtered, provider);
+                saveChargingStationsToDb(provider, filtered, petrol -> new ChargingStationsEntity(petrol.id, Providers.PETROL.getId(), petrol.friendlyName, petrol.address.toString(), petrol.access != null ? petrol.access.toString() : null), stage, run);
+                run.run(RunStage.NOTIFY, () -> sendEmailAboutNewChargingStations(filtered, provider));
             }
             case MoonChargeLocation[] moonChargeLocations -> {
                 List<MoonChargeLocation> filtered = filterLocationData(moonChargeLocations, newStations, MoonChargeLocation::getId);
-                saveChargingStationsToDb(filtered, moon -> new ChargingStationsEntity(moon.id, Providers.MOONCHARGE.getId(), moon.friendlyName, moon.address.toString(), moon.access != null ? moon.access.toString() : null));
-                sendEmailAboutNewChargingStations(filtered, provider);
+                saveChargingStationsToDb(provider, filtered, moon -> new ChargingStationsEntity(moon.id, Providers.MOONCHARGE.getId(), moon.friendlyName, moon.address.toString(), moon.access != null ? moon.access.toString() : null), stage, run);
+                run.run(RunStage.NOTIFY, () -> sendEmailAboutNewChargingStations(filtered, provider));
             }
             case null, default -> LOG.warn("Processing for provider {} with data type {} is not implemented.", provider, Objects.requireNonNull(locationDataFromApi).getClass().getSimpleName());
         }
@@ -176,6 +337,9 @@ public class ProviderProcessor {
      *         the detailed location data to include in the email
      * @param provider
      *         the provider being processed
+     *
+     * @throws IllegalStateException
+     *         if the email could not be sent
      */
     private void sendEmailAboutNewChargingStations(Object detailedLocationData, Providers provider) {
         try {
@@ -193,25 +357,89 @@ public class ProviderProcessor {
      *         the detailed location data fetched from Ampeco
      * @param provider
      *         the provider being processed
+     * @param stage
+     *         the last completed stage of the run
+     * @param run
+     *         the recorder of the current run
+     */
+    private void saveAmpecoChargingStationsToDb(AmpecoDetailedLocation detailedLocationData, Providers provider, CheckpointStage stage, ProviderRunRecorder run) {
+        List<ChargingStationsEntity> entities = detailedLocationData.locations.stream().map(loc -> new ChargingStationsEntity(loc.id, provider.getId(), loc.name, loc.address, loc.location, getMaxPowerKw(loc))).toList();
+        addChargingStations(provider, entities, stage, run);
+    }
+
+    /**
+     * Returns the highest power offered by any EVSE of an Ampeco location.
+     *
+     * @param location
+     *         the Ampeco location
+     *
+     * @return the maximum power in kW, or {@code null} if no EVSE reports it
      */
-    private void saveAmpecoChargingStationsToDb(AmpecoDetailedLocation detailedLocationData, Providers provider) {
-        List<ChargingStationsEntity> entities = detailedLocationData.locations.stream().map(loc -> new ChargingStationsEntity(loc.id, provider.getId(), loc.name, loc.address, loc.location)).toList();
-        chargingStationsRepository.addChargingStationList(entities);
+    private static Double getMaxPowerKw(AmpecoDetailedLocation.Locations location) {
+        if (location.zones == null) {
+            return null;
+        }
+        int maxPowerWatts = location.zones.stream().filter(zone -> zone.evses != null).flatMap(zone -> zone.evses.stream()).mapToInt(evse -> evse.maxPower).max().orElse(0);
+        return maxPowerWatts > 0 ? maxPowerWatts / 1000.0 : null;
     }
 
     /**
      * Saves a list of charging station entities to the database using a provided mapping function.
      *
+     * @param provider
+     *         the provider being processed
      * @param data
      *         the list of location data objects
      * @param mapper
      *         a function that maps each object to a {@link ChargingStationsEntity}
+     * @param stage
+     *         the last completed stage of the run
+     * @param run
+     *         the recorder of the current run
      * @param <T>
      *         the type of location data
      */
-    private <T> void saveChargingStationsToDb(List<T> data, Function<T, ChargingStationsEntity> mapper) {
+    private <T> void saveChargingStationsToDb(Providers provider, List<T> data, Function<T, ChargingStationsEntity> mapper, CheckpointStage stage, ProviderRunRecorder run) {
         List<ChargingStationsEntity> entities = data.stream().map(mapper).toList();
-        chargingStationsRepository.addChargingStationList(entities);
+        addChargingStations(provider, entities, stage, run);
+    }
+
+    /**
+     * Assigns the entities to their municipality, inserts them together with their webhook event and, once committed, records their station IDs in the {@link KnownStationRegistry}, requests an export and alerts
+     * matching area subscribers. Steps an interrupted run already completed are skipped; after the alerts the checkpoint is marked {@link CheckpointStage#NOTIFIED}, so a failing email does not repeat them.
+     *
+     * @param provider
+     *         the provider being processed
+     * @param entities
+     *         the entities to insert
+     * @param stage
+     *         the last completed stage of the run
+     * @param run
+     *         the recorder of the current run
+     */
+    private void addChargingStations(Providers provider, List<ChargingStationsEntity> entities, CheckpointStage stage, ProviderRunRecorder run) {
+        if (stage == CheckpointStage.NOTIFIED) {
+            LOG.info("{} new stations of provider {} were stored and alerted by the interrupted run, only sending the email", entities.size(), provider);
+            return;
+        }
+        if (stage == CheckpointStage.PERSISTED) {
+            LOG.info("{} new stations of provider {} were stored by the interrupted run, only notifying", entities.size(), provider);
+        } else {
+            run.run(RunStage.PERSIST, () -> {
+                regionAssigner.assign(entities);
+                // One transaction, so a committed station always has its webhook event queued and its checkpoint marked, and vice versa.
+                QuarkusTransaction.requiringNew().run(() -> {
+                    chargingStationsRepository.addChargingStationList(entities);
+                    webhookPublisher.publishNewStations(provider, entities);
+                    runCheckpoints.persisted(provider);
+                });
+                knownStationRegistry.addStationIds(provider, entities.stream().mapToLong(ChargingStationsEntity::getStationId).toArray());
+            });
+            run.addStationsInserted(entities.size());
+        }
+        stationExporter.requestExport();
+        run.run(RunStage.NOTIFY, () -> areaSubscriptionMatcher.notifyMatches(provider, entities));
+        runCheckpoints.notified(provider);
     }
 
     /**
@@ -221,10 +449,14 @@ public class ProviderProcessor {
      *         the provider being processed
      * @param stationIds
      *         the set of station IDs for which to fetch details
+     * @param source
+     *         where the response comes from
+     * @param run
+     *         the recorder of the current run
      *
      * @return the detailed location data
      */
-    private AmpecoDetailedLocation fetchDetailedLocationData(Providers provider, Set<Long> stationIds) {
+    private AmpecoDetailedLocation fetchDetailedLocationData(Providers provider, Set<Long> stationIds, ResponseSource source, ProviderRunRecorder run) {
         try {
             // Instead of manual string concatenation, build a request payload via a Map.
             Map<String, Object> locationsMap = new HashMap<>();
@@ -233,10 +465,10 @@ public class ProviderProcessor {
             locationsMap.put("locations", stationsMap);
             String requestBody = OBJECT_MAPPER.writeValueAsString(locationsMap);
 
-            String apiResponse = apiController.getAmpecoDetailedLocationsApi(requestBody, provider);
-            AmpecoDetailedLocation detailedLocation = OBJECT_MAPPER.readValue(apiResponse, AmpecoDetailedLocation.class);
+            byte[] apiResponse = run.call(RunStage.FETCH, () -> source.get(provider, ApiController.detailedLocationsRequestKey(provider), () -> apiController.getAmpecoDetailedLocationsApi(requestBody, provider, run.getTransfers())));
+            AmpecoDetailedLocation detailedLocation = (AmpecoDetailedLocation) parse(apiResponse, AmpecoDetailedLocation.class, "Failed to fetch detailed location data for provider: " + provider, run);
             // Filter out locations based on specific conditions.
-            detailedLocation.locations.removeIf(location -> location.zones.getFirst().evses.getFirst().roamingEvseId != null);
+            run.run(RunStage.PARSE, () -> detailedLocation.locations.removeIf(location -> location.zones.getFirst().evses.getFirst().roamingEvseId != null));
             return detailedLocation;
         } catch (JsonProcessingException e) {
             throw new JsonParsingException("Failed to fetch detailed location data for provider: " + provider, e);
@@ -257,7 +489,7 @@ public class ProviderProcessor {
      *
      * @return a list of filtered location data objects
      */
-    private <T> List<T> filterLocationData(T[] locationData, Set<Long> newStations, ToLongFunction<T> idExtractor) {
+    private <T> List<T> filterLocationData(T[] locationData, LongHashSet newStations, ToLongFunction<T> idExtractor) {
         return Arrays.stream(locationData).filter(location -> newStations.contains(idExtractor.applyAsLong(location))).toList();
     }
 
@@ -281,31 +513,66 @@ public class ProviderProcessor {
     }
 
     /**
-     * Extracts a set of station IDs from the location data.
+     * Extracts the station IDs from the location data, in API order. The array may contain duplicates.
      *
      * @param locationData
      *         the location data object
      *
-     * @return a set of station IDs
+     * @return the station IDs
      */
-    private Set<Long> getStationIdsFromApiData(Object locationData) {
-        Set<Long> stationIds = new LinkedHashSet<>();
-        switch (locationData) {
-            case AmpecoDetailedLocation detailed -> detailed.locations.forEach(loc -> stationIds.add(loc.id));
-            case PetrolLocations[] petrol -> {
-                for (PetrolLocations loc : petrol) {
-                    stationIds.add(loc.id);
-                }
+    private long[] getStationIdsFromApiData(Object locationData) {
+        return switch (locationData) {
+            case AmpecoDetailedLocation detailed -> detailed.locations.stream().mapToLong(loc -> loc.id).toArray();
+            case PetrolLocations[] petrol -> Arrays.stream(petrol).mapToLong(loc -> loc.id).toArray();
+            case MoonChargeLocation[] moon -> Arrays.stream(moon).mapToLong(loc -> loc.id).toArray();
+            case Avant2GoLocations avant -> avant.results.stream().mapToLong(Object::hashCode).toArray();
+            case ImpleraLocations implera -> implera.marker.stream().mapToLong(marker -> marker.id).toArray();
+            default -> throw new IllegalArgumentException("Unsupported location data type: " + locationData.getClass().getSimpleName());
+        };
+    }
+
+    /**
+     * Where the raw responses of a run come from: the live API, the archive at a replay instant, or the snapshots checkpointed by an interrupted run (falling back to the live API for responses that were not archived).
+     * Records the snapshot hash of every response it returns, computed over the same bytes {@link SnapshotArchive} archives.
+     */
+    private static final class ResponseSource {
+
+        private final SnapshotArchive snapshotArchive;
+        private final Instant replayAt;
+        private final Map<String, String> checkpointedSnapshots;
+        private final Map<String, String> fetchedSnapshots = new ConcurrentHashMap<>();
+
+        private ResponseSource(SnapshotArchive snapshotArchive, Instant replayAt, Map<String, String> checkpointedSnapshots) {
+            this.snapshotArchive = snapshotArchive;
+            this.replayAt = replayAt;
+            this.checkpointedSnapshots = checkpointedSnapshots;
+        }
+
+        static ResponseSource live(SnapshotArchive snapshotArchive, Map<String, String> checkpointedSnapshots) {
+            return new ResponseSource(snapshotArchive, null, checkpointedSnapshots);
+        }
+
+        static ResponseSource replay(SnapshotArchive snapshotArchive, Instant at) {
+            return new ResponseSource(snapshotArchive, at, Map.of());
+        }
+
+        byte[] get(Providers provider, String requestKey, Supplier<byte[]> request) {
+            if (replayAt != null) {
+                return snapshotArchive.load(provider, requestKey, replayAt);
             }
-            case MoonChargeLocation[] moon -> {
-                for (MoonChargeLocation loc : moon) {
-                    stationIds.add(loc.id);
-                }
+            String checkpointed = checkpointedSnapshots.get(requestKey);
+            if (checkpointed != null && snapshotArchive.contains(checkpointed)) {
+                LOG.info("Reusing checkpointed snapshot {} for provider {} instead of fetching {}", checkpointed, provider, requestKey);
+                fetchedSnapshots.put(requestKey, checkpointed);
+                return snapshotArchive.load(checkpointed);
             }
-            case Avant2GoLocations avant -> avant.results.forEach(result -> stationIds.add((long) result.hashCode()));
-            case ImpleraLocations implera -> implera.marker.forEach(marker -> stationIds.add(marker.id));
-            default -> throw new IllegalArgumentException("Unsupported location data type: " + locationData.getClass().getSimpleName());
+            byte[] body = request.get();
+            fetchedSnapshots.put(requestKey, SnapshotArchive.sha256(body));
+            return body;
+        }
+
+        Map<String, String> fetchedSnapshots() {
+            return fetchedSnapshots;
         }
-        return stationIds;
     }
 }
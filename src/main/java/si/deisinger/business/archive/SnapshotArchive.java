@@ -0,0 +1,233 @@
+package si.deisinger.business.archive;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.entity.ProviderSnapshotEntity;
+import si.deisinger.business.repository.ProviderSnapshotRepository;
+import si.deisinger.providers.enums.Providers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local, content-addressed archive of raw provider responses.
+ * <p>
+ * Each response body is stored once under its SHA-256 hash as a gzip-compressed object ({@code objects/ab/abcd....gz}); every fetch adds a row to the {@code provider_snapshot} index, so identical payloads fetched on different runs
+ * share one object. Old index rows are removed by {@link #applyRetention()} and objects no longer referenced by the index are deleted from disk.
+ */
+@ApplicationScoped
+public class SnapshotArchive {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotArchive.class);
+    private static final int RETENTION_DELETE_BATCH = 100;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ProviderSnapshotRepository providerSnapshotRepository;
+    private final boolean enabled;
+    private final Path objectsDirectory;
+    private final Duration retention;
+    private final long maxSizeBytes;
+    // Stores hold the read lock from writing the object until its index row is committed; deleting unreferenced objects takes the write lock, so it never sees an object whose row is still on its way.
+    private final ReadWriteLock objectLock = new ReentrantReadWriteLock();
+
+    public SnapshotArchive(ProviderSnapshotRepository providerSnapshotRepository, @ConfigProperty(name = "archive.enabled", defaultValue = "true") boolean enabled, @ConfigProperty(name = "archive.path", defaultValue = "archive") String path,
+            @ConfigProperty(name = "archive.retention", defaultValue = "365d") Duration retention, @ConfigProperty(name = "archive.max-size-mb", defaultValue = "1024") long maxSizeMb) {
+        this.providerSnapshotRepository = providerSnapshotRepository;
+        this.enabled = enabled;
+        this.objectsDirectory = Path.of(path, "objects");
+        this.retention = retention;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * Archives a raw response body. Failures are logged and never propagated, so archiving cannot break a provider run.
+     *
+     * @param provider
+     *         the provider the response belongs to
+     * @param requestKey
+     *         a stable key identifying the request (see {@code ApiController})
+     * @param raw
+     *         the decoded response body, UTF-8 encoded
+     *
+     * @return the SHA-256 hash of the body, or an empty optional if archiving is disabled or failed
+     */
+    public Optional<String> store(Providers provider, String requestKey, byte[] raw) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        objectLock.readLock().lock();
+        try {
+            String sha256 = sha256(raw);
+            Path object = objectPath(sha256);
+            long storedSize;
+            if (Files.exists(object)) {
+                storedSize = Files.size(object);
+                LOG.debug("Snapshot {} for provider {} already archived", sha256, provider);
+            } else {
+                storedSize = writeObject(object, raw);
+                LOG.info("Archived new snapshot {} for provider {} ({} bytes, {} compressed)", sha256, provider, raw.length, storedSize);
+            }
+            providerSnapshotRepository.addSnapshot(new ProviderSnapshotEntity(provider.getId(), requestKey, Instant.now(), sha256, (long) raw.length, storedSize));
+            return Optional.of(sha256);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Failed to archive snapshot for provider {}: {}", provider, e.getMessage(), e);
+            return Optional.empty();
+        } finally {
+            objectLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the most recent archived response for a request taken at or before the given time.
+     *
+     * @param provider
+     *         the provider the response belongs to
+     * @param requestKey
+     *         the key identifying the request
+     * @param at
+     *         the point in time to replay
+     *
+     * @return the archived response body, UTF-8 encoded
+     *
+     * @throws IllegalStateException
+     *         if no snapshot exists or the archived object cannot be read
+     */
+    public byte[] load(Providers provider, String requestKey, Instant at) {
+        ProviderSnapshotEntity snapshot = providerSnapshotRepository.findLatestSnapshot(provider, requestKey, at)
+                .orElseThrow(() -> new IllegalStateException("No archived snapshot for provider " + provider + " and request " + requestKey + " at or before " + at));
+        LOG.info("Replaying snapshot {} fetched at {} for provider {}", snapshot.getSha256(), snapshot.getFetchedAt(), provider);
+        return load(snapshot.getSha256());
+    }
+
+    /**
+     * Loads an archived object by its hash.
+     *
+     * @param sha256
+     *         the SHA-256 hash of the body
+     *
+     * @return the archived response body, UTF-8 encoded
+     *
+     * @throws IllegalStateException
+     *         if the archived object cannot be read
+     */
+    public byte[] load(String sha256) {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(objectPath(sha256)))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read archived snapshot " + sha256, e);
+        }
+    }
+
+    /**
+     * Checks whether an object is in the archive.
+     *
+     * @param sha256
+     *         the SHA-256 hash of the body
+     *
+     * @return {@code true} if {@link #load(String)} can read it
+     */
+    public boolean contains(String sha256) {
+        return enabled && Files.exists(objectPath(sha256));
+    }
+
+    /**
+     * Returns the hash a body is archived under.
+     *
+     * @param raw
+     *         the decoded response body, as passed to {@link #store(Providers, String, byte[])}
+     *
+     * @return the hex SHA-256 hash of the body
+     */
+    public static String sha256(byte[] raw) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(raw));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Removes index entries older than the configured retention, then the oldest remaining entries while the archive exceeds the configured size, and finally deletes objects that are no longer referenced. The latest
+     * snapshot of every request is always kept.
+     */
+    public void applyRetention() {
+        if (!enabled) {
+            return;
+        }
+        int expired = providerSnapshotRepository.deleteSnapshotsOlderThan(Instant.now().minus(retention));
+        long trimmed = 0;
+        while (providerSnapshotRepository.sumReferencedObjectSize() > maxSizeBytes) {
+            int deleted = providerSnapshotRepository.deleteOldestSnapshots(RETENTION_DELETE_BATCH);
+            if (deleted == 0) {
+                break;
+            }
+            trimmed += deleted;
+        }
+        int removedObjects = deleteUnreferencedObjects();
+        LOG.info("Snapshot retention removed {} expired and {} over-size index entries and {} objects", expired, trimmed, removedObjects);
+    }
+
+    /**
+     * Deletes objects without an index entry. Runs under the write lock, so no {@link #store} is in flight: every stored object already has its row, and a temporary file can only be left over from a crash.
+     */
+    private int deleteUnreferencedObjects() {
+        if (!Files.isDirectory(objectsDirectory)) {
+            return 0;
+        }
+        objectLock.writeLock().lock();
+        try (Stream<Path> files = Files.walk(objectsDirectory)) {
+            Set<String> referenced = providerSnapshotRepository.findReferencedHashes();
+            List<Path> unreferenced = files.filter(Files::isRegularFile).filter(file -> {
+                String name = file.getFileName().toString();
+                return name.endsWith(TEMP_SUFFIX) || !referenced.contains(name.replace(".gz", ""));
+            }).toList();
+            for (Path file : unreferenced) {
+                Files.deleteIfExists(file);
+            }
+            return unreferenced.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to clean up snapshot archive " + objectsDirectory, e);
+        } finally {
+            objectLock.writeLock().unlock();
+        }
+    }
+
+    private long writeObject(Path object, byte[] raw) throws IOException {
+        Files.createDirectories(object.getParent());
+        // Write to a temporary file first so a crash never leaves a truncated object under its final name.
+        Path temp = Files.createTempFile(object.getParent(), "snapshot", TEMP_SUFFIX);
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                out.write(raw);
+            }
+            Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+            return Files.size(object);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path objectPath(String sha256) {
+        return objectsDirectory.resolve(sha256.substring(0, 2)).resolve(sha256 + ".gz");
+    }
+}
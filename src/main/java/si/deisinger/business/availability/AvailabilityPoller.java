@@ -0,0 +1,204 @@
+package si.deisinger.business.availability;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.catalog.StationCatalogRegistry;
+import si.deisinger.business.controller.ApiController;
+import si.deisinger.business.exceptions.JsonParsingException;
+import si.deisinger.providers.enums.Providers;
+import si.deisinger.providers.model.ampeco.AmpecoDetailedLocation;
+import si.deisinger.providers.model.petrol.PetrolLocations;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Polls the live EVSE status of the providers that report it and records the changes in the {@link AvailabilityStore}.
+ * <p>
+ * The Ampeco providers report a status per EVSE in their detailed location data, which is requested for all stations of the provider in the {@link StationCatalogRegistry station catalog}. Petrol only reports how many EVSEs of a location are available, occupied or
+ * faulty; each location is tracked as slots {@code slot-1..slot-n} filled in that order, so the per-station totals are exact even though individual slots are not real EVSEs. Other providers do not report availability.
+ * <p>
+ * Availability responses are not archived.
+ */
+@ApplicationScoped
+public class AvailabilityPoller {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AvailabilityPoller.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ZoneId ZONE = ZoneId.of("Europe/Ljubljana");
+    private static final List<Providers> POLLED_PROVIDERS = List.of(Providers.GREMONAELEKTRIKO, Providers.MEGATEL, Providers.EFREND, Providers.PETROL);
+
+    private final ApiController apiController;
+    private final StationCatalogRegistry stationCatalogRegistry;
+    private final AvailabilityStore availabilityStore;
+    private final boolean enabled;
+    private final Duration transitionRetention;
+
+    public AvailabilityPoller(ApiController apiController, StationCatalogRegistry stationCatalogRegistry, AvailabilityStore availabilityStore,
+            @ConfigProperty(name = "availability.enabled", defaultValue = "true") boolean enabled,
+            @ConfigProperty(name = "availability.transition-retention", defaultValue = "400d") Duration transitionRetention) {
+        this.apiController = apiController;
+        this.stationCatalogRegistry = stationCatalogRegistry;
+        this.availabilityStore = availabilityStore;
+        this.enabled = enabled;
+        this.transitionRetention = transitionRetention;
+    }
+
+    @Scheduled(every = "{availability.poll-interval:5m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void poll() {
+        if (!enabled) {
+            return;
+        }
+        for (Providers provider : POLLED_PROVIDERS) {
+            try {
+                pollProvider(provider);
+            } catch (Exception e) {
+                LOG.error("Availability poll of provider {} failed: {}", provider, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Rolls up the closed days, clears transitions past the retention period and creates next month's partition.
+     */
+    @Scheduled(cron = "{availability.rollup-cron:0 20 0 * * ?}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void maintain() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now(ZONE);
+        availabilityStore.ensurePartitions(YearMonth.from(today).plusMonths(1));
+        availabilityStore.rollUp(today);
+        availabilityStore.pruneTransitions(today.minusDays(transitionRetention.toDays()));
+    }
+
+    /**
+     * Fetches and records the EVSE status of one provider.
+     *
+     * @param provider
+     *         the provider to poll
+     *
+     * @return the number of status changes recorded
+     */
+    public int pollProvider(Providers provider) {
+        Instant at = Instant.now();
+        List<EvseObservation> observations = switch (provider) {
+            case GREMONAELEKTRIKO, MEGATEL, EFREND -> fetchAmpecoObservations(provider);
+            case PETROL -> fetchPetrolObservations();
+            default -> throw new IllegalArgumentException("Provider " + provider + " does not report availability");
+        };
+        if (observations.isEmpty()) {
+            return 0;
+        }
+        return availabilityStore.record(provider, observations, at);
+    }
+
+    private List<EvseObservation> fetchAmpecoObservations(Providers provider) {
+        long[] stationIds = stationCatalogRegistry.get().getStationIds(provider);
+        if (stationIds.length == 0) {
+            return List.of();
+        }
+        Map<String, Object> stations = new LinkedHashMap<>();
+        for (long stationId : stationIds) {
+            stations.put(String.valueOf(stationId), null);
+        }
+        AmpecoDetailedLocation detailedLocation = parse(apiController.getAmpecoAvailabilityApi(serialize(Map.of("locations", stations), provider), provider), AmpecoDetailedLocation.class, provider);
+        List<EvseObservation> observations = new ArrayList<>();
+        if (detailedLocation.locations == null) {
+            return observations;
+        }
+        for (AmpecoDetailedLocation.Locations location : detailedLocation.locations) {
+            if (location.zones == null) {
+                continue;
+            }
+            for (AmpecoDetailedLocation.Zone zone : location.zones) {
+                if (zone.evses == null) {
+                    continue;
+                }
+                for (AmpecoDetailedLocation.Evse evse : zone.evses) {
+                    if (evse.id != null) {
+                        observations.add(new EvseObservation(location.id, evse.id, getAmpecoStatus(evse)));
+                    }
+                }
+            }
+        }
+        return observations;
+    }
+
+    private List<EvseObservation> fetchPetrolObservations() {
+        PetrolLocations[] locations = parse(apiController.getLocationAvailabilityFromApi(Providers.PETROL), PetrolLocations[].class, Providers.PETROL);
+        List<EvseObservation> observations = new ArrayList<>();
+        for (PetrolLocations location : locations) {
+            if (location.id == null || location.isPartnerRoaming) {
+                continue;
+            }
+            int slot = 0;
+            slot = addSlots(observations, location.id, slot, location.availableEvses, EvseStatus.AVAILABLE);
+            slot = addSlots(observations, location.id, slot, location.occupiedEvses + location.parkingOccupiedEvses, EvseStatus.OCCUPIED);
+            slot = addSlots(observations, location.id, slot, location.faultyEvses, EvseStatus.FAULTY);
+            addSlots(observations, location.id, slot, location.totalEvses - slot, EvseStatus.UNKNOWN);
+        }
+        return observations;
+    }
+
+    private static int addSlots(List<EvseObservation> observations, long stationId, int firstSlot, int count, EvseStatus status) {
+        for (int i = 0; i < count; i++) {
+            observations.add(new EvseObservation(stationId, "slot-" + (firstSlot + i + 1), status));
+        }
+        return firstSlot + Math.max(0, count);
+    }
+
+    /**
+     * Maps an Ampeco EVSE to a status. Unavailability flags win over the status string; statuses that are neither available, faulty nor offline (charging, preparing, reserved, ...) count as occupied.
+     */
+    private static EvseStatus getAmpecoStatus(AmpecoDetailedLocation.Evse evse) {
+        if (evse.isTemporarilyUnavailable || evse.isLongTermUnavailable) {
+            return EvseStatus.FAULTY;
+        }
+        if (evse.isAvailable) {
+            return EvseStatus.AVAILABLE;
+        }
+        if (evse.status == null) {
+            return EvseStatus.UNKNOWN;
+        }
+        String status = evse.status.toLowerCase(Locale.ROOT);
+        if (status.contains("fault") || status.contains("unavailable") || status.contains("error") || status.contains("out_of_order")) {
+            return EvseStatus.FAULTY;
+        }
+        if (status.contains("offline") || status.contains("unknown")) {
+            return EvseStatus.UNKNOWN;
+        }
+        return status.equals("available") ? EvseStatus.AVAILABLE : EvseStatus.OCCUPIED;
+    }
+
+    private static <T> T parse(byte[] json, Class<T> type, Providers provider) {
+        try {
+            return OBJECT_MAPPER.readValue(json, type);
+        } catch (IOException e) {
+            throw new JsonParsingException("Failed to parse availability data for provider: " + provider, e);
+        }
+    }
+
+    private static String serialize(Object value, Providers provider) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new JsonParsingException("Failed to build availability request for provider: " + provider, e);
+        }
+    }
+}
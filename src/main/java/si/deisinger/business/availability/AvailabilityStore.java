@@ -0,0 +1,363 @@
+package si.deisinger.business.availability;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.model.StationAvailability;
+import si.deisinger.providers.enums.Providers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Stores EVSE availability as status transitions in {@code availability_day}: one row per EVSE and day with the status at midnight and the delta-encoded changes of the day (see {@link TransitionCodec}). Polls that do not
+ * change an EVSE's status write nothing, so storage grows with the number of changes rather than the number of polls.
+ * <p>
+ * Closed days are rolled up into the seconds spent per status, so utilization and uptime over months read about one small row per EVSE and day. The encoded transitions are cleared after the retention period.
+ * <p>
+ * The latest state of every series is kept in memory and restored from the table on first use, so recording a poll needs no reads.
+ */
+@ApplicationScoped
+public class AvailabilityStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AvailabilityStore.class);
+    private static final ZoneId ZONE = ZoneId.of("Europe/Ljubljana");
+    private static final int ROLLUP_BATCH = 5000;
+    private static final byte[] NO_TRANSITIONS = new byte[0];
+
+    private final DataSource dataSource;
+    private final Map<Providers, Map<SeriesKey, Integer>> seriesIds = new EnumMap<>(Providers.class);
+    private final Map<Integer, SeriesState> states = new HashMap<>();
+    private final Set<YearMonth> partitions = new HashSet<>();
+
+    public AvailabilityStore(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Records one poll of a provider. Only EVSEs whose status changed, and the first observation of each EVSE on a new day, are written.
+     *
+     * @param provider
+     *         the polled provider
+     * @param observations
+     *         the EVSE statuses in the provider's response
+     * @param at
+     *         when the response was fetched
+     *
+     * @return the number of status changes recorded
+     *
+     * @throws IllegalStateException
+     *         if the database write fails; nothing is recorded in that case
+     */
+    public synchronized int record(Providers provider, List<EvseObservation> observations, Instant at) {
+        LocalDate day = LocalDate.ofInstant(at, ZONE);
+        Instant midnight = day.atStartOfDay(ZONE).toInstant();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                ensurePartition(connection, YearMonth.from(day));
+                Map<SeriesKey, Integer> ids = getSeriesIds(connection, provider, observations);
+                Map<Integer, EvseStatus> latest = new LinkedHashMap<>();
+                observations.forEach(observation -> latest.put(ids.get(new SeriesKey(observation.stationId(), observation.evseId())), observation.status()));
+
+                Map<Integer, SeriesState> updated = new HashMap<>();
+                int changes = 0;
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        INSERT INTO availability_day (series_id, day, initial_status, status, last_change_at, transitions)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        ON CONFLICT (series_id, day) DO UPDATE
+                            SET status         = excluded.status,
+                                last_change_at = greatest(availability_day.last_change_at, excluded.last_change_at),
+                                transitions    = coalesce(availability_day.transitions, ''::bytea) || excluded.transitions
+                        """)) {
+                    for (Map.Entry<Integer, EvseStatus> entry : latest.entrySet()) {
+                        int seriesId = entry.getKey();
+                        EvseStatus status = entry.getValue();
+                        SeriesState state = states.get(seriesId);
+                        SeriesState next;
+                        EvseStatus initialStatus;
+                        byte[] transition;
+                        if (state == null || !state.day().equals(day)) {
+                            // First observation of the day: the previous status carries over from midnight, unknown for a new series.
+                            initialStatus = state == null ? EvseStatus.UNKNOWN : state.status();
+                            boolean changed = status != initialStatus;
+                            transition = changed ? TransitionCodec.encode(Duration.between(midnight, at).getSeconds(), status) : NO_TRANSITIONS;
+                            next = new SeriesState(day, status, changed ? at : midnight);
+                        } else if (status != state.status()) {
+                            initialStatus = state.status();
+                            transition = TransitionCodec.encode(Duration.between(state.lastChangeAt(), at).getSeconds(), status);
+                            next = new SeriesState(day, status, at);
+                        } else {
+                            continue;
+                        }
+                        if (transition.length > 0) {
+                            changes++;
+                        }
+                        statement.setInt(1, seriesId);
+                        statement.setObject(2, day);
+                        statement.setShort(3, (short) initialStatus.getCode());
+                        statement.setShort(4, (short) status.getCode());
+                        statement.setObject(5, next.lastChangeAt().atOffset(ZoneOffset.UTC));
+                        statement.setBytes(6, transition);
+                        statement.addBatch();
+                        updated.put(seriesId, next);
+                    }
+                    statement.executeBatch();
+                }
+                connection.commit();
+                states.putAll(updated);
+                LOG.info("Recorded {} availability changes for provider {} ({} EVSEs observed)", changes, provider, latest.size());
+                return changes;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            // Series IDs and partitions may have been created in the rolled back transaction.
+            seriesIds.remove(provider);
+            partitions.clear();
+            throw new IllegalStateException("Failed to record availability for provider " + provider, e);
+        }
+    }
+
+    /**
+     * Rolls up every day before {@code today} that has not been rolled up yet into the seconds spent per status.
+     *
+     * @param today
+     *         the current day; it and later days stay open
+     *
+     * @return the number of EVSE days rolled up
+     *
+     * @throws IllegalStateException
+     *         if the rollup fails; the days rolled up in earlier batches stay rolled up
+     */
+    public int rollUp(LocalDate today) {
+        int rolledUp = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int batch;
+                do {
+                    batch = rollUpBatch(connection, today);
+                    connection.commit();
+                    rolledUp += batch;
+                } while (batch == ROLLUP_BATCH);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to roll up availability", e);
+        }
+        LOG.info("Rolled up availability of {} EVSE days", rolledUp);
+        return rolledUp;
+    }
+
+    /**
+     * Clears the encoded transitions of rolled-up days before the given day. The rolled-up seconds are kept.
+     *
+     * @param before
+     *         the first day whose transitions are kept
+     *
+     * @return the number of EVSE days cleared
+     */
+    public int pruneTransitions(LocalDate before) {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("UPDATE availability_day SET transitions = NULL WHERE day < ? AND transitions IS NOT NULL AND available_s IS NOT NULL")) {
+            statement.setObject(1, before);
+            int pruned = statement.executeUpdate();
+            LOG.info("Cleared availability transitions of {} EVSE days before {}", pruned, before);
+            return pruned;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to prune availability transitions", e);
+        }
+    }
+
+    /**
+     * Creates the monthly partitions up to and including the given month if they do not exist.
+     *
+     * @param until
+     *         the last month to create
+     */
+    public synchronized void ensurePartitions(YearMonth until) {
+        try (Connection connection = dataSource.getConnection()) {
+            for (YearMonth month = YearMonth.now(ZONE); !month.isAfter(until); month = month.plusMonths(1)) {
+                ensurePartition(connection, month);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create availability partitions", e);
+        }
+    }
+
+    /**
+     * Sums the rolled-up time of a station's EVSEs per status.
+     *
+     * @param provider
+     *         the provider
+     * @param stationId
+     *         the provider's station ID
+     * @param from
+     *         the first day to include
+     * @param to
+     *         the last day to include
+     *
+     * @return the availability, or an empty optional if there is no rolled-up data for the station in the range
+     */
+    public Optional<StationAvailability> findStationAvailability(Providers provider, long stationId, LocalDate from, LocalDate to) {
+        try (Connection connection = dataSource.getConnection(); PreparedStatement statement = connection.prepareStatement("""
+                SELECT count(DISTINCT d.series_id), sum(d.available_s), sum(d.occupied_s), sum(d.faulty_s), sum(d.unknown_s)
+                FROM availability_series s
+                JOIN availability_day d ON d.series_id = s.id
+                WHERE s.provider = ? AND s.station_id = ? AND d.day BETWEEN ? AND ? AND d.available_s IS NOT NULL
+                """)) {
+            statement.setInt(1, provider.getId());
+            statement.setLong(2, stationId);
+            statement.setObject(3, from);
+            statement.setObject(4, to);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                int evses = resultSet.getInt(1);
+                if (evses == 0) {
+                    return Optional.empty();
+                }
+                long available = resultSet.getLong(2);
+                long occupied = resultSet.getLong(3);
+                long faulty = resultSet.getLong(4);
+                long unknown = resultSet.getLong(5);
+                long inService = available + occupied;
+                Double utilization = inService > 0 ? (double) occupied / inService : null;
+                Double uptime = inService + faulty > 0 ? (double) inService / (inService + faulty) : null;
+                return Optional.of(new StationAvailability(provider.getProviderName(), stationId, from, to, evses, available, occupied, faulty, unknown, utilization, uptime));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to read availability of station " + stationId + " of provider " + provider, e);
+        }
+    }
+
+    private int rollUpBatch(Connection connection, LocalDate today) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT series_id, day, initial_status, transitions FROM availability_day WHERE day < ? AND available_s IS NULL ORDER BY day, series_id LIMIT " + ROLLUP_BATCH)) {
+            statement.setObject(1, today);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    LocalDate day = resultSet.getObject(2, LocalDate.class);
+                    long daySeconds = Duration.between(day.atStartOfDay(ZONE), day.plusDays(1).atStartOfDay(ZONE)).getSeconds();
+                    long[] durations = TransitionCodec.durations(EvseStatus.fromCode(resultSet.getShort(3)), resultSet.getBytes(4), daySeconds);
+                    rows.add(new Object[] { resultSet.getInt(1), day, durations });
+                }
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement("UPDATE availability_day SET available_s = ?, occupied_s = ?, faulty_s = ?, unknown_s = ? WHERE series_id = ? AND day = ?")) {
+            for (Object[] row : rows) {
+                long[] durations = (long[]) row[2];
+                statement.setInt(1, (int) durations[EvseStatus.AVAILABLE.getCode()]);
+                statement.setInt(2, (int) durations[EvseStatus.OCCUPIED.getCode()]);
+                statement.setInt(3, (int) durations[EvseStatus.FAULTY.getCode()]);
+                statement.setInt(4, (int) durations[EvseStatus.UNKNOWN.getCode()]);
+                statement.setInt(5, (int) row[0]);
+                statement.setObject(6, row[1]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        return rows.size();
+    }
+
+    /**
+     * Returns the series IDs of the observed EVSEs, registering new ones. The provider's series and their latest state are loaded on first use.
+     */
+    private Map<SeriesKey, Integer> getSeriesIds(Connection connection, Providers provider, List<EvseObservation> observations) throws SQLException {
+        Map<SeriesKey, Integer> ids = seriesIds.get(provider);
+        if (ids == null) {
+            ids = loadSeriesIds(connection, provider);
+            loadStates(connection, provider);
+            seriesIds.put(provider, ids);
+        }
+        List<EvseObservation> unregistered = observations.stream().filter(observation -> !seriesIds.get(provider).containsKey(new SeriesKey(observation.stationId(), observation.evseId()))).toList();
+        if (!unregistered.isEmpty()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO availability_series (provider, station_id, evse_id) SELECT ?, u.station_id, u.evse_id FROM unnest(?::bigint[], ?::varchar[]) AS u(station_id, evse_id) ON CONFLICT DO NOTHING")) {
+                statement.setInt(1, provider.getId());
+                statement.setArray(2, connection.createArrayOf("bigint", unregistered.stream().map(EvseObservation::stationId).toArray()));
+                statement.setArray(3, connection.createArrayOf("varchar", unregistered.stream().map(EvseObservation::evseId).toArray()));
+                statement.executeUpdate();
+            }
+            ids = loadSeriesIds(connection, provider);
+            seriesIds.put(provider, ids);
+        }
+        return ids;
+    }
+
+    private static Map<SeriesKey, Integer> loadSeriesIds(Connection connection, Providers provider) throws SQLException {
+        Map<SeriesKey, Integer> ids = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT id, station_id, evse_id FROM availability_series WHERE provider = ?")) {
+            statement.setInt(1, provider.getId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.put(new SeriesKey(resultSet.getLong(2), resultSet.getString(3)), resultSet.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Restores the latest state of the provider's series from yesterday and today; older series start over as unknown.
+     */
+    private void loadStates(Connection connection, Providers provider) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT DISTINCT ON (d.series_id) d.series_id, d.day, d.status, d.last_change_at
+                FROM availability_day d
+                JOIN availability_series s ON s.id = d.series_id
+                WHERE s.provider = ? AND d.day >= ?
+                ORDER BY d.series_id, d.day DESC
+                """)) {
+            statement.setInt(1, provider.getId());
+            statement.setObject(2, LocalDate.now(ZONE).minusDays(1));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    states.put(resultSet.getInt(1),
+                            new SeriesState(resultSet.getObject(2, LocalDate.class), EvseStatus.fromCode(resultSet.getShort(3)), resultSet.getObject(4, OffsetDateTime.class).toInstant()));
+                }
+            }
+        }
+    }
+
+    private void ensurePartition(Connection connection, YearMonth month) throws SQLException {
+        if (partitions.contains(month)) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS availability_day_y%dm%02d PARTITION OF availability_day FOR VALUES FROM ('%s') TO ('%s')".formatted(month.getYear(), month.getMonthValue(), month.atDay(1),
+                    month.plusMonths(1).atDay(1)));
+        }
+        partitions.add(month);
+    }
+
+    private record SeriesKey(long stationId, String evseId) {
+    }
+
+    private record SeriesState(LocalDate day, EvseStatus status, Instant lastChangeAt) {
+    }
+}
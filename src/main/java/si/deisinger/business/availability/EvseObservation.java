@@ -0,0 +1,14 @@
+package si.deisinger.business.availability;
+
+/**
+ * Status of one EVSE as reported by a provider.
+ *
+ * @param stationId
+ *         the provider's station ID
+ * @param evseId
+ *         the provider's EVSE ID, or a slot name for providers that only report counts per station
+ * @param status
+ *         the reported status
+ */
+public record EvseObservation(long stationId, String evseId, EvseStatus status) {
+}
@@ -0,0 +1,35 @@
+package si.deisinger.business.availability;
+
+/**
+ * Status of an EVSE as tracked by the availability poller. The code is what is stored in {@code availability_day}.
+ */
+public enum EvseStatus {
+    UNKNOWN(0),
+    AVAILABLE(1),
+    OCCUPIED(2),
+    FAULTY(3);
+
+    private static final EvseStatus[] BY_CODE = values();
+
+    private final int code;
+
+    EvseStatus(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the status with the given code.
+     *
+     * @param code
+     *         the stored code
+     *
+     * @return the status, {@link #UNKNOWN} for codes this version does not know
+     */
+    public static EvseStatus fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : UNKNOWN;
+    }
+}
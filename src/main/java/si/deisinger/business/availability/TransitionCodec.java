@@ -0,0 +1,80 @@
+package si.deisinger.business.availability;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encoding of the status changes of one EVSE and day: per change, the seconds since the previous change (or midnight) as an unsigned LEB128 varint, followed by the status code byte. A change within the same day is at most
+ * 25 hours after the previous one, so an entry takes at most four bytes.
+ */
+final class TransitionCodec {
+
+    private TransitionCodec() {
+    }
+
+    /**
+     * Encodes one status change.
+     *
+     * @param deltaSeconds
+     *         seconds since the previous change, or since midnight for the first change of the day
+     * @param status
+     *         the new status
+     *
+     * @return the encoded entry, to be appended to the day's transitions
+     */
+    static byte[] encode(long deltaSeconds, EvseStatus status) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4);
+        long value = Math.max(0, deltaSeconds);
+        while (value >= 0x80) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+        out.write(status.getCode());
+        return out.toByteArray();
+    }
+
+    /**
+     * Computes the seconds spent in each status over a day.
+     *
+     * @param initialStatus
+     *         the status at midnight
+     * @param transitions
+     *         the encoded changes of the day, may be {@code null}
+     * @param daySeconds
+     *         the length of the day in seconds (23 or 25 hours on daylight saving changes)
+     *
+     * @return the seconds per status, indexed by {@link EvseStatus#getCode()}
+     *
+     * @throws IllegalArgumentException
+     *         if the encoding is truncated
+     */
+    static long[] durations(EvseStatus initialStatus, byte[] transitions, long daySeconds) {
+        long[] durations = new long[EvseStatus.values().length];
+        EvseStatus current = initialStatus;
+        long previous = 0;
+        int position = 0;
+        int length = transitions == null ? 0 : transitions.length;
+        while (position < length) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position >= length || shift > 56) {
+                    throw new IllegalArgumentException("Truncated transition encoding");
+                }
+                b = transitions[position++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (position >= length) {
+                throw new IllegalArgumentException("Transition without status");
+            }
+            long at = Math.min(previous + delta, daySeconds);
+            durations[current.getCode()] += at - previous;
+            previous = at;
+            current = EvseStatus.fromCode(transitions[position++]);
+        }
+        durations[current.getCode()] += daySeconds - previous;
+        return durations;
+    }
+}
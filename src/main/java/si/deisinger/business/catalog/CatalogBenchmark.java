@@ -0,0 +1,140 @@
+package si.deisinger.business.catalog;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.entity.ChargingStationsEntity;
+import si.deisinger.business.model.CatalogFootprint;
+import si.deisinger.business.repository.ChargingStationsRepository;
+import si.deisinger.providers.enums.Providers;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares the {@link StationCatalog} with holding the same stations as {@link ChargingStationsEntity} objects, as the code did before the catalog: retained heap, point lookups by provider and station ID (a
+ * {@code HashMap} of entities against the catalog's binary search) and a full scan summing the power of all stations.
+ * <p>
+ * Heap is measured as the growth of used heap after a full GC, so it is only meaningful on an otherwise idle JVM; the analytic estimate of {@link StationCatalog#footprint()} is logged next to it. Timings are the best of
+ * several rounds after a warm-up round. This is a quick operational check run against the real database, not a microbenchmark harness.
+ */
+@ApplicationScoped
+public class CatalogBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogBenchmark.class);
+    private static final int ROUNDS = 5;
+    private static final long SEED = 42;
+
+    private final ChargingStationsRepository chargingStationsRepository;
+    private final StationCatalogRegistry stationCatalogRegistry;
+
+    public CatalogBenchmark(ChargingStationsRepository chargingStationsRepository, StationCatalogRegistry stationCatalogRegistry) {
+        this.chargingStationsRepository = chargingStationsRepository;
+        this.stationCatalogRegistry = stationCatalogRegistry;
+    }
+
+    /**
+     * Runs the comparison and logs the results.
+     *
+     * @param lookups
+     *         the number of random point lookups per round
+     */
+    public void run(int lookups) throws SQLException {
+        long[] version = chargingStationsRepository.findStationSetVersion();
+        long before = usedHeap();
+        List<ChargingStationsEntity> entities = chargingStationsRepository.findAllStations();
+        Map<Integer, Map<Long, ChargingStationsEntity>> entityIndex = new HashMap<>();
+        for (ChargingStationsEntity entity : entities) {
+            if (entity.getProvider() != null && entity.getStationId() != null) {
+                entityIndex.computeIfAbsent(entity.getProvider(), provider -> new HashMap<>()).put(entity.getStationId(), entity);
+            }
+        }
+        long entityHeap = usedHeap() - before;
+        before = usedHeap();
+        StationCatalog catalog = stationCatalogRegistry.load(version);
+        long catalogHeap = usedHeap() - before;
+        if (catalog.size() == 0) {
+            LOG.info("No stations stored, nothing to benchmark");
+            return;
+        }
+
+        // The same random existing stations for both representations.
+        Random random = new Random(SEED);
+        Providers[] keyProviders = new Providers[lookups];
+        long[] keyStationIds = new long[lookups];
+        for (int i = 0; i < lookups; i++) {
+            int row = random.nextInt(catalog.size());
+            keyProviders[i] = Providers.fromId(catalog.getProviderId(row)).orElseThrow();
+            keyStationIds[i] = catalog.getStationId(row);
+        }
+
+        long entityLookup = bestOf(() -> {
+            long sum = 0;
+            for (int i = 0; i < lookups; i++) {
+                sum += entityIndex.get(keyProviders[i].getId()).get(keyStationIds[i]).getId();
+            }
+            return sum;
+        });
+        long catalogLookup = bestOf(() -> {
+            long sum = 0;
+            for (int i = 0; i < lookups; i++) {
+                sum += catalog.getId(catalog.find(keyProviders[i], keyStationIds[i]));
+            }
+            return sum;
+        });
+        long entityScan = bestOf(() -> {
+            double sum = 0;
+            for (ChargingStationsEntity entity : entities) {
+                if (entity.getMaxPowerKw() != null) {
+                    sum += entity.getMaxPowerKw();
+                }
+            }
+            return Double.doubleToLongBits(sum);
+        });
+        long catalogScan = bestOf(() -> {
+            double sum = 0;
+            for (int row = 0; row < catalog.size(); row++) {
+                float power = catalog.getMaxPowerKw(row);
+                if (!Float.isNaN(power)) {
+                    sum += power;
+                }
+            }
+            return Double.doubleToLongBits(sum);
+        });
+
+        CatalogFootprint footprint = catalog.footprint();
+        LOG.info("Catalog benchmark over {} stations ({} distinct names/addresses, {} distinct areas)", catalog.size(), footprint.distinctStrings().get("names"), footprint.distinctStrings().get("areas"));
+        LOG.info("Heap, measured: entities {} KiB, catalog {} KiB; estimated: entities {} KiB, catalog {} KiB", entityHeap / 1024, catalogHeap / 1024, footprint.entityBytes() / 1024, footprint.catalogBytes() / 1024);
+        LOG.info("{} point lookups: entity map {} us, catalog {} us", lookups, entityLookup / 1000, catalogLookup / 1000);
+        LOG.info("Full power scan: entities {} us, catalog {} us", entityScan / 1000, catalogScan / 1000);
+    }
+
+    /**
+     * Returns the fastest of {@link #ROUNDS} timed rounds in nanoseconds, after one untimed warm-up round.
+     */
+    private static long bestOf(LongSupplier round) {
+        long sink = round.getAsLong();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long started = System.nanoTime();
+            sink ^= round.getAsLong();
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        // Use the results so the rounds cannot be optimized away.
+        if (sink == SEED) {
+            LOG.trace("Benchmark checksum {}", sink);
+        }
+        return best;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
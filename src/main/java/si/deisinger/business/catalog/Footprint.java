@@ -0,0 +1,49 @@
+package si.deisinger.business.catalog;
+
+/**
+ * Heap size estimates for a 64-bit JVM with compressed class pointers and oops (12-byte object headers, 4-byte references, 8-byte alignment) and compact strings.
+ */
+final class Footprint {
+
+    static final int REFERENCE_BYTES = 4;
+
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int BOXED_BYTES = 16;
+    private static final int INSTANT_BYTES = 24;
+    // ChargingStationsEntity: header plus 11 reference fields.
+    private static final int ENTITY_BYTES = align(OBJECT_HEADER_BYTES + 11 * REFERENCE_BYTES);
+    // String: header, value reference, hash, coder and hashIsZero.
+    private static final int STRING_BYTES = align(OBJECT_HEADER_BYTES + REFERENCE_BYTES + 4 + 1 + 1);
+
+    private Footprint() {
+    }
+
+    static long array(int length, int elementBytes) {
+        return align(ARRAY_HEADER_BYTES + (long) length * elementBytes);
+    }
+
+    static long string(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = value.chars().allMatch(c -> c < 256);
+        return STRING_BYTES + array(value.length(), latin1 ? 1 : 2);
+    }
+
+    /**
+     * Estimates one station held as a {@code ChargingStationsEntity}: the entity, its boxed numbers, its own copy of every string and its {@code Instant}s. Small provider IDs are cached {@code Integer}s and not counted.
+     */
+    static long entity(String friendlyName, String address, String location, boolean hasMaxPower, String municipality, String statisticalRegion, int instants) {
+        return ENTITY_BYTES + 2L * BOXED_BYTES + (hasMaxPower ? BOXED_BYTES : 0) + string(friendlyName) + string(address) + string(location) + string(municipality) + string(statisticalRegion)
+                + (long) instants * INSTANT_BYTES;
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
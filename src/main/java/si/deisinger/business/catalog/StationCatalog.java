@@ -0,0 +1,304 @@
+package si.deisinger.business.catalog;
+
+import si.deisinger.business.geo.GeoPoint;
+import si.deisinger.business.model.CatalogFootprint;
+import si.deisinger.providers.enums.Providers;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable, column-oriented copy of the stored stations.
+ * <p>
+ * Every attribute is a primitive array indexed by row, so a station costs a few dozen bytes instead of an entity with boxed numbers and its own strings. Names, addresses, municipalities and regions are dictionary-encoded: a
+ * column holds an {@code int} code and each distinct string is kept once. Coordinates are parsed once and stored as {@code float} (well under a metre at these latitudes); missing coordinates and power are {@code NaN}.
+ * <p>
+ * Rows are sorted by provider and station ID, so {@link #find(Providers, long)} is a binary search. A catalog is never modified after {@link Builder#build()}; see {@link StationCatalogRegistry} for how a new one replaces
+ * it.
+ */
+public final class StationCatalog {
+
+    private static final StationCatalog EMPTY = new Builder(new long[0]).build();
+
+    private final long[] version;
+    private final int size;
+    private final long[] ids;
+    private final long[] stationIds;
+    private final byte[] providers;
+    private final int[] friendlyNames;
+    private final int[] addresses;
+    private final int[] municipalities;
+    private final int[] statisticalRegions;
+    private final float[] latitudes;
+    private final float[] longitudes;
+    private final float[] maxPowerKw;
+    private final StringDictionary names;
+    private final StringDictionary areas;
+    private final long entityBytes;
+
+    private StationCatalog(Builder builder, int[] order) {
+        this.version = builder.version;
+        this.size = order.length;
+        this.ids = new long[size];
+        this.stationIds = new long[size];
+        this.providers = new byte[size];
+        this.friendlyNames = new int[size];
+        this.addresses = new int[size];
+        this.municipalities = new int[size];
+        this.statisticalRegions = new int[size];
+        this.latitudes = new float[size];
+        this.longitudes = new float[size];
+        this.maxPowerKw = new float[size];
+        for (int row = 0; row < size; row++) {
+            int source = order[row];
+            ids[row] = builder.ids[source];
+            stationIds[row] = builder.stationIds[source];
+            providers[row] = builder.providers[source];
+            friendlyNames[row] = builder.friendlyNames[source];
+            addresses[row] = builder.addresses[source];
+            municipalities[row] = builder.municipalities[source];
+            statisticalRegions[row] = builder.statisticalRegions[source];
+            latitudes[row] = builder.latitudes[source];
+            longitudes[row] = builder.longitudes[source];
+            maxPowerKw[row] = builder.maxPowerKw[source];
+        }
+        this.names = builder.names.build();
+        this.areas = builder.areas.build();
+        this.entityBytes = builder.entityBytes;
+    }
+
+    public static StationCatalog empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the {@code ChargingStationsRepository#findStationSetVersion()} key the catalog was loaded at.
+     */
+    public long[] getVersion() {
+        return version.clone();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the row of a station.
+     *
+     * @param provider
+     *         the provider
+     * @param stationId
+     *         the provider's station ID
+     *
+     * @return the row, or -1 if the catalog does not contain the station
+     */
+    public int find(Providers provider, long stationId) {
+        byte providerId = (byte) provider.getId().intValue();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = providers[middle] != providerId ? Byte.compare(providers[middle], providerId) : Long.compare(stationIds[middle], stationId);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the station IDs of a provider in ascending order.
+     *
+     * @param provider
+     *         the provider
+     *
+     * @return the station IDs, empty if the catalog has no station of the provider
+     */
+    public long[] getStationIds(Providers provider) {
+        int providerId = provider.getId();
+        return Arrays.copyOfRange(stationIds, firstRowOf(providerId), firstRowOf(providerId + 1));
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public long getStationId(int row) {
+        return stationIds[row];
+    }
+
+    public int getProviderId(int row) {
+        return providers[row];
+    }
+
+    public String getFriendlyName(int row) {
+        return names.get(friendlyNames[row]);
+    }
+
+    public String getAddress(int row) {
+        return names.get(addresses[row]);
+    }
+
+    public String getMunicipality(int row) {
+        return areas.get(municipalities[row]);
+    }
+
+    public String getStatisticalRegion(int row) {
+        return areas.get(statisticalRegions[row]);
+    }
+
+    public Optional<GeoPoint> getLocation(int row) {
+        return Float.isNaN(latitudes[row]) ? Optional.empty() : Optional.of(new GeoPoint(widen(latitudes[row]), widen(longitudes[row])));
+    }
+
+    /**
+     * Returns the maximum power of a station, {@code NaN} if it is unknown. Use this in loops over all rows to avoid boxing.
+     */
+    public float getMaxPowerKw(int row) {
+        return maxPowerKw[row];
+    }
+
+    /**
+     * Returns the maximum power of a station as it is shown to users, {@code null} if it is unknown.
+     */
+    public Double getMaxPowerKwOrNull(int row) {
+        return Float.isNaN(maxPowerKw[row]) ? null : widen(maxPowerKw[row]);
+    }
+
+    /**
+     * Widens a stored value to the shortest decimal that rounds to it, so {@code 7.4f} reads as {@code 7.4} rather than {@code 7.400000095367432}.
+     */
+    private static double widen(float value) {
+        return Double.parseDouble(Float.toString(value));
+    }
+
+    /**
+     * Returns the first row whose provider is not below the given one, {@link #size()} if there is none.
+     */
+    private int firstRowOf(int providerId) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (providers[middle] < providerId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Estimates the heap used by the catalog and by the same stations held as entities.
+     */
+    public CatalogFootprint footprint() {
+        Map<String, Long> columnBytes = new LinkedHashMap<>();
+        columnBytes.put("id", Footprint.array(size, Long.BYTES));
+        columnBytes.put("station_id", Footprint.array(size, Long.BYTES));
+        columnBytes.put("provider", Footprint.array(size, Byte.BYTES));
+        columnBytes.put("friendly_name", Footprint.array(size, Integer.BYTES));
+        columnBytes.put("address", Footprint.array(size, Integer.BYTES));
+        columnBytes.put("municipality", Footprint.array(size, Integer.BYTES));
+        columnBytes.put("statistical_region", Footprint.array(size, Integer.BYTES));
+        columnBytes.put("latitude", Footprint.array(size, Float.BYTES));
+        columnBytes.put("longitude", Footprint.array(size, Float.BYTES));
+        columnBytes.put("max_power_kw", Footprint.array(size, Float.BYTES));
+        Map<String, Long> dictionaryBytes = new LinkedHashMap<>();
+        dictionaryBytes.put("names", names.footprintBytes());
+        dictionaryBytes.put("areas", areas.footprintBytes());
+        Map<String, Integer> distinctStrings = new LinkedHashMap<>();
+        distinctStrings.put("names", names.size());
+        distinctStrings.put("areas", areas.size());
+        long catalogBytes = columnBytes.values().stream().mapToLong(Long::longValue).sum() + dictionaryBytes.values().stream().mapToLong(Long::longValue).sum();
+        return new CatalogFootprint(size, columnBytes, dictionaryBytes, distinctStrings, catalogBytes, entityBytes, size == 0 ? 0 : (double) catalogBytes / size, size == 0 ? 0 : (double) entityBytes / size);
+    }
+
+    /**
+     * Collects stations in any order and sorts them into a catalog. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final long[] version;
+        private final StringDictionary.Builder names = new StringDictionary.Builder();
+        private final StringDictionary.Builder areas = new StringDictionary.Builder();
+        private int size;
+        private long entityBytes;
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private long[] stationIds = new long[INITIAL_CAPACITY];
+        private byte[] providers = new byte[INITIAL_CAPACITY];
+        private int[] friendlyNames = new int[INITIAL_CAPACITY];
+        private int[] addresses = new int[INITIAL_CAPACITY];
+        private int[] municipalities = new int[INITIAL_CAPACITY];
+        private int[] statisticalRegions = new int[INITIAL_CAPACITY];
+        private float[] latitudes = new float[INITIAL_CAPACITY];
+        private float[] longitudes = new float[INITIAL_CAPACITY];
+        private float[] maxPowerKw = new float[INITIAL_CAPACITY];
+
+        /**
+         * @param version
+         *         the station set version the rows are read at
+         */
+        public Builder(long[] version) {
+            this.version = version.clone();
+        }
+
+        /**
+         * Adds a station as stored in {@code charging_stations}.
+         *
+         * @param instants
+         *         how many of {@code first_seen} and {@code last_seen} are set; only used for the entity estimate
+         */
+        public Builder add(long id, long stationId, int providerId, String friendlyName, String address, String location, Double maxPowerKw, String municipality, String statisticalRegion, int instants) {
+            if (providerId < 0 || providerId > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Provider ID " + providerId + " does not fit the catalog");
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            Optional<GeoPoint> point = GeoPoint.fromStationLocation(providerId, location);
+            ids[size] = id;
+            stationIds[size] = stationId;
+            providers[size] = (byte) providerId;
+            friendlyNames[size] = names.encode(friendlyName);
+            addresses[size] = names.encode(address);
+            municipalities[size] = areas.encode(municipality);
+            statisticalRegions[size] = areas.encode(statisticalRegion);
+            latitudes[size] = point.map(p -> (float) p.latitude()).orElse(Float.NaN);
+            longitudes[size] = point.map(p -> (float) p.longitude()).orElse(Float.NaN);
+            this.maxPowerKw[size] = maxPowerKw != null ? maxPowerKw.floatValue() : Float.NaN;
+            entityBytes += Footprint.entity(friendlyName, address, location, maxPowerKw != null, municipality, statisticalRegion, instants);
+            size++;
+            return this;
+        }
+
+        public StationCatalog build() {
+            int[] order = IntStream.range(0, size).boxed().sorted((a, b) -> providers[a] != providers[b] ? Byte.compare(providers[a], providers[b]) : Long.compare(stationIds[a], stationIds[b]))
+                    .mapToInt(Integer::intValue).toArray();
+            return new StationCatalog(this, order);
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            stationIds = Arrays.copyOf(stationIds, capacity);
+            providers = Arrays.copyOf(providers, capacity);
+            friendlyNames = Arrays.copyOf(friendlyNames, capacity);
+            addresses = Arrays.copyOf(addresses, capacity);
+            municipalities = Arrays.copyOf(municipalities, capacity);
+            statisticalRegions = Arrays.copyOf(statisticalRegions, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            maxPowerKw = Arrays.copyOf(maxPowerKw, capacity);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package si.deisinger.business.catalog;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.model.CatalogFootprint;
+import si.deisinger.business.repository.ChargingStationsRepository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link StationCatalog}, the in-memory copy of the stations that map tiles, corridor search and availability polling read from.
+ * <p>
+ * Readers call {@link #get()} and work on the catalog they got for as long as they need it; it never changes underneath them. Readers that derive their own structures (an index, rendered tiles) rebuild them when
+ * {@link #get()} returns a different instance. {@link #refresh()} builds a complete new catalog from a read-only cursor and publishes it with
+ * a single reference swap, so readers never take a lock and never see a half-built catalog. The previous catalog is garbage once its last reader is done. Refreshes are serialized among themselves and skipped while
+ * {@link ChargingStationsRepository#findStationSetVersion()} is unchanged. Besides after every provider run, the version is checked every {@code catalog.refresh-interval}, so imports and manual writes show up
+ * as well. Stations without a station ID cannot be looked up and are left out.
+ */
+@ApplicationScoped
+public class StationCatalogRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StationCatalogRegistry.class);
+    private static final int FETCH_SIZE = 1000;
+
+    private final ChargingStationsRepository chargingStationsRepository;
+    private final DataSource dataSource;
+    private final AtomicReference<StationCatalog> current = new AtomicReference<>();
+
+    public StationCatalogRegistry(ChargingStationsRepository chargingStationsRepository, DataSource dataSource) {
+        this.chargingStationsRepository = chargingStationsRepository;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Returns the current catalog, loading it on first use. Never blocks once the catalog is loaded.
+     */
+    public StationCatalog get() {
+        StationCatalog catalog = current.get();
+        if (catalog != null) {
+            return catalog;
+        }
+        refresh();
+        catalog = current.get();
+        return catalog != null ? catalog : StationCatalog.empty();
+    }
+
+    /**
+     * Rebuilds and publishes the catalog if the stored stations changed since it was loaded. Failures are logged and the previous catalog stays in place, so this never throws.
+     *
+     * @return {@code true} if a new catalog was published
+     */
+    public synchronized boolean refresh() {
+        try {
+            long[] version = chargingStationsRepository.findStationSetVersion();
+            StationCatalog previous = current.get();
+            if (previous != null && Arrays.equals(previous.getVersion(), version)) {
+                return false;
+            }
+            long started = System.nanoTime();
+            StationCatalog next = load(version);
+            current.set(next);
+            CatalogFootprint footprint = next.footprint();
+            LOG.info("Station catalog loaded: {} stations, ~{} KiB (~{} KiB as entities) in {} ms", next.size(), footprint.catalogBytes() / 1024, footprint.entityBytes() / 1024,
+                    (System.nanoTime() - started) / 1_000_000);
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to refresh the station catalog, keeping the previous one", e);
+            return false;
+        }
+    }
+
+    @Scheduled(every = "{catalog.refresh-interval:30s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refreshPeriodically() {
+        // Nothing to refresh until the catalog has been used.
+        if (current.get() != null) {
+            refresh();
+        }
+    }
+
+    /**
+     * Reads all stations into a new catalog without publishing it.
+     *
+     * @param version
+     *         the station set version to label the catalog with
+     */
+    StationCatalog load(long[] version) throws SQLException {
+        StationCatalog.Builder builder = new StationCatalog.Builder(version);
+        try (Connection connection = dataSource.getConnection()) {
+            // The PostgreSQL driver only uses a server-side cursor (and honours the fetch size) outside auto-commit.
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, station_id, provider, friendly_name, address, location, max_power_kw, municipality, statistical_region, (first_seen IS NOT NULL)::int + (last_seen IS NOT NULL)::int FROM charging_stations WHERE station_id IS NOT NULL AND provider IS NOT NULL",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(FETCH_SIZE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        builder.add(resultSet.getLong(1), resultSet.getLong(2), resultSet.getInt(3), resultSet.getString(4), resultSet.getString(5), resultSet.getString(6), resultSet.getObject(7, Double.class),
+                                resultSet.getString(8), resultSet.getString(9), resultSet.getInt(10));
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+        return builder.build();
+    }
+}
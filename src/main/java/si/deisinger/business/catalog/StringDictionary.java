@@ -0,0 +1,67 @@
+package si.deisinger.business.catalog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable dictionary of distinct strings; columns store the code of a value instead of a reference to their own copy.
+ */
+final class StringDictionary {
+
+    static final int NULL_CODE = -1;
+
+    private final String[] values;
+
+    private StringDictionary(String[] values) {
+        this.values = values;
+    }
+
+    String get(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    /**
+     * Estimates the retained heap size of the distinct strings and the value array.
+     */
+    long footprintBytes() {
+        long bytes = Footprint.array(values.length, Footprint.REFERENCE_BYTES);
+        for (String value : values) {
+            bytes += Footprint.string(value);
+        }
+        return bytes;
+    }
+
+    static final class Builder {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        /**
+         * Returns the code of a value, adding it if it is new.
+         *
+         * @param value
+         *         the value, may be {@code null}
+         *
+         * @return the code, {@link #NULL_CODE} for {@code null}
+         */
+        int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        StringDictionary build() {
+            return new StringDictionary(values.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package si.deisinger.business.command;
+
+import io.quarkus.runtime.Quarkus;
+import io.quarkus.runtime.QuarkusApplication;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.ProviderProcessor;
+import si.deisinger.business.catalog.CatalogBenchmark;
+import si.deisinger.business.exceptions.UnsupportedProviderException;
+import si.deisinger.business.export.StationExporter;
+import si.deisinger.business.geo.RegionAssigner;
+import si.deisinger.business.importer.StationImporter;
+import si.deisinger.business.registry.LongHashSet;
+import si.deisinger.business.scheduler.Scheduler;
+import si.deisinger.business.webhook.WebhookDispatcher;
+import si.deisinger.providers.enums.Providers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Dispatches the command line of the application.
+ * <p>
+ * Supported commands:
+ * <ul>
+ *     <li>no arguments - long-running service driven by {@link Scheduler}</li>
+ *     <li>{@code run-once} - runs a single full provider cycle and exits, intended for cron or Kubernetes Jobs</li>
+ *     <li>{@code replay <provider> [<instant>]} - re-runs fetch, parse and diff for one provider against archived snapshots, without network access</li>
+ *     <li>{@code import <provider> <csv-file> [<delimiter>]} - bulk-loads stations from an external dataset, see {@link StationImporter}</li>
+ *     <li>{@code backfill-regions [--all]} - assigns stored stations to their municipality and statistical region, see {@link RegionAssigner}</li>
+ *     <li>{@code export-stations} - writes a columnar snapshot of the station catalog, see {@link StationExporter}</li>
+ *     <li>{@code catalog-benchmark [<lookups>]} - compares the in-memory station catalog with entities, see {@link CatalogBenchmark}</li>
+ * </ul>
+ */
+public class CommandRunner implements QuarkusApplication {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_PROVIDER_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final Logger LOG = LoggerFactory.getLogger(CommandRunner.class);
+
+    private final Scheduler scheduler;
+    private final ProviderProcessor providerProcessor;
+    private final StationImporter stationImporter;
+    private final WebhookDispatcher webhookDispatcher;
+    private final RegionAssigner regionAssigner;
+    private final StationExporter stationExporter;
+    private final CatalogBenchmark catalogBenchmark;
+    private final Duration startupBudget;
+
+    public CommandRunner(Scheduler scheduler, ProviderProcessor providerProcessor, StationImporter stationImporter, WebhookDispatcher webhookDispatcher,
+            RegionAssigner regionAssigner, StationExporter stationExporter, CatalogBenchmark catalogBenchmark, @ConfigProperty(name = "command.startup-budget", defaultValue = "150ms") Duration startupBudget) {
+        this.scheduler = scheduler;
+        this.providerProcessor = providerProcessor;
+        this.stationImporter = stationImporter;
+        this.webhookDispatcher = webhookDispatcher;
+        this.regionAssigner = regionAssigner;
+        this.stationExporter = stationExporter;
+        this.catalogBenchmark = catalogBenchmark;
+        this.startupBudget = startupBudget;
+    }
+
+    @Override
+    public int run(String... args) {
+        if (args.length == 0) {
+            Quarkus.waitForExit();
+            return EXIT_OK;
+        }
+        return switch (args[0]) {
+            case "run-once" -> runOnce();
+            case "replay" -> replay(Arrays.copyOfRange(args, 1, args.length));
+            case "import" -> importStations(Arrays.copyOfRange(args, 1, args.length));
+            case "backfill-regions" -> backfillRegions(Arrays.copyOfRange(args, 1, args.length));
+            case "export-stations" -> exportStations(Arrays.copyOfRange(args, 1, args.length));
+            case "catalog-benchmark" -> benchmarkCatalog(Arrays.copyOfRange(args, 1, args.length));
+            default -> {
+                LOG.error("Unknown command: {}. Supported commands: run-once, replay, import, backfill-regions, export-stations, catalog-benchmark", args[0]);
+                yield EXIT_USAGE;
+            }
+        };
+    }
+
+    /**
+     * Runs one full provider cycle.
+     *
+     * @return {@link #EXIT_OK} if every provider was checked, {@link #EXIT_PROVIDER_FAILURE} if at least one failed
+     */
+    private int runOnce() {
+        logStartupTime();
+        int failedProviders = scheduler.checkAllProviders();
+        dispatchWebhooks();
+        // Main switches the periodic jobs off in this mode, so export here if the cycle inserted stations.
+        stationExporter.exportIfRequested();
+        if (failedProviders > 0) {
+            LOG.error("Run-once cycle finished with {} failed provider(s)", failedProviders);
+            return EXIT_PROVIDER_FAILURE;
+        }
+        LOG.info("Run-once cycle finished successfully");
+        return EXIT_OK;
+    }
+
+    /**
+     * Makes one delivery attempt for the webhooks queued by the cycle before the process exits, respecting each subscriber's concurrency limit, for at most a minute. Deliveries that fail or are left over stay
+     * queued for the next run.
+     */
+    private void dispatchWebhooks() {
+        try {
+            webhookDispatcher.dispatchDueDeliveries(Duration.ofMinutes(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOG.warn("Webhook dispatch did not complete: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replays one provider from the snapshot archive.
+     *
+     * @param args
+     *         the provider name and an optional ISO-8601 instant (defaults to now)
+     *
+     * @return {@link #EXIT_OK} if the replay succeeded, {@link #EXIT_USAGE} for invalid arguments, {@link #EXIT_PROVIDER_FAILURE} if the replay failed
+     */
+    private int replay(String... args) {
+        if (args.length < 1 || args.length > 2) {
+            LOG.error("Usage: replay <provider> [<instant, e.g. 2025-03-01T12:00:00Z>]");
+            return EXIT_USAGE;
+        }
+        Providers provider = Providers.fromName(args[0]).orElse(null);
+        if (provider == null) {
+            LOG.error("Unknown provider: {}", args[0]);
+            return EXIT_USAGE;
+        }
+        Instant at;
+        try {
+            at = args.length == 2 ? Instant.parse(args[1]) : Instant.now();
+        } catch (DateTimeParseException e) {
+            LOG.error("Invalid instant: {}", args[1]);
+            return EXIT_USAGE;
+        }
+        try {
+            Class<?> locationClass = Scheduler.getLocationClass(provider).orElseThrow(() -> new UnsupportedProviderException("Provider " + provider + " is disabled"));
+            LongHashSet newStations = providerProcessor.replayProviderStations(provider, locationClass, at);
+            LOG.info("Replay of provider {} at {} finished, {} stations not in DB", provider, at, newStations.size());
+            return EXIT_OK;
+        } catch (Exception e) {
+            LOG.error("Replay of provider {} failed: {}", provider, e.getMessage(), e);
+            return EXIT_PROVIDER_FAILURE;
+        }
+    }
+
+    /**
+     * Imports stations of one provider from a CSV file.
+     *
+     * @param args
+     *         the provider name, the file path and an optional single-character delimiter (defaults to {@code ,})
+     *
+     * @return {@link #EXIT_OK} if the import succeeded, {@link #EXIT_USAGE} for invalid arguments, {@link #EXIT_PROVIDER_FAILURE} if the import failed
+     */
+    private int importStations(String... args) {
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && args[2].length() != 1)) {
+            LOG.error("Usage: import <provider> <csv-file> [<delimiter>]");
+            return EXIT_USAGE;
+        }
+        Providers provider = Providers.fromName(args[0]).orElse(null);
+        if (provider == null) {
+            LOG.error("Unknown provider: {}", args[0]);
+            return EXIT_USAGE;
+        }
+        Path file = Path.of(args[1]);
+        if (!Files.isReadable(file)) {
+            LOG.error("Cannot read file: {}", file);
+            return EXIT_USAGE;
+        }
+        try {
+            stationImporter.importCsv(provider, file, args.length == 3 ? args[2].charAt(0) : ',');
+            return EXIT_OK;
+        } catch (Exception e) {
+            LOG.error("Import for provider {} failed: {}", provider, e.getMessage(), e);
+            return EXIT_PROVIDER_FAILURE;
+        }
+    }
+
+    /**
+     * Assigns stored stations to their municipality and statistical region.
+     *
+     * @param args
+     *         optionally {@code --all} to reclassify stations that already have a municipality
+     *
+     * @return {@link #EXIT_OK} if the backfill succeeded, {@link #EXIT_USAGE} for invalid arguments, {@link #EXIT_PROVIDER_FAILURE} if it failed
+     */
+    private int backfillRegions(String... args) {
+        if (args.length > 1 || (args.length == 1 && !args[0].equals("--all"))) {
+            LOG.error("Usage: backfill-regions [--all]");
+            return EXIT_USAGE;
+        }
+        try {
+            regionAssigner.backfill(args.length == 1);
+            return EXIT_OK;
+        } catch (Exception e) {
+            LOG.error("Municipality backfill failed: {}", e.getMessage(), e);
+            return EXIT_PROVIDER_FAILURE;
+        }
+    }
+
+    /**
+     * Writes a columnar snapshot of the station catalog.
+     *
+     * @param args
+     *         no arguments are accepted
+     *
+     * @return {@link #EXIT_OK} if the export succeeded, {@link #EXIT_USAGE} for invalid arguments, {@link #EXIT_PROVIDER_FAILURE} if it failed
+     */
+    private int exportStations(String... args) {
+        if (args.length > 0) {
+            LOG.error("Usage: export-stations");
+            return EXIT_USAGE;
+        }
+        try {
+            stationExporter.export();
+            return EXIT_OK;
+        } catch (Exception e) {
+            LOG.error("Station export failed: {}", e.getMessage(), e);
+            return EXIT_PROVIDER_FAILURE;
+        }
+    }
+
+    /**
+     * Compares the in-memory station catalog with entities and logs heap use and timings.
+     *
+     * @param args
+     *         optionally the number of random lookups per round, 100000 by default
+     *
+     * @return {@link #EXIT_OK} if the benchmark ran, {@link #EXIT_USAGE} for invalid arguments, {@link #EXIT_PROVIDER_FAILURE} if it failed
+     */
+    private int benchmarkCatalog(String... args) {
+        int lookups;
+        try {
+            lookups = args.length == 0 ? 100_000 : Integer.parseInt(args[0]);
+        } catch (NumberFormatException e) {
+            lookups = -1;
+        }
+        if (args.length > 1 || lookups <= 0) {
+            LOG.error("Usage: catalog-benchmark [<lookups>]");
+            return EXIT_USAGE;
+        }
+        try {
+            catalogBenchmark.run(lookups);
+            return EXIT_OK;
+        } catch (Exception e) {
+            LOG.error("Catalog benchmark failed: {}", e.getMessage(), e);
+            return EXIT_PROVIDER_FAILURE;
+        }
+    }
+
+    /**
+     * Logs the time from process start until the command starts executing, which includes datasource setup and Flyway validation. Exceeding the configured budget is logged as a warning.
+     */
+    private void logStartupTime() {
+        ProcessHandle.current().info().startInstant().ifPresent(start -> {
+            Duration startup = Duration.between(start, Instant.now());
+            if (startup.compareTo(startupBudget) > 0) {
+                LOG.warn("Startup took {} ms, exceeding the budget of {} ms", startup.toMillis(), startupBudget.toMillis());
+            } else {
+                LOG.info("Startup took {} ms (budget {} ms)", startup.toMillis(), startupBudget.toMillis());
+            }
+        });
+    }
+}
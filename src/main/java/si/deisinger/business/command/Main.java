@@ -0,0 +1,30 @@
+package si.deisinger.business.command;
+
+import io.quarkus.runtime.Quarkus;
+import io.quarkus.runtime.annotations.QuarkusMain;
+
+import java.util.List;
+
+/**
+ * Application entry point.
+ * <p>
+ * Without arguments the application keeps running and checks providers on the configured schedule. With a command argument (for example {@code run-once}) the periodic jobs are switched off and the application exits once the
+ * command completes, see {@link CommandRunner}.
+ */
+@QuarkusMain
+public class Main {
+
+    /**
+     * Properties holding the interval or cron expression of every periodic job; {@code off} disables a job.
+     */
+    private static final List<String> PERIODIC_JOBS = List.of("scheduler.tick", "archive.retention-interval", "export.poll-interval", "webhook.poll-interval", "tiles.refresh-interval", "catalog.refresh-interval",
+            "availability.poll-interval", "availability.rollup-cron");
+
+    public static void main(String... args) {
+        if (args.length > 0) {
+            // A one-shot command must not race the periodic jobs, e.g. a tick claiming providers that run-once then skips.
+            PERIODIC_JOBS.forEach(job -> System.setProperty(job, "off"));
+        }
+        Quarkus.run(CommandRunner.class, args);
+    }
+}
@@ -0,0 +1,144 @@
+package si.deisinger.business.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit for the requests to one host.
+ * <p>
+ * Every successful request whose latency stays close to the best latency seen so far raises the limit by {@code 1 / limit}, i.e. by about one per round of requests. A rejected request ({@code 429}, {@code 5xx}) or an I/O
+ * error halves the limit, a request much slower than the baseline lowers it by 10%. Decreases are applied at most once per baseline latency, so a burst of failures from the same round only counts once.
+ * <p>
+ * The latency baseline is kept per request kind (see {@code ApiController}), since one host serves both small and large responses: a full location list measured against the baseline of a small availability request
+ * would always look like a latency spike.
+ * <p>
+ * Uses a {@link ReentrantLock} rather than {@code synchronized} so waiting virtual threads do not pin their carrier.
+ */
+final class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_ON_DROP = 0.5;
+    private static final double BACKOFF_ON_LATENCY = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    /** How fast the latency baseline follows slower responses, so it can recover after a lucky fast sample. */
+    private static final double BASELINE_DRIFT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private final Map<String, Long> baselineNanos = new HashMap<>();
+    private long lastDecreaseNanos = System.nanoTime();
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Waits until a request may be sent.
+     *
+     * @throws InterruptedException
+     *         if interrupted while waiting
+     */
+    void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                permitReleased.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the permit of a request that completed normally.
+     *
+     * @param kind
+     *         the kind of request, whose latency baseline the latency is compared with
+     * @param latencyNanos
+     *         the request latency
+     */
+    void onSuccess(String kind, long latencyNanos) {
+        lock.lock();
+        try {
+            long baseline = baselineNanos.getOrDefault(kind, Long.MAX_VALUE);
+            if (latencyNanos < baseline) {
+                baseline = latencyNanos;
+            } else {
+                baseline += (long) ((latencyNanos - baseline) * BASELINE_DRIFT);
+            }
+            baselineNanos.put(kind, baseline);
+            if (latencyNanos > baseline * LATENCY_TOLERANCE) {
+                decrease(kind, BACKOFF_ON_LATENCY);
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the permit of a request the host rejected or that failed with an I/O error.
+     *
+     * @param kind
+     *         the kind of request
+     */
+    void onDropped(String kind) {
+        lock.lock();
+        try {
+            decrease(kind, BACKOFF_ON_DROP);
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the permit of a request whose outcome says nothing about the host's capacity (e.g. interrupted).
+     */
+    void onIgnored() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current limit, as published by the concurrency limit gauge.
+     */
+    double getLimit() {
+        lock.lock();
+        try {
+            return Math.floor(limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(String kind, double factor) {
+        long now = System.nanoTime();
+        long window = baselineNanos.getOrDefault(kind, 0L);
+        if (now - lastDecreaseNanos < window) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, limit * factor);
+    }
+
+    private void release() {
+        inFlight--;
+        permitReleased.signalAll();
+    }
+}
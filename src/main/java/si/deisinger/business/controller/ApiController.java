@@ -1,26 +1,95 @@
 package si.deisinger.business.controller;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import si.deisinger.business.archive.SnapshotArchive;
 import si.deisinger.providers.enums.Providers;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Controller for interacting with external APIs. Provides methods for fetching location data and detailed data from APIs, including AMPECO-specific endpoints.
+ * <p>
+ * Requests advertise {@code gzip} and {@code deflate} content coding; compressed responses are decoded while streaming from the socket, so the compressed body is never buffered. The decoded body is
+ * read into a single byte array that is archived and returned as is; callers parse the JSON straight from those bytes, so a response is never also held as a string. The number of bytes received on the wire
+ * and the number of decoded bytes are published per provider as the {@value #TRANSFER_BYTES_METRIC} metric, and are added to the {@link TransferCounter} of the request if the caller passes one.
+ * <p>
+ * Concurrent requests to the same host are bounded by an {@link AdaptiveConcurrencyLimiter} that grows while the host answers quickly and backs off on rejections, errors and latency spikes. Latency is judged per request kind
+ * (method, path and the kind of data fetched), so large location lists and small availability requests to the same host do not share a baseline. The current limit per host is published as the
+ * {@value #CONCURRENCY_LIMIT_METRIC} metric.
+ * <p>
+ * Every successful response is handed to the {@link SnapshotArchive} under a request key built by {@link #locationsRequestKey(Providers, String)} or {@link #detailedLocationsRequestKey(Providers)}.
  */
 @Singleton
 public class ApiController {
 
+    static final String TRANSFER_BYTES_METRIC = "provider.transfer.bytes";
+    static final String CONCURRENCY_LIMIT_METRIC = "provider.request.concurrency.limit";
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+
     private static final Logger LOG = LoggerFactory.getLogger(ApiController.class);
     private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
 
+    private final MeterRegistry meterRegistry;
+    private final SnapshotArchive snapshotArchive;
+    private final int initialConcurrency;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final Map<String, AdaptiveConcurrencyLimiter> hostLimiters = new ConcurrentHashMap<>();
+
+    public ApiController(MeterRegistry meterRegistry, SnapshotArchive snapshotArchive, @ConfigProperty(name = "api.concurrency.initial", defaultValue = "4") int initialConcurrency,
+            @ConfigProperty(name = "api.concurrency.min", defaultValue = "1") int minConcurrency, @ConfigProperty(name = "api.concurrency.max", defaultValue = "32") int maxConcurrency) {
+        this.meterRegistry = meterRegistry;
+        this.snapshotArchive = snapshotArchive;
+        this.initialConcurrency = initialConcurrency;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Returns the archive key of a location data request.
+     *
+     * @param provider
+     *         the API provider
+     * @param parameters
+     *         additional URL parameters for the request
+     *
+     * @return the request key
+     */
+    public static String locationsRequestKey(Providers provider, String parameters) {
+        return "GET " + provider.getUrl() + parameters;
+    }
+
+    /**
+     * Returns the archive key of an AMPECO detailed location data request.
+     *
+     * @param provider
+     *         the API provider
+     *
+     * @return the request key
+     */
+    public static String detailedLocationsRequestKey(Providers provider) {
+        return "POST " + provider.getAmpecoUrl().orElse("");
+    }
+
     /**
      * Fetches location data from the specified API provider.
      *
@@ -28,17 +97,19 @@ public class ApiController {
      *         the API provider from which to fetch location data
      * @param parameters
      *         additional URL parameters for the request
+     * @param transfers
+     *         the counter to add the transferred bytes to
      *
-     * @return the location data as a string
+     * @return the UTF-8 encoded location data
      *
      * @throws IllegalStateException
      *         if an error occurs while sending the API request
      */
-    public String getLocationsFromApi(Providers provider, String parameters) {
+    public byte[] getLocationsFromApi(Providers provider, String parameters, TransferCounter transfers) {
         String url = provider.getUrl() + parameters;
         LOG.info("Fetching location data from provider: {} using URL: {}", provider.getProviderName(), url);
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
-        return sendRequest(request, provider.getProviderName(), "location data");
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).header("Accept-Encoding", ACCEPT_ENCODING).GET().build();
+        return sendRequest(request, provider, locationsRequestKey(provider, parameters), "location data", transfers);
     }
 
     /**
@@ -48,45 +119,123 @@ public class ApiController {
      *         the JSON body of the POST request
      * @param provider
      *         the API provider containing AMPECO-specific endpoint details
+     * @param transfers
+     *         the counter to add the transferred bytes to
      *
-     * @return the detailed location data as a string
+     * @return the UTF-8 encoded detailed location data
      *
      * @throws IllegalStateException
      *         if an error occurs while sending the API request
      */
-    public String getAmpecoDetailedLocationsApi(String postRequestBody, Providers provider) {
+    public byte[] getAmpecoDetailedLocationsApi(String postRequestBody, Providers provider, TransferCounter transfers) {
         String url = provider.getAmpecoUrl().orElseThrow(() -> new IllegalArgumentException("No Ampeco URL available for provider: " + provider.getProviderName()));
         LOG.info("Fetching detailed location data from AMPECO API for provider: {} using URL: {}", provider.getProviderName(), url);
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(postRequestBody, StandardCharsets.UTF_8)).build();
-        return sendRequest(request, provider.getProviderName(), "detailed location data from AMPECO API");
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).header("Content-Type", "application/json").header("Accept-Encoding", ACCEPT_ENCODING).POST(HttpRequest.BodyPublishers.ofString(postRequestBody, StandardCharsets.UTF_8)).build();
+        return sendRequest(request, provider, detailedLocationsRequestKey(provider), "detailed location data from AMPECO API", transfers);
     }
 
     /**
-     * Sends the provided HTTP request and returns the response body if the request is successful. It also verifies that the HTTP status code indicates success (i.e. 2xx).
+     * Fetches the provider's location list for availability polling. Unlike {@link #getLocationsFromApi(Providers, String, TransferCounter)}, the response is not archived, as it is fetched every few minutes.
+     *
+     * @param provider
+     *         the API provider from which to fetch location data
+     *
+     * @return the UTF-8 encoded location data
+     *
+     * @throws IllegalStateException
+     *         if an error occurs while sending the API request
+     */
+    public byte[] getLocationAvailabilityFromApi(Providers provider) {
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(provider.getUrl())).header("Accept-Encoding", ACCEPT_ENCODING).GET().build();
+        return sendRequest(request, provider, null, "location availability", null);
+    }
+
+    /**
+     * Fetches detailed location data, including EVSE status, from the AMPECO API for availability polling. The response is not archived.
+     *
+     * @param postRequestBody
+     *         the JSON body of the POST request
+     * @param provider
+     *         the API provider containing AMPECO-specific endpoint details
+     *
+     * @return the UTF-8 encoded detailed location data
+     *
+     * @throws IllegalStateException
+     *         if an error occurs while sending the API request
+     */
+    public byte[] getAmpecoAvailabilityApi(String postRequestBody, Providers provider) {
+        String url = provider.getAmpecoUrl().orElseThrow(() -> new IllegalArgumentException("No Ampeco URL available for provider: " + provider.getProviderName()));
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).header("Content-Type", "application/json").header("Accept-Encoding", ACCEPT_ENCODING).POST(HttpRequest.BodyPublishers.ofString(postRequestBody, StandardCharsets.UTF_8)).build();
+        return sendRequest(request, provider, null, "EVSE availability from AMPECO API", null);
+    }
+
+    /**
+     * Sends the provided HTTP request and returns the response body if the request is successful. It also verifies that the HTTP status code indicates success (i.e. 2xx) and archives the successful response. Waits for
+     * a permit of the host's concurrency limiter first.
      *
      * @param request
      *         the HTTP request to send
-     * @param providerName
-     *         the provider's name (used for logging)
+     * @param provider
+     *         the provider the request is sent to
+     * @param requestKey
+     *         the key under which the response is archived, or {@code null} to not archive it
      * @param dataDescription
      *         a brief description of the data being fetched (used for logging)
+     * @param transfers
+     *         the counter to add the transferred bytes to, or {@code null} to only publish them as metrics
      *
-     * @return the response body as a string
+     * @return the decoded response body, UTF-8 encoded
      *
      * @throws IllegalStateException
      *         if the request is interrupted, fails due to an I/O error, or returns a non-success status code
      */
-    private String sendRequest(HttpRequest request, String providerName, String dataDescription) {
+    private byte[] sendRequest(HttpRequest request, Providers provider, String requestKey, String dataDescription, TransferCounter transfers) {
+        String providerName = provider.getProviderName();
+        AdaptiveConcurrencyLimiter limiter = getHostLimiter(request.uri().getHost());
+        String requestKind = request.method() + " " + request.uri().getPath() + " " + dataDescription;
         try {
-            HttpResponse<String> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+            limiter.acquire();
+            long started = System.nanoTime();
+            HttpResponse<InputStream> response;
+            byte[] decodedBody;
+            long wireBytes;
+            String contentEncoding;
+            try {
+                response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                contentEncoding = response.headers().firstValue("Content-Encoding").orElse("identity");
+                try (CountingInputStream wire = new CountingInputStream(response.body()); InputStream decoded = decode(wire, contentEncoding)) {
+                    decodedBody = decoded.readAllBytes();
+                    wireBytes = wire.getCount();
+                }
+            } catch (IOException e) {
+                limiter.onDropped(requestKind);
+                throw e;
+            } catch (InterruptedException | RuntimeException e) {
+                limiter.onIgnored();
+                throw e;
+            }
+            if (response.statusCode() == 429 || response.statusCode() >= 500) {
+                limiter.onDropped(requestKind);
+            } else {
+                limiter.onSuccess(requestKind, System.nanoTime() - started);
+            }
             if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                throw new IllegalStateException("Non-success HTTP status " + response.statusCode() + " when fetching " + dataDescription + " data for provider: " + providerName + ". Response body: " + response.body());
+                throw new IllegalStateException(
+                        "Non-success HTTP status " + response.statusCode() + " when fetching " + dataDescription + " data for provider: " + providerName + ". Response body: " + new String(decodedBody, StandardCharsets.UTF_8));
             }
-            LOG.info("Successfully fetched {} for provider: {}", dataDescription, providerName);
+            long decodedBytes = decodedBody.length;
+            recordTransfer(providerName, wireBytes, decodedBytes);
+            if (transfers != null) {
+                transfers.add(wireBytes, decodedBytes);
+            }
+            LOG.info("Successfully fetched {} for provider: {} ({} bytes on the wire, {} bytes decoded, encoding: {})", dataDescription, providerName, wireBytes, decodedBytes, contentEncoding);
             if (LOG.isDebugEnabled()) {
-                LOG.debug("Response body: {}", response.body());
+                LOG.debug("Response body: {}", new String(decodedBody, StandardCharsets.UTF_8));
+            }
+            if (requestKey != null) {
+                snapshotArchive.store(provider, requestKey, decodedBody);
             }
-            return response.body();
+            return decodedBody;
         } catch (InterruptedException e) {
             // Preserve the interrupt status and handle the interruption appropriately.
             Thread.currentThread().interrupt();
@@ -95,4 +244,120 @@ public class ApiController {
             throw new IllegalStateException("I/O error while fetching " + dataDescription + " for provider: " + providerName, e);
         }
     }
+
+    /**
+     * Returns the concurrency limiter of a host, registering its limit gauge on first use.
+     *
+     * @param host
+     *         the request host
+     *
+     * @return the host's limiter
+     */
+    private AdaptiveConcurrencyLimiter getHostLimiter(String host) {
+        return hostLimiters.computeIfAbsent(host, h -> {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialConcurrency, minConcurrency, maxConcurrency);
+            Gauge.builder(CONCURRENCY_LIMIT_METRIC, limiter, AdaptiveConcurrencyLimiter::getLimit).tag("host", h).register(meterRegistry);
+            return limiter;
+        });
+    }
+
+    /**
+     * Wraps the raw response stream in a decoder matching the {@code Content-Encoding} header.
+     *
+     * @param wire
+     *         the raw response stream
+     * @param contentEncoding
+     *         the value of the {@code Content-Encoding} header
+     *
+     * @return a stream producing the decoded body
+     *
+     * @throws IOException
+     *         if the encoding is not supported or the stream header is invalid
+     */
+    private static InputStream decode(InputStream wire, String contentEncoding) throws IOException {
+        return switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(wire, 8192);
+            case "deflate" -> new InflaterInputStream(wire);
+            case "identity", "" -> wire;
+            default -> throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        };
+    }
+
+    /**
+     * Records the number of bytes received on the wire and after decoding for the given provider.
+     *
+     * @param providerName
+     *         the provider's name
+     * @param wireBytes
+     *         the number of (possibly compressed) bytes received
+     * @param decodedBytes
+     *         the number of bytes after decoding
+     */
+    private void recordTransfer(String providerName, long wireBytes, long decodedBytes) {
+        Counter.builder(TRANSFER_BYTES_METRIC).tag("provider", providerName).tag("stage", "wire").register(meterRegistry).increment(wireBytes);
+        Counter.builder(TRANSFER_BYTES_METRIC).tag("provider", providerName).tag("stage", "decoded").register(meterRegistry).increment(decodedBytes);
+    }
+
+    /**
+     * Bytes received on the wire and after decoding by the requests it is passed to. Thread-safe, so requests running in parallel can share one counter.
+     */
+    public static final class TransferCounter {
+
+        private final LongAdder wireBytes = new LongAdder();
+        private final LongAdder decodedBytes = new LongAdder();
+
+        void add(long wire, long decoded) {
+            wireBytes.add(wire);
+            decodedBytes.add(decoded);
+        }
+
+        public long getWireBytes() {
+            return wireBytes.sum();
+        }
+
+        public long getDecodedBytes() {
+            return decodedBytes.sum();
+        }
+    }
+
+    /**
+     * Input stream that counts the bytes read through it.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
 }
@@ -8,6 +8,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import si.deisinger.providers.enums.Providers;
 
+import java.time.Duration;
+
 @ApplicationScoped
 public class EmailController {
 
@@ -28,17 +30,67 @@ public class EmailController {
      *         The provider.
      * @param newStations
      *         JSON string containing the new station details.
+     *
+     * @throws IllegalStateException
+     *         if the email could not be handed to the mail server, so the caller can keep the run resumable
      */
     public void sendMail(Providers provider, String newStations) {
         String subject = String.format("New charging station for: %s", provider.getProviderName());
         String body = String.format("Hello there sailor,%n%nThere are new charging stations from: %s%n%n%s", provider.getProviderName(), newStations);
+        send(recipientEmail, provider, subject, body);
+    }
+
+    /**
+     * Sends an email to an area subscriber with the new charging stations in their area.
+     *
+     * @param recipient
+     *         The subscriber's email address.
+     * @param provider
+     *         The provider.
+     * @param newStations
+     *         JSON string containing the matched station details.
+     */
+    public void sendAreaAlert(String recipient, Providers provider, String newStations) {
+        String subject = String.format("New charging station in your area: %s", provider.getProviderName());
+        String body = String.format("Hello there sailor,%n%nThere are new charging stations from %s in the area you subscribed to:%n%n%s", provider.getProviderName(), newStations);
+        sendQuietly(recipient, provider, subject, body);
+    }
+
+    /**
+     * Sends an alert that a provider check took longer than the configured threshold.
+     *
+     * @param provider
+     *         The provider.
+     * @param duration
+     *         How long the check took.
+     * @param threshold
+     *         The slow-run threshold.
+     */
+    public void sendSlowRunAlert(Providers provider, Duration duration, Duration threshold) {
+        String subject = String.format("Slow provider run: %s", provider.getProviderName());
+        String body = String.format("Hello there sailor,%n%nChecking %s took %d s, above the slow-run threshold of %d s.%nSee GET /runs?provider=%s for the stage timings.", provider.getProviderName(), duration.toSeconds(),
+                threshold.toSeconds(), provider.getProviderName());
+        sendQuietly(recipientEmail, provider, subject, body);
+    }
 
-        LOG.info("Sending email to {} about new charging stations for provider {}", recipientEmail, provider.getProviderName());
+    private void send(String recipient, Providers provider, String subject, String body) {
+        LOG.info("Sending email \"{}\" to {}", subject, recipient);
         try {
-            mailer.send(Mail.withText(recipientEmail, subject, body));
-            LOG.info("Email successfully sent to {} for provider {}", recipientEmail, provider.getProviderName());
+            mailer.send(Mail.withText(recipient, subject, body));
         } catch (Exception e) {
-            LOG.error("Failed to send email to {} for provider {}: {}", recipientEmail, provider.getProviderName(), e.getMessage(), e);
+            throw new IllegalStateException("Failed to send email to " + recipient + " for provider " + provider.getProviderName(), e);
+        }
+        LOG.info("Email successfully sent to {} for provider {}", recipient, provider.getProviderName());
+    }
+
+    /**
+     * Sends an email whose loss is acceptable; failures are only logged.
+     */
+    private void sendQuietly(String recipient, Providers provider, String subject, String body) {
+        try {
+            send(recipient, provider, subject, body);
+        } catch (IllegalStateException e) {
+            LOG.error("{}: {}", e.getMessage(), e.getCause().getMessage(), e.getCause());
         }
     }
 }
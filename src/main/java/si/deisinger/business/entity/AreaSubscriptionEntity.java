@@ -0,0 +1,93 @@
+package si.deisinger.business.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "area_subscription")
+public class AreaSubscriptionEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "center_lat")
+    private Double centerLat;
+
+    @Column(name = "center_lon")
+    private Double centerLon;
+
+    @Column(name = "radius_m")
+    private Double radiusM;
+
+    @Column(name = "polygon")
+    private String polygon;
+
+    @Column(name = "provider")
+    private Integer provider;
+
+    @Column(name = "min_power_kw")
+    private Double minPowerKw;
+
+    @Column(name = "active")
+    private Boolean active;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    public AreaSubscriptionEntity() {
+    }
+
+    public AreaSubscriptionEntity(String email, Double centerLat, Double centerLon, Double radiusM, String polygon, Integer provider, Double minPowerKw) {
+        this.email = email;
+        this.centerLat = centerLat;
+        this.centerLon = centerLon;
+        this.radiusM = radiusM;
+        this.polygon = polygon;
+        this.provider = provider;
+        this.minPowerKw = minPowerKw;
+        this.active = true;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Double getCenterLat() {
+        return centerLat;
+    }
+
+    public Double getCenterLon() {
+        return centerLon;
+    }
+
+    public Double getRadiusM() {
+        return radiusM;
+    }
+
+    public String getPolygon() {
+        return polygon;
+    }
+
+    public Integer getProvider() {
+        return provider;
+    }
+
+    public Double getMinPowerKw() {
+        return minPowerKw;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+}
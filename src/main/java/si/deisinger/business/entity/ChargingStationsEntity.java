@@ -2,6 +2,8 @@ package si.deisinger.business.entity;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity
 @Table(name = "charging_stations")
 public class ChargingStationsEntity {
@@ -26,6 +28,21 @@ public class ChargingStationsEntity {
     @Column(name = "location")
     private String location;
 
+    @Column(name = "max_power_kw")
+    private Double maxPowerKw;
+
+    @Column(name = "municipality")
+    private String municipality;
+
+    @Column(name = "statistical_region")
+    private String statisticalRegion;
+
+    @Column(name = "first_seen")
+    private Instant firstSeen;
+
+    @Column(name = "last_seen")
+    private Instant lastSeen;
+
     public ChargingStationsEntity() {
     }
 
@@ -37,10 +54,27 @@ public class ChargingStationsEntity {
         this.location = location;
     }
 
+    public ChargingStationsEntity(Long stationId, Integer provider, String friendlyName, String address, String location, Double maxPowerKw) {
+        this(stationId, provider, friendlyName, address, location);
+        this.maxPowerKw = maxPowerKw;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
     public Long getStationId() {
         return stationId;
     }
 
+    public Integer getProvider() {
+        return provider;
+    }
+
+    public String getFriendlyName() {
+        return friendlyName;
+    }
+
     public String getAddress() {
         return address;
     }
@@ -49,4 +83,43 @@ public class ChargingStationsEntity {
         this.address = address;
     }
 
+    public String getLocation() {
+        return location;
+    }
+
+    public Double getMaxPowerKw() {
+        return maxPowerKw;
+    }
+
+    public String getMunicipality() {
+        return municipality;
+    }
+
+    public void setMunicipality(String municipality) {
+        this.municipality = municipality;
+    }
+
+    public String getStatisticalRegion() {
+        return statisticalRegion;
+    }
+
+    public void setStatisticalRegion(String statisticalRegion) {
+        this.statisticalRegion = statisticalRegion;
+    }
+
+    public Instant getFirstSeen() {
+        return firstSeen;
+    }
+
+    public Instant getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setSeen(Instant seenAt) {
+        if (firstSeen == null) {
+            firstSeen = seenAt;
+        }
+        lastSeen = seenAt;
+    }
+
 }
@@ -0,0 +1,76 @@
+package si.deisinger.business.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "provider_run_checkpoint")
+public class ProviderRunCheckpointEntity {
+
+    @Id
+    @Column(name = "provider", nullable = false)
+    private Integer provider;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @Column(name = "stage")
+    private String stage;
+
+    @Column(name = "snapshots")
+    private String snapshots;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "new_station_ids")
+    private long[] newStationIds;
+
+    public ProviderRunCheckpointEntity() {
+    }
+
+    public ProviderRunCheckpointEntity(Integer provider, Instant startedAt, String snapshots) {
+        this.provider = provider;
+        this.startedAt = startedAt;
+        this.updatedAt = Instant.now();
+        this.stage = "FETCHED";
+        this.snapshots = snapshots;
+    }
+
+    public Integer getProvider() {
+        return provider;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getSnapshots() {
+        return snapshots;
+    }
+
+    public long[] getNewStationIds() {
+        return newStationIds;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+        this.updatedAt = Instant.now();
+    }
+
+    public void setNewStationIds(long[] newStationIds) {
+        this.newStationIds = newStationIds;
+    }
+}
@@ -0,0 +1,154 @@
+package si.deisinger.business.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "provider_run")
+public class ProviderRunEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "provider")
+    private Integer provider;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "fetch_ms")
+    private Long fetchMs;
+
+    @Column(name = "parse_ms")
+    private Long parseMs;
+
+    @Column(name = "diff_ms")
+    private Long diffMs;
+
+    @Column(name = "persist_ms")
+    private Long persistMs;
+
+    @Column(name = "notify_ms")
+    private Long notifyMs;
+
+    @Column(name = "wire_bytes")
+    private Long wireBytes;
+
+    @Column(name = "decoded_bytes")
+    private Long decodedBytes;
+
+    @Column(name = "stations_fetched")
+    private Integer stationsFetched;
+
+    @Column(name = "new_stations")
+    private Integer newStations;
+
+    @Column(name = "stations_inserted")
+    private Integer stationsInserted;
+
+    @Column(name = "succeeded")
+    private Boolean succeeded;
+
+    @Column(name = "error")
+    private String error;
+
+    public ProviderRunEntity() {
+    }
+
+    public ProviderRunEntity(Integer provider, Instant startedAt, Instant finishedAt, Long durationMs, Long fetchMs, Long parseMs, Long diffMs, Long persistMs, Long notifyMs, Long wireBytes, Long decodedBytes,
+            Integer stationsFetched, Integer newStations, Integer stationsInserted, String error) {
+        this.provider = provider;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.durationMs = durationMs;
+        this.fetchMs = fetchMs;
+        this.parseMs = parseMs;
+        this.diffMs = diffMs;
+        this.persistMs = persistMs;
+        this.notifyMs = notifyMs;
+        this.wireBytes = wireBytes;
+        this.decodedBytes = decodedBytes;
+        this.stationsFetched = stationsFetched;
+        this.newStations = newStations;
+        this.stationsInserted = stationsInserted;
+        this.succeeded = error == null;
+        this.error = error;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getProvider() {
+        return provider;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public Long getFetchMs() {
+        return fetchMs;
+    }
+
+    public Long getParseMs() {
+        return parseMs;
+    }
+
+    public Long getDiffMs() {
+        return diffMs;
+    }
+
+    public Long getPersistMs() {
+        return persistMs;
+    }
+
+    public Long getNotifyMs() {
+        return notifyMs;
+    }
+
+    public Long getWireBytes() {
+        return wireBytes;
+    }
+
+    public Long getDecodedBytes() {
+        return decodedBytes;
+    }
+
+    public Integer getStationsFetched() {
+        return stationsFetched;
+    }
+
+    public Integer getNewStations() {
+        return newStations;
+    }
+
+    public Integer getStationsInserted() {
+        return stationsInserted;
+    }
+
+    public Boolean getSucceeded() {
+        return succeeded;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,95 @@
+package si.deisinger.business.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "provider_schedule")
+public class ProviderScheduleEntity {
+
+    @Id
+    @Column(name = "provider", nullable = false)
+    private Integer provider;
+
+    @Column(name = "interval_seconds")
+    private Long intervalSeconds;
+
+    @Column(name = "next_run_at")
+    private Instant nextRunAt;
+
+    @Column(name = "last_run_at")
+    private Instant lastRunAt;
+
+    @Column(name = "change_rate")
+    private Double changeRate;
+
+    @Column(name = "fetch_cost_ms")
+    private Double fetchCostMs;
+
+    @Column(name = "consecutive_failures")
+    private Integer consecutiveFailures;
+
+    public ProviderScheduleEntity() {
+    }
+
+    public ProviderScheduleEntity(Integer provider, Long intervalSeconds, Instant nextRunAt) {
+        this.provider = provider;
+        this.intervalSeconds = intervalSeconds;
+        this.nextRunAt = nextRunAt;
+        this.changeRate = 0.0;
+        this.consecutiveFailures = 0;
+    }
+
+    public Integer getProvider() {
+        return provider;
+    }
+
+    public Long getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    public void setIntervalSeconds(Long intervalSeconds) {
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    public Instant getNextRunAt() {
+        return nextRunAt;
+    }
+
+    public void setNextRunAt(Instant nextRunAt) {
+        this.nextRunAt = nextRunAt;
+    }
+
+    public Instant getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public void setLastRunAt(Instant lastRunAt) {
+        this.lastRunAt = lastRunAt;
+    }
+
+    public Double getChangeRate() {
+        return changeRate;
+    }
+
+    public void setChangeRate(Double changeRate) {
+        this.changeRate = changeRate;
+    }
+
+    public Double getFetchCostMs() {
+        return fetchCostMs;
+    }
+
+    public void setFetchCostMs(Double fetchCostMs) {
+        this.fetchCostMs = fetchCostMs;
+    }
+
+    public Integer getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(Integer consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+}
@@ -0,0 +1,65 @@
+package si.deisinger.business.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "provider_snapshot")
+public class ProviderSnapshotEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "provider")
+    private Integer provider;
+
+    @Column(name = "request_key")
+    private String requestKey;
+
+    @Column(name = "fetched_at")
+    private Instant fetchedAt;
+
+    @Column(name = "sha256")
+    private String sha256;
+
+    @Column(name = "raw_size")
+    private Long rawSize;
+
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    public ProviderSnapshotEntity() {
+    }
+
+    public ProviderSnapshotEntity(Integer provider, String requestKey, Instant fetchedAt, String sha256, Long rawSize, Long storedSize) {
+        this.provider = provider;
+        this.requestKey = requestKey;
+        this.fetchedAt = fetchedAt;
+        this.sha256 = sha256;
+        this.rawSize = rawSize;
+        this.storedSize = storedSize;
+    }
+
+    public Integer getProvider() {
+        return provider;
+    }
+
+    public String getRequestKey() {
+        return requestKey;
+    }
+
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public Long getStoredSize() {
+        return storedSize;
+    }
+}
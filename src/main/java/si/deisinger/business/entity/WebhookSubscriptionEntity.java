@@ -0,0 +1,69 @@
+package si.deisinger.business.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "webhook_subscription")
+public class WebhookSubscriptionEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "url")
+    private String url;
+
+    @Column(name = "secret")
+    private String secret;
+
+    @Column(name = "max_concurrency")
+    private Integer maxConcurrency;
+
+    @Column(name = "active")
+    private Boolean active;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    public WebhookSubscriptionEntity() {
+    }
+
+    public WebhookSubscriptionEntity(String url, String secret, Integer maxConcurrency) {
+        this.url = url;
+        this.secret = secret;
+        this.maxConcurrency = maxConcurrency;
+        this.active = true;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getSecret() {
+        return secret;
+    }
+
+    public Integer getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
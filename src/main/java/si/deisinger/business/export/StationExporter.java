@@ -0,0 +1,257 @@
+package si.deisinger.business.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.providers.enums.Providers;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes columnar snapshots of the station catalog for analytics, so analysts read a local file instead of querying {@code charging_stations} next to the ingestion transactions.
+ * <p>
+ * A snapshot is a directory {@code stations-<yyyyMMdd'T'HHmmss'Z'>} under {@code export.path} with one gzip-compressed file per column ({@code <column>.gz}, one value per line, {@code \N} for null, backslash and line
+ * breaks escaped) and a {@code manifest.json} listing the columns, their types and the row count. Reading a subset of columns only decompresses those files. Rows are streamed from a read-only server-side cursor and
+ * appended to all column files at once, so memory use does not depend on the catalog size. The snapshot is written under a temporary name and renamed when complete; {@code LATEST} holds the name of the newest one.
+ * <p>
+ * Provider runs that insert stations call {@link #requestExport()}; the export itself runs on the scheduler, so several runs finishing together produce one snapshot. Only the columns of {@code charging_stations} are
+ * exported. EVSE availability ({@code availability_day}) is left out: it changes every few minutes while snapshots are only taken when stations are inserted, so it would always be stale; it is read through
+ * {@code /availability} instead.
+ */
+@ApplicationScoped
+public class StationExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StationExporter.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final DateTimeFormatter DIRECTORY_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final String DIRECTORY_PREFIX = "stations-";
+    private static final String LATEST_FILE = "LATEST";
+    private static final int FETCH_SIZE = 1000;
+    private static final int WRITER_BUFFER_SIZE = 16 * 1024;
+    private static final String NULL_VALUE = "\\N";
+    private static final List<Column> COLUMNS = List.of(
+            new Column("id", "int64", resultSet -> resultSet.getString("id")),
+            new Column("station_id", "int64", resultSet -> resultSet.getString("station_id")),
+            new Column("provider", "string", resultSet -> Providers.fromId(resultSet.getInt("provider")).map(Providers::getProviderName).orElse(resultSet.getString("provider"))),
+            new Column("friendly_name", "string", resultSet -> resultSet.getString("friendly_name")),
+            new Column("address", "string", resultSet -> resultSet.getString("address")),
+            new Column("location", "string", resultSet -> resultSet.getString("location")),
+            new Column("max_power_kw", "float64", resultSet -> resultSet.getString("max_power_kw")),
+            new Column("municipality", "string", resultSet -> resultSet.getString("municipality")),
+            new Column("statistical_region", "string", resultSet -> resultSet.getString("statistical_region")),
+            new Column("first_seen", "timestamp", resultSet -> toIsoInstant(resultSet.getObject("first_seen", OffsetDateTime.class))),
+            new Column("last_seen", "timestamp", resultSet -> toIsoInstant(resultSet.getObject("last_seen", OffsetDateTime.class))));
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final Path exportDirectory;
+    private final int retain;
+    private final AtomicBoolean exportRequested = new AtomicBoolean();
+
+    public StationExporter(DataSource dataSource, @ConfigProperty(name = "export.enabled", defaultValue = "true") boolean enabled, @ConfigProperty(name = "export.path", defaultValue = "exports") String path,
+            @ConfigProperty(name = "export.retain", defaultValue = "7") int retain) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.exportDirectory = Path.of(path);
+        this.retain = Math.max(1, retain);
+    }
+
+    /**
+     * Marks the catalog as changed; the next {@link #exportIfRequested()} writes a snapshot.
+     */
+    public void requestExport() {
+        if (enabled) {
+            exportRequested.set(true);
+        }
+    }
+
+    @Scheduled(every = "{export.poll-interval:1m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void poll() {
+        exportIfRequested();
+    }
+
+    /**
+     * Writes a snapshot if one was requested since the last export. Failures are logged and the request is kept, so the export is retried on the next poll.
+     */
+    public void exportIfRequested() {
+        if (!exportRequested.getAndSet(false)) {
+            return;
+        }
+        try {
+            export();
+        } catch (RuntimeException e) {
+            exportRequested.set(true);
+            LOG.error("Station export failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the full station catalog and removes snapshots beyond {@code export.retain}.
+     *
+     * @return the snapshot directory
+     *
+     * @throws IllegalStateException
+     *         if the catalog cannot be read or the snapshot cannot be written; no partial snapshot is left behind in that case
+     */
+    public Path export() {
+        long started = System.nanoTime();
+        Instant createdAt = Instant.now();
+        String name = DIRECTORY_PREFIX + DIRECTORY_TIMESTAMP.format(createdAt);
+        Path target = exportDirectory.resolve(name);
+        Path temp = exportDirectory.resolve(".tmp-" + name);
+        try {
+            Files.createDirectories(temp);
+            long rows = writeColumns(temp);
+            writeManifest(temp, createdAt, rows);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            writeLatest(name);
+            deleteOldSnapshots();
+            LOG.info("Exported {} stations to {} in {} ms", rows, target, (System.nanoTime() - started) / 1_000_000);
+            return target;
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Failed to export stations to " + target, e);
+        } finally {
+            deleteRecursively(temp);
+        }
+    }
+
+    /**
+     * Streams the catalog through a read-only cursor into one writer per column.
+     */
+    private long writeColumns(Path directory) throws IOException, SQLException {
+        List<Writer> writers = new ArrayList<>(COLUMNS.size());
+        try (Connection connection = dataSource.getConnection()) {
+            for (Column column : COLUMNS) {
+                writers.add(new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(directory.resolve(column.name() + ".gz"))), StandardCharsets.UTF_8), WRITER_BUFFER_SIZE));
+            }
+            // The PostgreSQL driver only uses a server-side cursor (and honours the fetch size) outside auto-commit.
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, station_id, provider, friendly_name, address, location, max_power_kw, municipality, statistical_region, first_seen, last_seen FROM charging_stations ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(FETCH_SIZE);
+                long rows = 0;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        for (int i = 0; i < COLUMNS.size(); i++) {
+                            writeValue(writers.get(i), COLUMNS.get(i).extractor().extract(resultSet));
+                        }
+                        rows++;
+                    }
+                }
+                return rows;
+            } finally {
+                connection.rollback();
+            }
+        } finally {
+            for (Writer writer : writers) {
+                writer.close();
+            }
+        }
+    }
+
+    private void writeManifest(Path directory, Instant createdAt, long rows) throws IOException {
+        ObjectNode manifest = OBJECT_MAPPER.createObjectNode();
+        manifest.put("format", "css-columnar-1");
+        manifest.put("createdAt", createdAt.toString());
+        manifest.put("rows", rows);
+        ArrayNode columns = manifest.putArray("columns");
+        for (Column column : COLUMNS) {
+            columns.addObject().put("name", column.name()).put("type", column.type()).put("file", column.name() + ".gz");
+        }
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(directory.resolve("manifest.json").toFile(), manifest);
+    }
+
+    private void writeLatest(String name) throws IOException {
+        Path temp = Files.createTempFile(exportDirectory, "latest", ".tmp");
+        try {
+            Files.writeString(temp, name + "\n", StandardCharsets.UTF_8);
+            Files.move(temp, exportDirectory.resolve(LATEST_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void deleteOldSnapshots() throws IOException {
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(exportDirectory)) {
+            // The timestamp in the name sorts chronologically.
+            snapshots = files.filter(Files::isDirectory).filter(file -> file.getFileName().toString().startsWith(DIRECTORY_PREFIX)).sorted(Comparator.comparing(Path::getFileName).reversed()).toList();
+        }
+        for (Path snapshot : snapshots.subList(Math.min(retain, snapshots.size()), snapshots.size())) {
+            deleteRecursively(snapshot);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete " + directory, e);
+        }
+    }
+
+    private static void writeValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            writer.write(NULL_VALUE);
+        } else {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> writer.write("\\\\");
+                    case '\n' -> writer.write("\\n");
+                    case '\r' -> writer.write("\\r");
+                    default -> writer.write(c);
+                }
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static String toIsoInstant(OffsetDateTime value) {
+        return value == null ? null : value.toInstant().toString();
+    }
+
+    private record Column(String name, String type, ValueExtractor extractor) {
+    }
+
+    @FunctionalInterface
+    private interface ValueExtractor {
+
+        String extract(ResultSet resultSet) throws SQLException;
+    }
+}
@@ -0,0 +1,242 @@
+package si.deisinger.business.geo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable R-tree over administrative boundary polygons, answering "which area contains this point".
+ * <p>
+ * The tree is bulk-loaded with the Sort-Tile-Recursive algorithm, so every node is full and a lookup descends only into the nodes whose bounding box contains the point, visiting {@code O(log n)} nodes before the exact
+ * point-in-polygon test. Each polygon of a {@code MultiPolygon} is a separate entry; holes are handled with the even-odd rule.
+ */
+public final class BoundaryIndex {
+
+    private static final int NODE_CAPACITY = 16;
+
+    private final Node root;
+    private final int boundaryCount;
+
+    private BoundaryIndex(Node root, int boundaryCount) {
+        this.root = root;
+        this.boundaryCount = boundaryCount;
+    }
+
+    /**
+     * Reads a GeoJSON {@code FeatureCollection} of {@code Polygon} and {@code MultiPolygon} features in WGS84 ({@code [longitude, latitude]}) coordinates.
+     *
+     * @param in
+     *         the GeoJSON document
+     * @param municipalityProperty
+     *         the feature property holding the municipality name
+     * @param regionProperty
+     *         the feature property holding the statistical region name
+     *
+     * @return the index
+     *
+     * @throws IOException
+     *         if the document cannot be read
+     * @throws IllegalArgumentException
+     *         if the document is not a feature collection or a feature lacks the municipality property
+     */
+    public static BoundaryIndex fromGeoJson(InputStream in, String municipalityProperty, String regionProperty) throws IOException {
+        JsonNode features = new ObjectMapper().readTree(in).path("features");
+        if (!features.isArray()) {
+            throw new IllegalArgumentException("Boundary GeoJSON must be a FeatureCollection");
+        }
+        List<Entry> entries = new ArrayList<>();
+        int boundaryCount = 0;
+        for (JsonNode feature : features) {
+            JsonNode properties = feature.path("properties");
+            String municipality = properties.path(municipalityProperty).asText(null);
+            if (municipality == null) {
+                throw new IllegalArgumentException("Boundary feature without property '" + municipalityProperty + "'");
+            }
+            Area area = new Area(municipality, properties.path(regionProperty).asText(null));
+            JsonNode geometry = feature.path("geometry");
+            switch (geometry.path("type").asText()) {
+                case "Polygon" -> entries.add(toEntry(area, geometry.path("coordinates")));
+                case "MultiPolygon" -> geometry.path("coordinates").forEach(polygon -> entries.add(toEntry(area, polygon)));
+                default -> throw new IllegalArgumentException("Unsupported geometry type of boundary '" + municipality + "': " + geometry.path("type").asText());
+            }
+            boundaryCount++;
+        }
+        return new BoundaryIndex(build(entries), boundaryCount);
+    }
+
+    public int size() {
+        return boundaryCount;
+    }
+
+    /**
+     * Finds the area containing the point.
+     *
+     * @param point
+     *         the point
+     *
+     * @return the area, or an empty optional if the point lies outside every boundary
+     */
+    public Optional<Area> find(GeoPoint point) {
+        return Optional.ofNullable(root == null ? null : find(root, point.latitude(), point.longitude()));
+    }
+
+    private static Area find(Node node, double latitude, double longitude) {
+        if (!node.contains(latitude, longitude)) {
+            return null;
+        }
+        if (node.entries != null) {
+            for (Entry entry : node.entries) {
+                if (entry.contains(latitude, longitude)) {
+                    return entry.area;
+                }
+            }
+            return null;
+        }
+        for (Node child : node.children) {
+            Area area = find(child, latitude, longitude);
+            if (area != null) {
+                return area;
+            }
+        }
+        return null;
+    }
+
+    private static Entry toEntry(Area area, JsonNode polygon) {
+        double[][] latitudes = new double[polygon.size()][];
+        double[][] longitudes = new double[polygon.size()][];
+        for (int r = 0; r < polygon.size(); r++) {
+            JsonNode ring = polygon.get(r);
+            latitudes[r] = new double[ring.size()];
+            longitudes[r] = new double[ring.size()];
+            for (int i = 0; i < ring.size(); i++) {
+                longitudes[r][i] = ring.get(i).get(0).asDouble();
+                latitudes[r][i] = ring.get(i).get(1).asDouble();
+            }
+        }
+        return new Entry(area, latitudes, longitudes);
+    }
+
+    /**
+     * Sort-Tile-Recursive bulk load: the entries are cut into vertical slices by longitude, each slice is sorted by latitude and packed into full leaves, and the same is repeated on the leaves until one root remains.
+     */
+    private static Node build(List<? extends Box> boxes) {
+        if (boxes.isEmpty()) {
+            return null;
+        }
+        List<Node> level = pack(boxes);
+        while (level.size() > 1) {
+            level = pack(level);
+        }
+        return level.getFirst();
+    }
+
+    private static List<Node> pack(List<? extends Box> boxes) {
+        List<Box> sorted = new ArrayList<>(boxes);
+        sorted.sort(Comparator.comparingDouble(box -> box.minLon + box.maxLon));
+        int nodeCount = (int) Math.ceil(boxes.size() / (double) NODE_CAPACITY);
+        int sliceSize = (int) Math.ceil(Math.sqrt(nodeCount)) * NODE_CAPACITY;
+        List<Node> nodes = new ArrayList<>(nodeCount);
+        for (int sliceStart = 0; sliceStart < sorted.size(); sliceStart += sliceSize) {
+            List<Box> slice = new ArrayList<>(sorted.subList(sliceStart, Math.min(sliceStart + sliceSize, sorted.size())));
+            slice.sort(Comparator.comparingDouble(box -> box.minLat + box.maxLat));
+            for (int start = 0; start < slice.size(); start += NODE_CAPACITY) {
+                nodes.add(new Node(slice.subList(start, Math.min(start + NODE_CAPACITY, slice.size()))));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * A municipality and its statistical region.
+     *
+     * @param municipality
+     *         the municipality name
+     * @param statisticalRegion
+     *         the statistical region name, or {@code null} if the boundary file does not provide it
+     */
+    public record Area(String municipality, String statisticalRegion) {
+    }
+
+    private abstract static class Box {
+
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+
+        boolean contains(double latitude, double longitude) {
+            return latitude >= minLat && latitude <= maxLat && longitude >= minLon && longitude <= maxLon;
+        }
+
+        void extend(Box other) {
+            minLat = Math.min(minLat, other.minLat);
+            maxLat = Math.max(maxLat, other.maxLat);
+            minLon = Math.min(minLon, other.minLon);
+            maxLon = Math.max(maxLon, other.maxLon);
+        }
+    }
+
+    private static final class Node extends Box {
+
+        private final Node[] children;
+        private final Entry[] entries;
+
+        Node(List<? extends Box> members) {
+            members.forEach(this::extend);
+            if (members.getFirst() instanceof Entry) {
+                this.entries = members.toArray(new Entry[0]);
+                this.children = null;
+            } else {
+                this.children = members.toArray(new Node[0]);
+                this.entries = null;
+            }
+        }
+    }
+
+    private static final class Entry extends Box {
+
+        private final Area area;
+        private final double[][] latitudes;
+        private final double[][] longitudes;
+
+        Entry(Area area, double[][] latitudes, double[][] longitudes) {
+            this.area = area;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            if (latitudes.length > 0) {
+                minLat = Arrays.stream(latitudes[0]).min().orElse(minLat);
+                maxLat = Arrays.stream(latitudes[0]).max().orElse(maxLat);
+                minLon = Arrays.stream(longitudes[0]).min().orElse(minLon);
+                maxLon = Arrays.stream(longitudes[0]).max().orElse(maxLon);
+            }
+        }
+
+        /**
+         * Even-odd ray casting over all rings, so a point inside a hole is outside the polygon.
+         */
+        @Override
+        boolean contains(double latitude, double longitude) {
+            if (!super.contains(latitude, longitude)) {
+                return false;
+            }
+            boolean inside = false;
+            for (int r = 0; r < latitudes.length; r++) {
+                double[] lats = latitudes[r];
+                double[] lons = longitudes[r];
+                for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                    if ((lats[i] > latitude) != (lats[j] > latitude) && longitude < (lons[j] - lons[i]) * (latitude - lats[i]) / (lats[j] - lats[i]) + lons[i]) {
+                        inside = !inside;
+                    }
+                }
+            }
+            return inside;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package si.deisinger.business.geo;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.catalog.StationCatalog;
+import si.deisinger.business.catalog.StationCatalogRegistry;
+import si.deisinger.business.model.CorridorStation;
+import si.deisinger.providers.enums.Providers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Answers "which stations are within X meters of this route" from an in-memory {@link StationGridIndex}.
+ * <p>
+ * The index holds every station of the {@link StationCatalogRegistry station catalog} with a location. It is rebuilt when the registry has published a new catalog, so a query never touches the database.
+ */
+@ApplicationScoped
+public class CorridorSearch {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CorridorSearch.class);
+
+    private final StationCatalogRegistry stationCatalogRegistry;
+    private volatile IndexedStations indexedStations;
+
+    public CorridorSearch(StationCatalogRegistry stationCatalogRegistry) {
+        this.stationCatalogRegistry = stationCatalogRegistry;
+    }
+
+    /**
+     * Finds the stations within {@code bufferMeters} of the route.
+     *
+     * @param route
+     *         the route points, at least one
+     * @param bufferMeters
+     *         the maximum distance from the route
+     *
+     * @return the stations ordered by their position along the route
+     */
+    public List<CorridorStation> findStationsAlongRoute(List<GeoPoint> route, double bufferMeters) {
+        IndexedStations current = getIndexedStations();
+        StationCatalog catalog = current.catalog();
+        long started = System.nanoTime();
+        List<StationGridIndex.CorridorMatch> matches = current.index().findAlongRoute(route, bufferMeters);
+        List<CorridorStation> stations = new ArrayList<>(matches.size());
+        for (StationGridIndex.CorridorMatch match : matches) {
+            int row = current.rows()[match.station()];
+            GeoPoint point = current.points().get(match.station());
+            stations.add(new CorridorStation(catalog.getStationId(row), Providers.fromId(catalog.getProviderId(row)).map(Providers::getProviderName).orElse(String.valueOf(catalog.getProviderId(row))),
+                    catalog.getFriendlyName(row), catalog.getAddress(row), point.latitude(), point.longitude(), match.distanceFromRouteMeters(), match.distanceAlongRouteMeters()));
+        }
+        LOG.debug("Corridor query over {} route points and {} stations found {} stations in {} µs", route.size(), current.index().size(), stations.size(), (System.nanoTime() - started) / 1000);
+        return stations;
+    }
+
+    private IndexedStations getIndexedStations() {
+        StationCatalog catalog = stationCatalogRegistry.get();
+        IndexedStations current = indexedStations;
+        if (current != null && current.catalog() == catalog) {
+            return current;
+        }
+        synchronized (this) {
+            current = indexedStations;
+            if (current != null && current.catalog() == catalog) {
+                return current;
+            }
+            long started = System.nanoTime();
+            int[] rows = new int[catalog.size()];
+            List<GeoPoint> points = new ArrayList<>();
+            for (int row = 0; row < catalog.size(); row++) {
+                Optional<GeoPoint> point = catalog.getLocation(row);
+                if (point.isPresent()) {
+                    rows[points.size()] = row;
+                    points.add(point.get());
+                }
+            }
+            current = new IndexedStations(catalog, Arrays.copyOf(rows, points.size()), points, new StationGridIndex(points));
+            indexedStations = current;
+            LOG.info("Built corridor index over {} stations in {} ms", points.size(), (System.nanoTime() - started) / 1_000_000);
+            return current;
+        }
+    }
+
+    private record IndexedStations(StationCatalog catalog, int[] rows, List<GeoPoint> points, StationGridIndex index) {
+    }
+}
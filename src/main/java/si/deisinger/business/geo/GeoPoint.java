@@ -0,0 +1,86 @@
+package si.deisinger.business.geo;
+
+import si.deisinger.providers.enums.Providers;
+
+import java.util.Optional;
+
+/**
+ * A WGS84 coordinate.
+ *
+ * @param latitude
+ *         latitude in degrees
+ * @param longitude
+ *         longitude in degrees
+ */
+public record GeoPoint(double latitude, double longitude) {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    public static final double METERS_PER_DEGREE_LATITUDE = 111_320;
+
+    /**
+     * Parses the {@code location} column of a station. Ampeco providers store {@code "latitude,longitude"}, while Petrol and MoonCharge store the GPS access point as {@code "longitude, latitude"}.
+     *
+     * @param providerId
+     *         the provider id of the station
+     * @param location
+     *         the stored location, may be {@code null}
+     *
+     * @return the coordinate, or an empty optional if the location is missing or malformed
+     */
+    public static Optional<GeoPoint> fromStationLocation(Integer providerId, String location) {
+        if (location == null || providerId == null) {
+            return Optional.empty();
+        }
+        String[] parts = location.split(",");
+        if (parts.length != 2) {
+            return Optional.empty();
+        }
+        try {
+            double first = Double.parseDouble(parts[0].strip());
+            double second = Double.parseDouble(parts[1].strip());
+            GeoPoint point = isLongitudeFirst(providerId) ? new GeoPoint(second, first) : new GeoPoint(first, second);
+            return point.isValid() ? Optional.of(point) : Optional.empty();
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Formats a coordinate as the {@code location} column of a station of the given provider, the inverse of {@link #fromStationLocation(Integer, String)}.
+     *
+     * @param providerId
+     *         the provider id of the station
+     * @param latitude
+     *         the latitude as written in the source
+     * @param longitude
+     *         the longitude as written in the source
+     *
+     * @return the location in the provider's stored format
+     */
+    public static String toStationLocation(Integer providerId, String latitude, String longitude) {
+        return isLongitudeFirst(providerId) ? longitude + ", " + latitude : latitude + "," + longitude;
+    }
+
+    private static boolean isLongitudeFirst(Integer providerId) {
+        return providerId.equals(Providers.PETROL.getId()) || providerId.equals(Providers.MOONCHARGE.getId());
+    }
+
+    /**
+     * Great-circle distance using the haversine formula.
+     *
+     * @param other
+     *         the other point
+     *
+     * @return the distance in meters
+     */
+    public double distanceMeters(GeoPoint other) {
+        double dLat = Math.toRadians(other.latitude - latitude);
+        double dLon = Math.toRadians(other.longitude - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(other.latitude)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    public boolean isValid() {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180 && !(latitude == 0 && longitude == 0);
+    }
+}
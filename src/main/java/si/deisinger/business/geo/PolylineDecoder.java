@@ -0,0 +1,62 @@
+package si.deisinger.business.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes routes in the Encoded Polyline Algorithm Format used by Google, OSRM, Valhalla and most other routing engines.
+ */
+public final class PolylineDecoder {
+
+    private PolylineDecoder() {
+    }
+
+    /**
+     * Decodes an encoded polyline.
+     *
+     * @param encoded
+     *         the encoded polyline
+     * @param precision
+     *         the number of decimal places the coordinates were encoded with, {@code 5} for Google and OSRM, {@code 6} for Valhalla
+     *
+     * @return the route points
+     *
+     * @throws IllegalArgumentException
+     *         if the polyline is malformed or decodes to an invalid coordinate
+     */
+    public static List<GeoPoint> decode(String encoded, int precision) {
+        double factor = Math.pow(10, precision);
+        List<GeoPoint> points = new ArrayList<>(encoded.length() / 4);
+        int[] index = { 0 };
+        long latitude = 0;
+        long longitude = 0;
+        while (index[0] < encoded.length()) {
+            latitude += nextValue(encoded, index);
+            longitude += nextValue(encoded, index);
+            GeoPoint point = new GeoPoint(latitude / factor, longitude / factor);
+            if (point.latitude() < -90 || point.latitude() > 90 || point.longitude() < -180 || point.longitude() > 180) {
+                throw new IllegalArgumentException("Polyline contains an invalid coordinate at position " + index[0]);
+            }
+            points.add(point);
+        }
+        return points;
+    }
+
+    private static long nextValue(String encoded, int[] index) {
+        long result = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            if (index[0] >= encoded.length() || shift > 60) {
+                throw new IllegalArgumentException("Truncated or malformed polyline at position " + index[0]);
+            }
+            chunk = encoded.charAt(index[0]++) - 63;
+            if (chunk < 0 || chunk > 63) {
+                throw new IllegalArgumentException("Invalid polyline character at position " + (index[0] - 1));
+            }
+            result |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        return (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+    }
+}
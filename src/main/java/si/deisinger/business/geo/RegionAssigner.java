@@ -0,0 +1,174 @@
+package si.deisinger.business.geo;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.entity.ChargingStationsEntity;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Assigns stations to their Slovenian municipality and statistical region from boundary polygons in a local GeoJSON file ({@code boundaries.path}).
+ * <p>
+ * The boundaries are loaded once into a {@link BoundaryIndex}. New stations are assigned before they are inserted; {@link #backfill(boolean)} classifies existing rows in memory and writes the result back with a single
+ * {@code UPDATE}. Without a boundary file, assignment is disabled and stations keep {@code null} municipality and region.
+ */
+@ApplicationScoped
+public class RegionAssigner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegionAssigner.class);
+
+    private final DataSource dataSource;
+    private final Optional<String> boundariesPath;
+    private final String municipalityProperty;
+    private final String regionProperty;
+    private volatile Optional<BoundaryIndex> boundaryIndex;
+
+    public RegionAssigner(DataSource dataSource, @ConfigProperty(name = "boundaries.path") Optional<String> boundariesPath,
+            @ConfigProperty(name = "boundaries.municipality-property", defaultValue = "municipality") String municipalityProperty,
+            @ConfigProperty(name = "boundaries.region-property", defaultValue = "region") String regionProperty) {
+        this.dataSource = dataSource;
+        this.boundariesPath = boundariesPath;
+        this.municipalityProperty = municipalityProperty;
+        this.regionProperty = regionProperty;
+    }
+
+    /**
+     * Returns whether a boundary file is configured and loaded, i.e. whether stations can be assigned at all.
+     */
+    public boolean isEnabled() {
+        return getBoundaryIndex().isPresent();
+    }
+
+    /**
+     * Sets the municipality and statistical region of stations that are about to be inserted.
+     *
+     * @param stations
+     *         the new stations
+     */
+    public void assign(List<ChargingStationsEntity> stations) {
+        Optional<BoundaryIndex> index = getBoundaryIndex();
+        if (index.isEmpty()) {
+            return;
+        }
+        for (ChargingStationsEntity station : stations) {
+            GeoPoint.fromStationLocation(station.getProvider(), station.getLocation()).flatMap(point -> index.get().find(point)).ifPresent(area -> {
+                station.setMunicipality(area.municipality());
+                station.setStatisticalRegion(area.statisticalRegion());
+            });
+        }
+    }
+
+    /**
+     * Classifies stored stations and updates their municipality and statistical region.
+     *
+     * @param all
+     *         {@code true} to reclassify every station (e.g. after replacing the boundary file), {@code false} to classify only stations without a municipality
+     *
+     * @return the number of stations assigned to a municipality
+     *
+     * @throws IllegalStateException
+     *         if no boundary file is configured or the update fails
+     */
+    public int backfill(boolean all) {
+        BoundaryIndex index = getBoundaryIndex().orElseThrow(() -> new IllegalStateException("No boundary file configured, set boundaries.path"));
+        long started = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Long> ids = new ArrayList<>();
+                List<String> municipalities = new ArrayList<>();
+                List<String> regions = new ArrayList<>();
+                int scanned = 0;
+                try (Statement statement = connection.createStatement();
+                        ResultSet rows = statement.executeQuery("SELECT id, provider, location FROM charging_stations WHERE location IS NOT NULL" + (all ? "" : " AND municipality IS NULL"))) {
+                    while (rows.next()) {
+                        scanned++;
+                        long id = rows.getLong(1);
+                        Optional<BoundaryIndex.Area> area = GeoPoint.fromStationLocation(rows.getInt(2), rows.getString(3)).flatMap(index::find);
+                        if (area.isPresent() || all) {
+                            ids.add(id);
+                            municipalities.add(area.map(BoundaryIndex.Area::municipality).orElse(null));
+                            regions.add(area.map(BoundaryIndex.Area::statisticalRegion).orElse(null));
+                        }
+                    }
+                }
+                updateAreas(connection, ids, municipalities, regions);
+                connection.commit();
+                int assigned = (int) municipalities.stream().filter(municipality -> municipality != null).count();
+                LOG.info("Assigned {} of {} stations to a municipality in {} ms", assigned, scanned, (System.nanoTime() - started) / 1_000_000);
+                return assigned;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to backfill station municipalities", e);
+        }
+    }
+
+    private static void updateAreas(Connection connection, List<Long> ids, List<String> municipalities, List<String> regions) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            // Only the derived columns change; keep the known-station registry from reloading.
+            statement.execute("SELECT set_config('css.registry_managed_write', 'on', true)");
+        }
+        try (PreparedStatement statement = connection.prepareStatement("""
+                UPDATE charging_stations c
+                SET municipality = u.municipality, statistical_region = u.region
+                FROM unnest(?::bigint[], ?::varchar[], ?::varchar[]) AS u(id, municipality, region)
+                WHERE c.id = u.id
+                """)) {
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            statement.setArray(2, connection.createArrayOf("varchar", municipalities.toArray()));
+            statement.setArray(3, connection.createArrayOf("varchar", regions.toArray()));
+            statement.executeUpdate();
+        }
+    }
+
+    private Optional<BoundaryIndex> getBoundaryIndex() {
+        Optional<BoundaryIndex> index = boundaryIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = boundaryIndex;
+                if (index == null) {
+                    index = loadBoundaryIndex();
+                    boundaryIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private Optional<BoundaryIndex> loadBoundaryIndex() {
+        if (boundariesPath.isEmpty()) {
+            LOG.info("No boundary file configured (boundaries.path), municipality assignment is disabled");
+            return Optional.empty();
+        }
+        Path path = Path.of(boundariesPath.get());
+        long started = System.nanoTime();
+        try (InputStream in = Files.newInputStream(path)) {
+            BoundaryIndex index = BoundaryIndex.fromGeoJson(in, municipalityProperty, regionProperty);
+            LOG.info("Loaded {} municipality boundaries from {} in {} ms", index.size(), path, (System.nanoTime() - started) / 1_000_000);
+            return Optional.of(index);
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.error("Failed to load municipality boundaries from {}, municipality assignment is disabled: {}", path, e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+}
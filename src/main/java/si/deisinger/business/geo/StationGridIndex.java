@@ -0,0 +1,126 @@
+package si.deisinger.business.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable uniform-grid index over station coordinates, answering corridor queries along a route.
+ * <p>
+ * A query walks the route segment by segment, visits only the grid cells overlapping the segment's bounding box grown by the buffer, and measures the exact distance from each station in those cells to the segment. The
+ * cost therefore depends on the route length and the station density along it, not on the total number of stations.
+ * <p>
+ * Distances use a local equirectangular projection per segment, accurate to well under 1% for the segment lengths of a routing polyline.
+ */
+public final class StationGridIndex {
+
+    /** About 2.2 km north-south and 1.5 km east-west at Slovenian latitudes. */
+    private static final double CELL_DEGREES = 0.02;
+    private static final int[] EMPTY_CELL = new int[0];
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final Map<Long, int[]> cells;
+
+    /**
+     * Builds the index.
+     *
+     * @param points
+     *         the station coordinates; query results refer to stations by their position in this list
+     */
+    public StationGridIndex(List<GeoPoint> points) {
+        this.latitudes = new double[points.size()];
+        this.longitudes = new double[points.size()];
+        Map<Long, List<Integer>> cellLists = new HashMap<>();
+        for (int i = 0; i < points.size(); i++) {
+            GeoPoint point = points.get(i);
+            latitudes[i] = point.latitude();
+            longitudes[i] = point.longitude();
+            cellLists.computeIfAbsent(key(cell(point.latitude()), cell(point.longitude())), k -> new ArrayList<>()).add(i);
+        }
+        this.cells = new HashMap<>(cellLists.size() * 2);
+        cellLists.forEach((cell, list) -> cells.put(cell, list.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+
+    /**
+     * Finds the stations within {@code bufferMeters} of the route.
+     *
+     * @param route
+     *         the route points, at least one
+     * @param bufferMeters
+     *         the maximum distance from the route
+     *
+     * @return the matches ordered by their position along the route
+     */
+    public List<CorridorMatch> findAlongRoute(List<GeoPoint> route, double bufferMeters) {
+        double[] distanceFromRoute = new double[latitudes.length];
+        double[] distanceAlongRoute = new double[latitudes.length];
+        BitSet matched = new BitSet(latitudes.length);
+        double routeOffset = 0;
+        for (int s = 0; s < Math.max(1, route.size() - 1); s++) {
+            GeoPoint from = route.get(s);
+            GeoPoint to = route.get(Math.min(s + 1, route.size() - 1));
+            double metersPerDegreeLongitude = GeoPoint.METERS_PER_DEGREE_LATITUDE * Math.cos(Math.toRadians((from.latitude() + to.latitude()) / 2));
+            double segmentX = (to.longitude() - from.longitude()) * metersPerDegreeLongitude;
+            double segmentY = (to.latitude() - from.latitude()) * GeoPoint.METERS_PER_DEGREE_LATITUDE;
+            double segmentLengthSquared = segmentX * segmentX + segmentY * segmentY;
+            double bufferLatitude = bufferMeters / GeoPoint.METERS_PER_DEGREE_LATITUDE;
+            double bufferLongitude = bufferMeters / Math.max(metersPerDegreeLongitude, 1);
+            int minRow = cell(Math.min(from.latitude(), to.latitude()) - bufferLatitude);
+            int maxRow = cell(Math.max(from.latitude(), to.latitude()) + bufferLatitude);
+            int minColumn = cell(Math.min(from.longitude(), to.longitude()) - bufferLongitude);
+            int maxColumn = cell(Math.max(from.longitude(), to.longitude()) + bufferLongitude);
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minColumn; c <= maxColumn; c++) {
+                    for (int station : cells.getOrDefault(key(r, c), EMPTY_CELL)) {
+                        double pointX = (longitudes[station] - from.longitude()) * metersPerDegreeLongitude;
+                        double pointY = (latitudes[station] - from.latitude()) * GeoPoint.METERS_PER_DEGREE_LATITUDE;
+                        double t = segmentLengthSquared == 0 ? 0 : Math.clamp((pointX * segmentX + pointY * segmentY) / segmentLengthSquared, 0, 1);
+                        double distance = Math.hypot(pointX - t * segmentX, pointY - t * segmentY);
+                        if (distance <= bufferMeters && (!matched.get(station) || distance < distanceFromRoute[station])) {
+                            matched.set(station);
+                            distanceFromRoute[station] = distance;
+                            distanceAlongRoute[station] = routeOffset + t * Math.sqrt(segmentLengthSquared);
+                        }
+                    }
+                }
+            }
+            routeOffset += Math.sqrt(segmentLengthSquared);
+        }
+        CorridorMatch[] matches = new CorridorMatch[matched.cardinality()];
+        int m = 0;
+        for (int station = matched.nextSetBit(0); station >= 0; station = matched.nextSetBit(station + 1)) {
+            matches[m++] = new CorridorMatch(station, distanceFromRoute[station], distanceAlongRoute[station]);
+        }
+        Arrays.sort(matches, (a, b) -> Double.compare(a.distanceAlongRouteMeters(), b.distanceAlongRouteMeters()));
+        return Arrays.asList(matches);
+    }
+
+    private static int cell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    /**
+     * A station within the corridor.
+     *
+     * @param station
+     *         the station's position in the list the index was built from
+     * @param distanceFromRouteMeters
+     *         the distance to the closest point of the route
+     * @param distanceAlongRouteMeters
+     *         the distance from the route start to that closest point
+     */
+    public record CorridorMatch(int station, double distanceFromRouteMeters, double distanceAlongRouteMeters) {
+    }
+}
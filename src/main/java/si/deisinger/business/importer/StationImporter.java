@@ -0,0 +1,262 @@
+package si.deisinger.business.importer;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.geo.GeoPoint;
+import si.deisinger.business.geo.RegionAssigner;
+import si.deisinger.business.repository.StationGrowthRepository;
+import si.deisinger.business.repository.StationStatisticsRepository;
+import si.deisinger.providers.enums.Providers;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk import of external station datasets (e.g. national registry CSV exports) into {@code charging_stations}.
+ * <p>
+ * The file is parsed as a stream and every record is written straight into a temporary staging table through PostgreSQL {@code COPY}, so memory use does not depend on the file size. A single {@code INSERT ... SELECT} then
+ * moves the staged rows that are not yet stored for the provider into {@code charging_stations} and adds them to the station statistics and growth rollups. The import bypasses the known-station registry on purpose; the
+ * {@code provider_station_version} trigger makes the registry reload on the next run. If municipality boundaries are configured, the stations without a municipality (including the imported ones) are classified by
+ * {@link RegionAssigner#backfill(boolean)} once the import is committed.
+ * <p>
+ * Recognised columns (case-insensitive, other columns are ignored): {@code station_id} or {@code id} (required), {@code friendly_name} or {@code name}, {@code address}, {@code location} or
+ * {@code latitude}/{@code longitude}, {@code max_power_kw} or {@code power_kw}. A {@code location} column is stored as is and must already be in the provider's format (as exported by {@code StationExporter});
+ * {@code latitude}/{@code longitude} are written in the provider's coordinate order, see {@link GeoPoint#fromStationLocation(Integer, String)}. Records whose station ID is not a non-negative {@code BIGINT} are skipped.
+ */
+@ApplicationScoped
+public class StationImporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StationImporter.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final RegionAssigner regionAssigner;
+
+    public StationImporter(DataSource dataSource, RegionAssigner regionAssigner) {
+        this.dataSource = dataSource;
+        this.regionAssigner = regionAssigner;
+    }
+
+    /**
+     * Imports a CSV file for the given provider.
+     *
+     * @param provider
+     *         the provider the stations belong to
+     * @param file
+     *         the CSV file, with a header row
+     * @param delimiter
+     *         the column delimiter
+     *
+     * @return the number of stations inserted
+     *
+     * @throws IllegalStateException
+     *         if the file cannot be read or the import fails; nothing is inserted in that case
+     */
+    public long importCsv(Providers provider, Path file, char delimiter) {
+        long started = System.nanoTime();
+        long inserted;
+        CsvSchema schema = CsvSchema.emptySchema().withHeader().withColumnSeparator(delimiter);
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8); MappingIterator<Map<String, String>> records = new CsvMapper().readerForMapOf(String.class).with(schema).readValues(reader);
+                Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE TEMP TABLE station_import (station_id BIGINT, friendly_name TEXT, address TEXT, location TEXT, max_power_kw DOUBLE PRECISION) ON COMMIT DROP");
+                }
+                CopyStats copyStats = copyRecords(connection, provider, records);
+                inserted = insertNewStations(connection, provider);
+                connection.commit();
+                LOG.info("Imported {} new stations for provider {} from {} ({} records staged, {} skipped without a valid station id) in {} ms", inserted, provider, file, copyStats.staged(), copyStats.skipped(),
+                        (System.nanoTime() - started) / 1_000_000);
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("Failed to import stations for provider " + provider + " from " + file, e);
+        }
+        if (inserted > 0) {
+            assignRegions(provider);
+        }
+        return inserted;
+    }
+
+    /**
+     * Assigns the imported stations to their municipality. The import is already committed, so a failure is only logged; {@code backfill-regions} can be run later.
+     */
+    private void assignRegions(Providers provider) {
+        if (!regionAssigner.isEnabled()) {
+            return;
+        }
+        try {
+            regionAssigner.backfill(false);
+        } catch (RuntimeException e) {
+            LOG.warn("Imported stations of provider {} could not be assigned to municipalities, run backfill-regions: {}", provider, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Streams the records into the staging table using {@code COPY ... FROM STDIN} in text format.
+     */
+    private CopyStats copyRecords(Connection connection, Providers provider, MappingIterator<Map<String, String>> records) throws SQLException, IOException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY station_import (station_id, friendly_name, address, location, max_power_kw) FROM STDIN");
+        long staged = 0;
+        long skipped = 0;
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE);
+            while (records.hasNextValue()) {
+                Map<String, String> record = lowerCaseKeys(records.nextValue());
+                String stationId = firstNonBlank(record, "station_id", "id");
+                if (!isStationId(stationId)) {
+                    skipped++;
+                    continue;
+                }
+                appendCopyRow(buffer, stationId.strip(), firstNonBlank(record, "friendly_name", "name"), firstNonBlank(record, "address"), getLocation(record, provider), getMaxPowerKw(record));
+                staged++;
+                if (buffer.length() >= COPY_BUFFER_SIZE) {
+                    writeToCopy(copyIn, buffer);
+                }
+            }
+            writeToCopy(copyIn, buffer);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        return new CopyStats(staged, skipped);
+    }
+
+    /**
+     * Inserts the staged stations that are not yet stored for the provider (stations repeated within the file are inserted once) and adds them to the statistics and growth rollups.
+     */
+    private long insertNewStations(Connection connection, Providers provider) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE station_import");
+        }
+        try (PreparedStatement statement = connection.prepareStatement("""
+                WITH inserted AS (
+                    INSERT INTO charging_stations (station_id, provider, friendly_name, address, location, max_power_kw, first_seen, last_seen)
+                    SELECT DISTINCT ON (i.station_id) i.station_id, ?, i.friendly_name, i.address, i.location, i.max_power_kw, now(), now()
+                    FROM station_import i
+                    WHERE NOT EXISTS (SELECT 1 FROM charging_stations c WHERE c.provider = ? AND c.station_id = i.station_id)
+                    ORDER BY i.station_id
+                    RETURNING provider, address, max_power_kw, first_seen),
+                counted AS (%s),
+                grown AS (%s)
+                SELECT count(*) FROM inserted
+                """.formatted(StationStatisticsRepository.addStationsSql("inserted"), StationGrowthRepository.addStationsSql("inserted")))) {
+            statement.setInt(1, provider.getId());
+            statement.setInt(2, provider.getId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the value is a station ID that fits the {@code BIGINT} column; a single out-of-range value would otherwise abort the whole {@code COPY}.
+     */
+    static boolean isStationId(String value) {
+        if (value == null || !value.strip().matches("\\d+")) {
+            return false;
+        }
+        try {
+            Long.parseLong(value.strip());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    static String getLocation(Map<String, String> record, Providers provider) {
+        String location = firstNonBlank(record, "location");
+        if (location != null) {
+            return location;
+        }
+        String latitude = firstNonBlank(record, "latitude", "lat");
+        String longitude = firstNonBlank(record, "longitude", "lon", "lng");
+        return latitude != null && longitude != null ? GeoPoint.toStationLocation(provider.getId(), latitude.strip(), longitude.strip()) : null;
+    }
+
+    private static String getMaxPowerKw(Map<String, String> record) {
+        String maxPowerKw = firstNonBlank(record, "max_power_kw", "power_kw");
+        if (maxPowerKw == null) {
+            return null;
+        }
+        String normalized = maxPowerKw.strip().replace(',', '.');
+        return normalized.matches("\\d+(\\.\\d+)?") ? normalized : null;
+    }
+
+    private static Map<String, String> lowerCaseKeys(Map<String, String> record) {
+        Map<String, String> lowerCased = new HashMap<>(record.size() * 2);
+        record.forEach((key, value) -> lowerCased.put(key.strip().toLowerCase(Locale.ROOT), value));
+        return lowerCased;
+    }
+
+    private static String firstNonBlank(Map<String, String> record, String... columns) {
+        for (String column : columns) {
+            String value = record.get(column);
+            if (value != null && !value.isBlank()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appends one row in {@code COPY} text format: tab separated, {@code \N} for null, with backslash, tab and line breaks escaped.
+     */
+    private static void appendCopyRow(StringBuilder buffer, String stationId, String friendlyName, String address, String location, String maxPowerKw) {
+        buffer.append(stationId);
+        for (String value : new String[] { friendlyName, address, location, maxPowerKw }) {
+            buffer.append('\t');
+            if (value == null) {
+                buffer.append("\\N");
+                continue;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\t' -> buffer.append("\\t");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    default -> buffer.append(c);
+                }
+            }
+        }
+        buffer.append('\n');
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private record CopyStats(long staged, long skipped) {
+    }
+}
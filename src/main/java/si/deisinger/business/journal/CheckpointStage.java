@@ -0,0 +1,15 @@
+package si.deisinger.business.journal;
+
+/**
+ * The last completed stage of an unfinished provider run. A run that has sent its email is complete and has no checkpoint.
+ */
+public enum CheckpointStage {
+    /** All responses were fetched; their archived snapshot hashes are recorded. */
+    FETCHED,
+    /** The new station IDs are recorded. */
+    DIFFED,
+    /** The new stations are committed; only notifications are left. */
+    PERSISTED,
+    /** Area subscribers were alerted and the export was requested; only the new-stations email is left. */
+    NOTIFIED
+}
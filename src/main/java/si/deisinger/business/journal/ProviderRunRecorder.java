@@ -0,0 +1,125 @@
+package si.deisinger.business.journal;
+
+import si.deisinger.business.controller.ApiController;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Collects the measurements of one provider check. Not thread-safe; a recorder belongs to the thread running the check. Only its {@link #getTransfers() transfer counter} may be shared with requests the check runs in
+ * parallel.
+ */
+public final class ProviderRunRecorder {
+
+    private final Providers provider;
+    private final Instant startedAt = Instant.now();
+    private final long startedNanos = System.nanoTime();
+    private final long[] stageNanos = new long[RunStage.values().length];
+    private final ApiController.TransferCounter transfers = new ApiController.TransferCounter();
+    private int stationsFetched;
+    private int newStations;
+    private int stationsInserted;
+    private String error;
+
+    public ProviderRunRecorder(Providers provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * Runs the action and adds its duration to the given stage.
+     *
+     * @param stage
+     *         the stage the action belongs to
+     * @param action
+     *         the action to run
+     * @param <T>
+     *         the result type
+     *
+     * @return the action's result
+     */
+    public <T> T call(RunStage stage, Supplier<T> action) {
+        long started = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            addStageNanos(stage, System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Runs the action and adds its duration to the given stage.
+     *
+     * @param stage
+     *         the stage the action belongs to
+     * @param action
+     *         the action to run
+     */
+    public void run(RunStage stage, Runnable action) {
+        long started = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            addStageNanos(stage, System.nanoTime() - started);
+        }
+    }
+
+    public void addStageNanos(RunStage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+    }
+
+    public void setStationsFetched(int stationsFetched) {
+        this.stationsFetched = stationsFetched;
+    }
+
+    public void setNewStations(int newStations) {
+        this.newStations = newStations;
+    }
+
+    public void addStationsInserted(int stationsInserted) {
+        this.stationsInserted += stationsInserted;
+    }
+
+    public void failed(Exception e) {
+        this.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+
+    Providers getProvider() {
+        return provider;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    long getElapsedNanos() {
+        return System.nanoTime() - startedNanos;
+    }
+
+    long getStageMillis(RunStage stage) {
+        return stageNanos[stage.ordinal()] / 1_000_000;
+    }
+
+    /**
+     * Returns the counter of the bytes transferred by this check's requests, to pass to {@link ApiController}.
+     */
+    public ApiController.TransferCounter getTransfers() {
+        return transfers;
+    }
+
+    int getStationsFetched() {
+        return stationsFetched;
+    }
+
+    int getNewStations() {
+        return newStations;
+    }
+
+    int getStationsInserted() {
+        return stationsInserted;
+    }
+
+    String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,33 @@
+package si.deisinger.business.journal;
+
+import si.deisinger.business.registry.LongHashSet;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * The saved progress of an unfinished provider run.
+ *
+ * @param startedAt
+ *         when the interrupted run started
+ * @param stage
+ *         the last completed stage
+ * @param snapshots
+ *         the archived snapshot hash of every response the run fetched, by request key
+ * @param newStationIds
+ *         the new station IDs found by the diff, or {@code null} before {@link CheckpointStage#DIFFED}
+ */
+public record RunCheckpoint(Instant startedAt, CheckpointStage stage, Map<String, String> snapshots, LongHashSet newStationIds) {
+
+    public boolean isDiffed() {
+        return stage != CheckpointStage.FETCHED;
+    }
+
+    public boolean isPersisted() {
+        return stage == CheckpointStage.PERSISTED || stage == CheckpointStage.NOTIFIED;
+    }
+
+    public boolean isNotified() {
+        return stage == CheckpointStage.NOTIFIED;
+    }
+}
@@ -0,0 +1,119 @@
+package si.deisinger.business.journal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.entity.ProviderRunCheckpointEntity;
+import si.deisinger.business.exceptions.JsonParsingException;
+import si.deisinger.business.registry.LongHashSet;
+import si.deisinger.business.repository.ProviderRunCheckpointRepository;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stage checkpoints of provider runs, stored in {@code provider_run_checkpoint}.
+ * <p>
+ * A run records the snapshot hashes of its responses once fetched, the new station IDs once diffed, in the insert transaction itself that the stations are persisted, and that the area alerts went out. The
+ * checkpoint is deleted after the notification email was sent. The next run of a provider with a checkpoint resumes from it: archived responses are reused instead of fetched, the recorded diff is used instead of
+ * recomputed, persisted stations are not inserted again and stations whose area alerts were sent only get the email. Checkpoints older than {@code checkpoint.max-age} are discarded, as their data is too stale to finish.
+ */
+@ApplicationScoped
+public class RunCheckpoints {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RunCheckpoints.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> SNAPSHOTS_TYPE = new TypeReference<>() {
+    };
+
+    private final ProviderRunCheckpointRepository providerRunCheckpointRepository;
+    private final Duration maxAge;
+
+    public RunCheckpoints(ProviderRunCheckpointRepository providerRunCheckpointRepository, @ConfigProperty(name = "checkpoint.max-age", defaultValue = "24h") Duration maxAge) {
+        this.providerRunCheckpointRepository = providerRunCheckpointRepository;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Returns the checkpoint of an interrupted run of the provider, if it is recent enough to resume.
+     *
+     * @param provider
+     *         the provider
+     *
+     * @return the checkpoint to resume from
+     */
+    public Optional<RunCheckpoint> findResumable(Providers provider) {
+        Optional<ProviderRunCheckpointEntity> stored = providerRunCheckpointRepository.findCheckpoint(provider);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        ProviderRunCheckpointEntity checkpoint = stored.get();
+        if (checkpoint.getStartedAt().isBefore(Instant.now().minus(maxAge))) {
+            LOG.warn("Discarding checkpoint of provider {} from {} ({}), older than {}", provider, checkpoint.getStartedAt(), checkpoint.getStage(), maxAge);
+            providerRunCheckpointRepository.deleteCheckpoint(provider);
+            return Optional.empty();
+        }
+        LongHashSet newStationIds = null;
+        if (checkpoint.getNewStationIds() != null) {
+            newStationIds = new LongHashSet(checkpoint.getNewStationIds().length);
+            for (long id : checkpoint.getNewStationIds()) {
+                newStationIds.add(id);
+            }
+        }
+        try {
+            return Optional.of(new RunCheckpoint(checkpoint.getStartedAt(), CheckpointStage.valueOf(checkpoint.getStage()), OBJECT_MAPPER.readValue(checkpoint.getSnapshots(), SNAPSHOTS_TYPE), newStationIds));
+        } catch (JsonProcessingException e) {
+            throw new JsonParsingException("Failed to parse checkpoint snapshots of provider " + provider, e);
+        }
+    }
+
+    /**
+     * Starts a new checkpoint after all responses were fetched, replacing any previous one.
+     *
+     * @param provider
+     *         the provider
+     * @param startedAt
+     *         when the run started
+     * @param snapshots
+     *         the snapshot hash of every fetched response, by request key
+     */
+    public void fetched(Providers provider, Instant startedAt, Map<String, String> snapshots) {
+        try {
+            providerRunCheckpointRepository.startCheckpoint(new ProviderRunCheckpointEntity(provider.getId(), startedAt, OBJECT_MAPPER.writeValueAsString(snapshots)));
+        } catch (JsonProcessingException e) {
+            throw new JsonParsingException("Failed to serialize checkpoint snapshots of provider " + provider, e);
+        }
+    }
+
+    public void diffed(Providers provider, LongHashSet newStationIds) {
+        providerRunCheckpointRepository.markDiffed(provider, newStationIds.toArray());
+    }
+
+    /**
+     * Records that the new stations are stored. Must be called in the transaction inserting them.
+     */
+    public void persisted(Providers provider) {
+        providerRunCheckpointRepository.markPersisted(provider);
+    }
+
+    /**
+     * Records that the area alerts were sent and the export was requested, so a resumed run only sends the email.
+     */
+    public void notified(Providers provider) {
+        providerRunCheckpointRepository.markNotified(provider);
+    }
+
+    /**
+     * Deletes the checkpoint of a finished run.
+     */
+    public void completed(Providers provider) {
+        providerRunCheckpointRepository.deleteCheckpoint(provider);
+    }
+}
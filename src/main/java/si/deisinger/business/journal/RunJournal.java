@@ -0,0 +1,84 @@
+package si.deisinger.business.journal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.controller.EmailController;
+import si.deisinger.business.entity.ProviderRunEntity;
+import si.deisinger.business.repository.ProviderRunRepository;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Journals every provider check into the {@code provider_run} table.
+ * <p>
+ * A check that takes longer than {@code journal.slow-run-threshold} is logged as a warning, counted in the {@value #SLOW_RUNS_METRIC} metric and reported by email.
+ */
+@ApplicationScoped
+public class RunJournal {
+
+    static final String SLOW_RUNS_METRIC = "provider.run.slow";
+    private static final int MAX_ERROR_LENGTH = 4000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(RunJournal.class);
+
+    private final ProviderRunRepository providerRunRepository;
+    private final EmailController emailController;
+    private final MeterRegistry meterRegistry;
+    private final Duration slowRunThreshold;
+
+    public RunJournal(ProviderRunRepository providerRunRepository, EmailController emailController, MeterRegistry meterRegistry,
+            @ConfigProperty(name = "journal.slow-run-threshold", defaultValue = "10m") Duration slowRunThreshold) {
+        this.providerRunRepository = providerRunRepository;
+        this.emailController = emailController;
+        this.meterRegistry = meterRegistry;
+        this.slowRunThreshold = slowRunThreshold;
+    }
+
+    /**
+     * Starts recording a provider check.
+     *
+     * @param provider
+     *         the provider being checked
+     *
+     * @return the recorder to pass through the check
+     */
+    public ProviderRunRecorder start(Providers provider) {
+        return new ProviderRunRecorder(provider);
+    }
+
+    /**
+     * Writes the run to the journal and raises the slow-run alert if needed. Never throws, so journaling cannot hide the outcome of the check itself.
+     *
+     * @param run
+     *         the finished run
+     */
+    public void finish(ProviderRunRecorder run) {
+        Providers provider = run.getProvider();
+        Duration duration = Duration.ofNanos(run.getElapsedNanos());
+        String error = run.getError() != null && run.getError().length() > MAX_ERROR_LENGTH ? run.getError().substring(0, MAX_ERROR_LENGTH) : run.getError();
+        LOG.info("Provider {} run finished in {} ms (fetch {} ms, parse {} ms, diff {} ms, persist {} ms, notify {} ms, {} bytes on the wire)", provider, duration.toMillis(), run.getStageMillis(RunStage.FETCH),
+                run.getStageMillis(RunStage.PARSE), run.getStageMillis(RunStage.DIFF), run.getStageMillis(RunStage.PERSIST), run.getStageMillis(RunStage.NOTIFY), run.getTransfers().getWireBytes());
+        try {
+            providerRunRepository.addRun(new ProviderRunEntity(provider.getId(), run.getStartedAt(), run.getStartedAt().plus(duration), duration.toMillis(), run.getStageMillis(RunStage.FETCH), run.getStageMillis(RunStage.PARSE),
+                    run.getStageMillis(RunStage.DIFF), run.getStageMillis(RunStage.PERSIST), run.getStageMillis(RunStage.NOTIFY), run.getTransfers().getWireBytes(), run.getTransfers().getDecodedBytes(), run.getStationsFetched(),
+                    run.getNewStations(), run.getStationsInserted(), error));
+        } catch (Exception e) {
+            LOG.error("Failed to journal run of provider {}: {}", provider, e.getMessage(), e);
+        }
+        if (duration.compareTo(slowRunThreshold) > 0) {
+            alertSlowRun(provider, run.getStartedAt(), duration);
+        }
+    }
+
+    private void alertSlowRun(Providers provider, Instant startedAt, Duration duration) {
+        LOG.warn("Provider {} run started at {} took {} ms, above the slow-run threshold of {} ms", provider, startedAt, duration.toMillis(), slowRunThreshold.toMillis());
+        Counter.builder(SLOW_RUNS_METRIC).tag("provider", provider.getProviderName()).register(meterRegistry).increment();
+        emailController.sendSlowRunAlert(provider, duration, slowRunThreshold);
+    }
+}
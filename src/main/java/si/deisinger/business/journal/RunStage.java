@@ -0,0 +1,17 @@
+package si.deisinger.business.journal;
+
+/**
+ * The stages of a provider check whose durations are recorded in the run journal.
+ */
+public enum RunStage {
+    /** Requests to the provider API (or reads from the snapshot archive when replaying). */
+    FETCH,
+    /** JSON deserialization and filtering of the responses. */
+    PARSE,
+    /** Comparing the fetched station IDs with the known stations. */
+    DIFF,
+    /** Inserting new stations and queueing their webhook events. */
+    PERSIST,
+    /** Email and area alerts. */
+    NOTIFY
+}
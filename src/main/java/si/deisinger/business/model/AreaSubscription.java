@@ -0,0 +1,24 @@
+package si.deisinger.business.model;
+
+/**
+ * An area subscription for new-station alerts. Either {@code latitude}, {@code longitude} and {@code radiusMeters}, or {@code polygon} must be set.
+ *
+ * @param id
+ *         the subscription id (ignored on registration)
+ * @param email
+ *         the address alerts are sent to
+ * @param latitude
+ *         latitude of the circle center
+ * @param longitude
+ *         longitude of the circle center
+ * @param radiusMeters
+ *         the circle radius in meters
+ * @param polygon
+ *         the polygon vertices as {@code [latitude, longitude]} pairs
+ * @param provider
+ *         optional provider name to restrict alerts to
+ * @param minPowerKw
+ *         optional minimum station power
+ */
+public record AreaSubscription(Long id, String email, Double latitude, Double longitude, Double radiusMeters, double[][] polygon, String provider, Double minPowerKw) {
+}
@@ -0,0 +1,27 @@
+package si.deisinger.business.model;
+
+import java.util.Map;
+
+/**
+ * Estimated heap footprint of the in-memory station catalog compared with holding the same stations as entities.
+ *
+ * @param stations
+ *         the number of stations in the catalog
+ * @param columnBytes
+ *         estimated bytes per column array
+ * @param dictionaryBytes
+ *         estimated bytes per string dictionary, including the distinct strings
+ * @param distinctStrings
+ *         distinct strings per dictionary
+ * @param catalogBytes
+ *         estimated total bytes of the catalog
+ * @param entityBytes
+ *         estimated bytes of the same stations as {@code ChargingStationsEntity} objects
+ * @param bytesPerStation
+ *         catalog bytes per station
+ * @param entityBytesPerStation
+ *         entity bytes per station
+ */
+public record CatalogFootprint(int stations, Map<String, Long> columnBytes, Map<String, Long> dictionaryBytes, Map<String, Integer> distinctStrings, long catalogBytes, long entityBytes, double bytesPerStation,
+        double entityBytesPerStation) {
+}
@@ -0,0 +1,14 @@
+package si.deisinger.business.model;
+
+/**
+ * A stations-along-a-route request.
+ *
+ * @param polyline
+ *         the route as an encoded polyline
+ * @param bufferMeters
+ *         the maximum distance of a station from the route
+ * @param precision
+ *         the polyline precision, {@code 5} (default) or {@code 6}
+ */
+public record CorridorQuery(String polyline, Double bufferMeters, Integer precision) {
+}
@@ -0,0 +1,24 @@
+package si.deisinger.business.model;
+
+/**
+ * A station within the corridor around a route.
+ *
+ * @param stationId
+ *         the provider's station id
+ * @param provider
+ *         the provider name
+ * @param friendlyName
+ *         the station name
+ * @param address
+ *         the station address
+ * @param latitude
+ *         the station latitude
+ * @param longitude
+ *         the station longitude
+ * @param distanceFromRouteMeters
+ *         the distance to the closest point of the route
+ * @param distanceAlongRouteMeters
+ *         the distance from the route start to that closest point
+ */
+public record CorridorStation(Long stationId, String provider, String friendlyName, String address, double latitude, double longitude, double distanceFromRouteMeters, double distanceAlongRouteMeters) {
+}
@@ -0,0 +1,16 @@
+package si.deisinger.business.model;
+
+/**
+ * Station numbers of one municipality.
+ *
+ * @param municipality
+ *         the municipality name, or {@code null} for stations outside every known boundary or not yet assigned
+ * @param statisticalRegion
+ *         the statistical region of the municipality
+ * @param stationCount
+ *         the number of stations
+ * @param totalPowerKw
+ *         the summed maximum power of the stations with known power
+ */
+public record MunicipalityCoverage(String municipality, String statisticalRegion, long stationCount, double totalPowerKw) {
+}
@@ -0,0 +1,43 @@
+package si.deisinger.business.model;
+
+import java.time.Instant;
+
+/**
+ * One journaled provider check.
+ *
+ * @param provider
+ *         the provider name
+ * @param startedAt
+ *         when the check started
+ * @param finishedAt
+ *         when the check finished
+ * @param durationMs
+ *         the total duration
+ * @param fetchMs
+ *         time spent on provider requests
+ * @param parseMs
+ *         time spent deserializing and filtering responses
+ * @param diffMs
+ *         time spent comparing against the known stations
+ * @param persistMs
+ *         time spent inserting new stations
+ * @param notifyMs
+ *         time spent on email and area alerts
+ * @param wireBytes
+ *         bytes received from the provider, before decoding
+ * @param decodedBytes
+ *         bytes received from the provider, after decoding
+ * @param stationsFetched
+ *         the number of stations in the provider's response
+ * @param newStations
+ *         the number of stations not known before the run
+ * @param stationsInserted
+ *         the number of stations stored
+ * @param succeeded
+ *         whether the check completed without error
+ * @param error
+ *         the error that ended the check, if any
+ */
+public record ProviderRun(String provider, Instant startedAt, Instant finishedAt, long durationMs, long fetchMs, long parseMs, long diffMs, long persistMs, long notifyMs, long wireBytes, long decodedBytes,
+                          int stationsFetched, int newStations, int stationsInserted, boolean succeeded, String error) {
+}
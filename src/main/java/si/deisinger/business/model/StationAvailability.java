@@ -0,0 +1,33 @@
+package si.deisinger.business.model;
+
+import java.time.LocalDate;
+
+/**
+ * Time the EVSEs of a station spent in each status over a range of rolled-up days.
+ *
+ * @param provider
+ *         the provider name
+ * @param stationId
+ *         the provider's station ID
+ * @param from
+ *         the first day included
+ * @param to
+ *         the last day included
+ * @param evses
+ *         the number of EVSEs with data in the range
+ * @param availableSeconds
+ *         EVSE-seconds available
+ * @param occupiedSeconds
+ *         EVSE-seconds occupied
+ * @param faultySeconds
+ *         EVSE-seconds faulty or out of service
+ * @param unknownSeconds
+ *         EVSE-seconds without a known status
+ * @param utilization
+ *         occupied share of the time the EVSEs were in service, or {@code null} without such time
+ * @param uptime
+ *         in-service share of the time with a known status, or {@code null} without such time
+ */
+public record StationAvailability(String provider, long stationId, LocalDate from, LocalDate to, int evses, long availableSeconds, long occupiedSeconds, long faultySeconds, long unknownSeconds, Double utilization,
+        Double uptime) {
+}
@@ -0,0 +1,21 @@
+package si.deisinger.business.model;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * A station as published in change notifications (e.g. webhook payloads).
+ *
+ * @param stationId
+ *         the provider's station id
+ * @param friendlyName
+ *         the station name
+ * @param address
+ *         the station address
+ * @param location
+ *         the station location as stored by the provider
+ * @param maxPowerKw
+ *         the maximum charging power, if known
+ */
+@RegisterForReflection
+public record StationChange(Long stationId, String friendlyName, String address, String location, Double maxPowerKw) {
+}
@@ -0,0 +1,16 @@
+package si.deisinger.business.model;
+
+import java.time.LocalDate;
+
+/**
+ * Stations a provider added in one period.
+ *
+ * @param periodStart
+ *         the first day of the day, week (Monday) or month
+ * @param provider
+ *         the provider name
+ * @param added
+ *         the number of stations first seen in the period
+ */
+public record StationGrowth(LocalDate periodStart, String provider, long added) {
+}
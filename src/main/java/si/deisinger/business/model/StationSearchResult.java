@@ -0,0 +1,20 @@
+package si.deisinger.business.model;
+
+/**
+ * A station matched by the fuzzy station search.
+ *
+ * @param stationId
+ *         the provider's station id
+ * @param provider
+ *         the provider name
+ * @param friendlyName
+ *         the station name
+ * @param address
+ *         the station address
+ * @param location
+ *         the station location as stored by the provider
+ * @param score
+ *         the trigram word similarity between the query and the station, from 0 to 1
+ */
+public record StationSearchResult(Long stationId, String provider, String friendlyName, String address, String location, double score) {
+}
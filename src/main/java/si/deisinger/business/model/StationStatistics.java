@@ -0,0 +1,18 @@
+package si.deisinger.business.model;
+
+/**
+ * Aggregated station numbers for one provider, region and power class.
+ *
+ * @param provider
+ *         the provider name
+ * @param region
+ *         the region derived from the postal code, or {@code UNKNOWN}
+ * @param powerClass
+ *         {@code AC} (up to 22 kW), {@code DC} (up to 50 kW), {@code HPC} (above 50 kW) or {@code UNKNOWN}
+ * @param stationCount
+ *         the number of stations
+ * @param totalPowerKw
+ *         the summed maximum power of the stations with known power
+ */
+public record StationStatistics(String provider, String region, String powerClass, long stationCount, double totalPowerKw) {
+}
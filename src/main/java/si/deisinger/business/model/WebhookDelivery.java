@@ -0,0 +1,22 @@
+package si.deisinger.business.model;
+
+/**
+ * A webhook delivery claimed from the queue by the dispatcher.
+ *
+ * @param id
+ *         the delivery id
+ * @param attempt
+ *         the number of this attempt, starting at 1
+ * @param subscriptionId
+ *         the subscriber
+ * @param url
+ *         the subscriber's endpoint
+ * @param secret
+ *         the subscriber's signing secret
+ * @param maxConcurrency
+ *         the maximum number of concurrent requests to the subscriber
+ * @param payload
+ *         the JSON payload
+ */
+public record WebhookDelivery(long id, int attempt, long subscriptionId, String url, String secret, int maxConcurrency, String payload) {
+}
@@ -0,0 +1,16 @@
+package si.deisinger.business.model;
+
+/**
+ * A webhook subscription as registered through the REST API.
+ *
+ * @param id
+ *         the subscription id (ignored on registration)
+ * @param url
+ *         the endpoint payloads are POSTed to
+ * @param secret
+ *         the HMAC-SHA256 signing secret; generated on registration if omitted, never returned when listing
+ * @param maxConcurrency
+ *         the maximum number of concurrent requests to the endpoint, defaults to 2
+ */
+public record WebhookSubscription(Long id, String url, String secret, Integer maxConcurrency) {
+}
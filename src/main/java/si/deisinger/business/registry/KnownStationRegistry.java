@@ -0,0 +1,101 @@
+package si.deisinger.business.registry;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.repository.ChargingStationsRepository;
+import si.deisinger.providers.enums.Providers;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-provider cache of the station IDs already stored in the database, held as primitive {@link LongHashSet}s.
+ * <p>
+ * The IDs of a provider are loaded once and then kept up to date in place by {@link #addStationIds(Providers, long[])} after every insert made by the application. Writes that bypass the application (manual SQL, imports)
+ * bump the provider's counter in {@code provider_station_version}; the registry compares that counter before each diff and reloads the provider when it changed. On an unchanged run this costs a single primary key lookup
+ * instead of loading every station.
+ */
+@ApplicationScoped
+public class KnownStationRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KnownStationRegistry.class);
+
+    private final ChargingStationsRepository chargingStationsRepository;
+    private final Map<Providers, KnownStations> knownStations = new EnumMap<>(Providers.class);
+
+    public KnownStationRegistry(ChargingStationsRepository chargingStationsRepository) {
+        this.chargingStationsRepository = chargingStationsRepository;
+    }
+
+    /**
+     * Returns the IDs that are not yet stored for the provider. Duplicate IDs in the input are reported once.
+     *
+     * @param provider
+     *         the provider
+     * @param apiStationIds
+     *         the station IDs reported by the provider's API
+     *
+     * @return the new station IDs
+     */
+    public synchronized LongHashSet findNewStationIds(Providers provider, long[] apiStationIds) {
+        LongHashSet known = getKnownStations(provider).ids();
+        LOG.info("Charging stations in DB: {}, Charging stations online: {}", known.size(), apiStationIds.length);
+        LongHashSet newStationIds = new LongHashSet();
+        for (long id : apiStationIds) {
+            if (!known.contains(id)) {
+                newStationIds.add(id);
+            }
+        }
+        return newStationIds;
+    }
+
+    /**
+     * Records station IDs the application has just committed to the database.
+     *
+     * @param provider
+     *         the provider
+     * @param stationIds
+     *         the inserted station IDs
+     */
+    public synchronized void addStationIds(Providers provider, long[] stationIds) {
+        KnownStations cached = knownStations.get(provider);
+        if (cached == null) {
+            // Not loaded yet; the next lookup loads the IDs including these.
+            return;
+        }
+        for (long id : stationIds) {
+            cached.ids().add(id);
+        }
+    }
+
+    /**
+     * Drops the cached IDs of all providers, e.g. after a bulk import.
+     */
+    public synchronized void invalidateAll() {
+        knownStations.clear();
+    }
+
+    private KnownStations getKnownStations(Providers provider) {
+        long version = chargingStationsRepository.findStationVersion(provider);
+        KnownStations cached = knownStations.get(provider);
+        if (cached != null && cached.version() == version) {
+            return cached;
+        }
+        if (cached != null) {
+            LOG.info("Stations of provider {} were changed outside the application (version {} -> {}), reloading", provider, cached.version(), version);
+        }
+        // The version is read before the IDs: a concurrent external write is at worst picked up again on the next check.
+        long[] ids = chargingStationsRepository.findStationIdsByProvider(provider);
+        LongHashSet idSet = new LongHashSet(ids.length);
+        for (long id : ids) {
+            idSet.add(id);
+        }
+        KnownStations loaded = new KnownStations(version, idSet);
+        knownStations.put(provider, loaded);
+        return loaded;
+    }
+
+    private record KnownStations(long version, LongHashSet ids) {
+    }
+}
@@ -0,0 +1,146 @@
+package si.deisinger.business.registry;
+
+import java.util.Arrays;
+
+/**
+ * Minimal open-addressing hash set of primitive {@code long} values (linear probing, power-of-two capacity). Avoids the boxing and per-entry node allocation of {@code HashSet<Long>}.
+ * <p>
+ * Not thread-safe.
+ */
+public final class LongHashSet {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] table;
+    private int size;
+    private boolean containsEmptyMarker;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        table = newTable(capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value
+     *         the value to add
+     *
+     * @return {@code true} if the value was not yet present
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmptyMarker) {
+                return false;
+            }
+            containsEmptyMarker = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        size++;
+        if (size > table.length * LOAD_FACTOR) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmptyMarker;
+        }
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the values of the set in no particular order.
+     *
+     * @return a new array with all values
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int i = 0;
+        if (containsEmptyMarker) {
+            values[i++] = EMPTY;
+        }
+        for (long value : table) {
+            if (value != EMPTY) {
+                values[i++] = value;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldTable = table;
+        table = newTable(newCapacity);
+        int mask = newCapacity - 1;
+        for (long value : oldTable) {
+            if (value != EMPTY) {
+                int index = mix(value) & mask;
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+
+    private static long[] newTable(int capacity) {
+        long[] newTable = new long[capacity];
+        Arrays.fill(newTable, EMPTY);
+        return newTable;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Spreads station ids, which are often small and sequential, over the table (Murmur3 finalizer).
+     */
+    private static int mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
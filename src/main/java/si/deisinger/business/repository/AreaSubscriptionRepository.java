@@ -0,0 +1,29 @@
+package si.deisinger.business.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import si.deisinger.business.entity.AreaSubscriptionEntity;
+
+import java.util.List;
+
+@ApplicationScoped
+public class AreaSubscriptionRepository implements PanacheRepository<AreaSubscriptionEntity> {
+
+    @Transactional
+    public AreaSubscriptionEntity addSubscription(AreaSubscriptionEntity subscription) {
+        persist(subscription);
+        return subscription;
+    }
+
+    @Transactional
+    public List<AreaSubscriptionEntity> findActiveSubscriptions() {
+        return list("active", Sort.ascending("id"), true);
+    }
+
+    @Transactional
+    public boolean deactivateSubscription(long id) {
+        return update("active = false where id = ?1 and active = true", id) > 0;
+    }
+}
@@ -4,24 +4,144 @@ import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
 import si.deisinger.business.entity.ChargingStationsEntity;
+import si.deisinger.business.model.MunicipalityCoverage;
+import si.deisinger.business.model.StationSearchResult;
 import si.deisinger.providers.enums.Providers;
 
-import java.util.LinkedHashSet;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class ChargingStationsRepository implements PanacheRepository<ChargingStationsEntity> {
 
+    private static final int SEEN_UPDATE_BATCH = 5000;
+
+    private final StationStatisticsRepository stationStatisticsRepository;
+    private final StationGrowthRepository stationGrowthRepository;
+
+    public ChargingStationsRepository(StationStatisticsRepository stationStatisticsRepository, StationGrowthRepository stationGrowthRepository) {
+        this.stationStatisticsRepository = stationStatisticsRepository;
+        this.stationGrowthRepository = stationGrowthRepository;
+    }
+
+    /**
+     * Inserts new stations, first seen now, and adds them to the station statistics and growth rollups in the same transaction. The insert is marked as managed, so it does not bump {@code provider_station_version}; the
+     * caller updates the {@code KnownStationRegistry} itself.
+     */
     @Transactional
     public void addChargingStationList(List<ChargingStationsEntity> chargingStationsEntityList) {
+        markManagedWrite();
+        Instant now = Instant.now();
+        chargingStationsEntityList.forEach(station -> station.setSeen(now));
         persist(chargingStationsEntityList);
+        flush();
+        List<Long> rowIds = chargingStationsEntityList.stream().map(ChargingStationsEntity::getId).toList();
+        stationStatisticsRepository.addStations(rowIds);
+        stationGrowthRepository.addStations(rowIds);
+    }
+
+    /**
+     * Sets {@code last_seen} of the provider's stations that appeared in the latest provider response. Marked as a managed write, as it does not change which stations exist.
+     *
+     * @param provider
+     *         the provider
+     * @param stationIds
+     *         the station IDs in the response
+     * @param seenAt
+     *         when the response was fetched
+     *
+     * @return the number of stations updated
+     */
+    @Transactional
+    public int markStationsSeen(Providers provider, long[] stationIds, Instant seenAt) {
+        markManagedWrite();
+        int updated = 0;
+        for (int start = 0; start < stationIds.length; start += SEEN_UPDATE_BATCH) {
+            List<Long> batch = Arrays.stream(stationIds, start, Math.min(start + SEEN_UPDATE_BATCH, stationIds.length)).boxed().toList();
+            updated += getEntityManager().createNativeQuery("UPDATE charging_stations SET last_seen = :seenAt WHERE provider = :provider AND station_id IN (:ids) AND (last_seen IS NULL OR last_seen < :seenAt)")
+                    .setParameter("seenAt", seenAt).setParameter("provider", provider.getId()).setParameter("ids", batch).executeUpdate();
+        }
+        return updated;
+    }
+
+    @Transactional
+    public long[] findStationIdsByProvider(Providers provider) {
+        List<Long> stationIds = getEntityManager().createQuery("SELECT c.stationId FROM ChargingStationsEntity c WHERE c.provider = ?1 AND c.stationId IS NOT NULL", Long.class).setParameter(1, provider.getId()).getResultList();
+        return stationIds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Returns the change counter of the provider's stations, which is bumped by a trigger on every write that is not marked as managed.
+     */
+    @Transactional
+    public long findStationVersion(Providers provider) {
+        Number version = (Number) getEntityManager().createNativeQuery("SELECT version FROM provider_station_version WHERE provider = :provider").setParameter("provider", provider.getId()).getSingleResult();
+        return version.longValue();
+    }
+
+    /**
+     * Returns a key that changes whenever stations are inserted by the application (the highest id grows), written by anything else (the {@code provider_station_version} counters grow) or have a cached column
+     * updated by the application, e.g. by the municipality backfill ({@code station_content_version} grows).
+     */
+    @Transactional
+    public long[] findStationSetVersion() {
+        Object[] row = (Object[]) getEntityManager().createNativeQuery(
+                "SELECT (SELECT coalesce(max(id), 0) FROM charging_stations), (SELECT coalesce(sum(version), 0) FROM provider_station_version), (SELECT coalesce(max(version), 0) FROM station_content_version)")
+                .getSingleResult();
+        return new long[] { ((Number) row[0]).longValue(), ((Number) row[1]).longValue(), ((Number) row[2]).longValue() };
+    }
+
+    @Transactional
+    public List<ChargingStationsEntity> findAllStations() {
+        return listAll();
+    }
+
+    /**
+     * Counts stations and their power per municipality, optionally restricted to one provider.
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<MunicipalityCoverage> findMunicipalityCoverage(Providers provider) {
+        List<Object[]> rows = getEntityManager().createNativeQuery(
+                        "SELECT municipality, statistical_region, count(*), coalesce(sum(max_power_kw), 0) FROM charging_stations WHERE (:provider IS NULL OR provider = :provider) GROUP BY municipality, statistical_region ORDER BY statistical_region, municipality")
+                .setParameter("provider", StationStatisticsRepository.providerParameter(provider)).getResultList();
+        return rows.stream().map(row -> new MunicipalityCoverage((String) row[0], (String) row[1], ((Number) row[2]).longValue(), ((Number) row[3]).doubleValue())).toList();
+    }
+
+    /**
+     * Marks the writes of the current transaction as managed by the application, see {@link #findStationVersion(Providers)}.
+     */
+    private void markManagedWrite() {
+        getEntityManager().createNativeQuery("SELECT set_config('css.registry_managed_write', 'on', true)").getSingleResult();
     }
 
+    /**
+     * Searches stations by name and address, ignoring case and diacritics and tolerating misspellings. Matching uses trigram word similarity backed by the {@code charging_stations_search_trgm_idx} GIN index.
+     *
+     * @param query
+     *         the search text, e.g. a partial street name
+     * @param similarityThreshold
+     *         the minimum word similarity (0 to 1) a station must reach
+     * @param limit
+     *         the maximum number of results
+     *
+     * @return matching stations ordered by descending similarity
+     */
     @Transactional
-    public Set<Long> findStationIdsByProvider(Providers provider) {
-        List<ChargingStationsEntity> stations = list("provider", provider.getId());
-        return stations.stream().map(ChargingStationsEntity::getStationId).collect(Collectors.toCollection(LinkedHashSet::new));
+    @SuppressWarnings("unchecked")
+    public List<StationSearchResult> searchStations(String query, double similarityThreshold, int limit) {
+        // Scoped to the current transaction, so the pooled connection keeps its default threshold.
+        getEntityManager().createNativeQuery("SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)").setParameter("threshold", String.valueOf(similarityThreshold)).getSingleResult();
+        List<Object[]> rows = getEntityManager().createNativeQuery("""
+                SELECT station_id, provider, friendly_name, address, location,
+                       word_similarity(public.unaccent('public.unaccent', lower(:query)), station_search_text(friendly_name, address)) AS score
+                FROM charging_stations
+                WHERE public.unaccent('public.unaccent', lower(:query)) <% station_search_text(friendly_name, address)
+                ORDER BY score DESC, friendly_name
+                LIMIT :limit
+                """).setParameter("query", query).setParameter("limit", limit).getResultList();
+        return rows.stream().map(row -> new StationSearchResult(row[0] != null ? ((Number) row[0]).longValue() : null, Providers.fromId(((Number) row[1]).intValue()).map(Providers::getProviderName).orElse(String.valueOf(row[1])), (String) row[2],
+                (String) row[3], (String) row[4], ((Number) row[5]).doubleValue())).toList();
     }
 }
@@ -0,0 +1,54 @@
+package si.deisinger.business.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import si.deisinger.business.entity.ProviderRunCheckpointEntity;
+import si.deisinger.providers.enums.Providers;
+
+import java.util.Optional;
+
+@ApplicationScoped
+public class ProviderRunCheckpointRepository implements PanacheRepositoryBase<ProviderRunCheckpointEntity, Integer> {
+
+    @Transactional
+    public Optional<ProviderRunCheckpointEntity> findCheckpoint(Providers provider) {
+        return findByIdOptional(provider.getId());
+    }
+
+    /**
+     * Replaces the provider's checkpoint with a new {@code FETCHED} one.
+     */
+    @Transactional
+    public void startCheckpoint(ProviderRunCheckpointEntity checkpoint) {
+        deleteById(checkpoint.getProvider());
+        flush();
+        persist(checkpoint);
+    }
+
+    @Transactional
+    public void markDiffed(Providers provider, long[] newStationIds) {
+        findByIdOptional(provider.getId()).ifPresent(checkpoint -> {
+            checkpoint.setNewStationIds(newStationIds);
+            checkpoint.setStage("DIFFED");
+        });
+    }
+
+    /**
+     * Marks the new stations as persisted. Joins the caller's transaction, so the mark commits together with the inserted stations.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void markPersisted(Providers provider) {
+        findByIdOptional(provider.getId()).ifPresent(checkpoint -> checkpoint.setStage("PERSISTED"));
+    }
+
+    @Transactional
+    public void markNotified(Providers provider) {
+        findByIdOptional(provider.getId()).ifPresent(checkpoint -> checkpoint.setStage("NOTIFIED"));
+    }
+
+    @Transactional
+    public void deleteCheckpoint(Providers provider) {
+        deleteById(provider.getId());
+    }
+}
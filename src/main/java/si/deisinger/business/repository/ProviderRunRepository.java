@@ -0,0 +1,33 @@
+package si.deisinger.business.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import si.deisinger.business.entity.ProviderRunEntity;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.Instant;
+import java.util.List;
+
+@ApplicationScoped
+public class ProviderRunRepository implements PanacheRepository<ProviderRunEntity> {
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void addRun(ProviderRunEntity run) {
+        persist(run);
+    }
+
+    /**
+     * Finds the most recent runs started at or after {@code since}, newest first.
+     */
+    @Transactional
+    public List<ProviderRunEntity> findRuns(Providers provider, Instant since, int limit) {
+        Sort newestFirst = Sort.descending("startedAt");
+        if (provider == null) {
+            return find("startedAt >= ?1", newestFirst, since).page(Page.ofSize(limit)).list();
+        }
+        return find("provider = ?1 and startedAt >= ?2", newestFirst, provider.getId(), since).page(Page.ofSize(limit)).list();
+    }
+}
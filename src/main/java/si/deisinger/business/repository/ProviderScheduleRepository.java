@@ -0,0 +1,25 @@
+package si.deisinger.business.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import si.deisinger.business.entity.ProviderScheduleEntity;
+
+import java.util.List;
+
+@ApplicationScoped
+public class ProviderScheduleRepository implements PanacheRepositoryBase<ProviderScheduleEntity, Integer> {
+
+    @Transactional
+    public List<ProviderScheduleEntity> findSchedules() {
+        return listAll();
+    }
+
+    /**
+     * Inserts or updates a provider's schedule.
+     */
+    @Transactional
+    public void saveSchedule(ProviderScheduleEntity schedule) {
+        getEntityManager().merge(schedule);
+    }
+}
@@ -0,0 +1,72 @@
+package si.deisinger.business.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import si.deisinger.business.entity.ProviderSnapshotEntity;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@ApplicationScoped
+public class ProviderSnapshotRepository implements PanacheRepository<ProviderSnapshotEntity> {
+
+    @Transactional
+    public void addSnapshot(ProviderSnapshotEntity snapshot) {
+        persist(snapshot);
+    }
+
+    /**
+     * Finds the most recent snapshot of a request taken at or before the given time.
+     */
+    @Transactional
+    public Optional<ProviderSnapshotEntity> findLatestSnapshot(Providers provider, String requestKey, Instant at) {
+        return find("provider = ?1 and requestKey = ?2 and fetchedAt <= ?3", Sort.descending("fetchedAt"), provider.getId(), requestKey, at).firstResultOptional();
+    }
+
+    /**
+     * Deletes the snapshots taken before the cutoff, never touching the most recent snapshot of each provider request.
+     */
+    @Transactional
+    public int deleteSnapshotsOlderThan(Instant cutoff) {
+        return getEntityManager().createNativeQuery("""
+                DELETE FROM provider_snapshot s
+                WHERE s.fetched_at < :cutoff
+                  AND s.fetched_at < (SELECT max(l.fetched_at) FROM provider_snapshot l WHERE l.provider = s.provider AND l.request_key = s.request_key)
+                """).setParameter("cutoff", cutoff).executeUpdate();
+    }
+
+    /**
+     * Deletes the oldest snapshots, never touching the most recent snapshot of each provider request.
+     */
+    @Transactional
+    public int deleteOldestSnapshots(int limit) {
+        return getEntityManager().createNativeQuery("""
+                DELETE FROM provider_snapshot WHERE id IN (
+                    SELECT id FROM provider_snapshot s
+                    WHERE s.fetched_at < (SELECT max(l.fetched_at) FROM provider_snapshot l WHERE l.provider = s.provider AND l.request_key = s.request_key)
+                    ORDER BY s.fetched_at
+                    LIMIT :limit)
+                """).setParameter("limit", limit).executeUpdate();
+    }
+
+    /**
+     * Returns the total size of all distinct archived objects still referenced by the index.
+     */
+    @Transactional
+    public long sumReferencedObjectSize() {
+        Number size = (Number) getEntityManager().createNativeQuery("SELECT coalesce(sum(stored_size), 0) FROM (SELECT DISTINCT sha256, stored_size FROM provider_snapshot) objects").getSingleResult();
+        return size.longValue();
+    }
+
+    @Transactional
+    public Set<String> findReferencedHashes() {
+        List<String> hashes = getEntityManager().createQuery("SELECT DISTINCT s.sha256 FROM ProviderSnapshotEntity s", String.class).getResultList();
+        return new HashSet<>(hashes);
+    }
+}
@@ -0,0 +1,82 @@
+package si.deisinger.business.repository;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import si.deisinger.business.model.StationGrowth;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains the {@code station_growth} rollup table of stations added per provider and day, week and month. Like {@link StationStatisticsRepository}, it is only updated with the stations inserted by a run, so growth
+ * queries never scan {@code charging_stations}.
+ */
+@ApplicationScoped
+public class StationGrowthRepository {
+
+    private final EntityManager entityManager;
+
+    public StationGrowthRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Adds freshly inserted stations to the rollups by their {@code first_seen} time. Must run in the transaction that inserted them.
+     *
+     * @param rowIds
+     *         the {@code charging_stations.id} values of the inserted rows
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void addStations(Collection<Long> rowIds) {
+        if (rowIds.isEmpty()) {
+            return;
+        }
+        entityManager.createNativeQuery(addStationsSql("(SELECT provider, first_seen FROM charging_stations WHERE id IN (:ids) AND first_seen IS NOT NULL)")).setParameter("ids", rowIds).executeUpdate();
+    }
+
+    /**
+     * Returns the statement adding stations to the rollups. Shared with the bulk import, which runs it as a CTE over the rows it inserted.
+     *
+     * @param stations
+     *         the relation holding the stations to add, with {@code provider} and {@code first_seen} columns
+     *
+     * @return the {@code INSERT ... ON CONFLICT} statement
+     */
+    public static String addStationsSql(String stations) {
+        return """
+                INSERT INTO station_growth (granularity, period_start, provider, added)
+                SELECT g.granularity, date_trunc(g.granularity, s.first_seen AT TIME ZONE 'Europe/Ljubljana')::date, s.provider, count(*)
+                FROM %s s
+                CROSS JOIN (VALUES ('day'), ('week'), ('month')) AS g(granularity)
+                GROUP BY 1, 2, 3
+                ON CONFLICT (granularity, period_start, provider) DO UPDATE
+                    SET added = station_growth.added + excluded.added""".formatted(stations);
+    }
+
+    /**
+     * Returns the stations added per period.
+     *
+     * @param granularity
+     *         {@code day}, {@code week} or {@code month}
+     * @param provider
+     *         the provider, or {@code null} for all providers
+     * @param from
+     *         the first period start to include
+     * @param to
+     *         the last period start to include
+     *
+     * @return the rollup rows ordered by period and provider
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<StationGrowth> findGrowth(String granularity, Providers provider, LocalDate from, LocalDate to) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT period_start::text, provider, added FROM station_growth WHERE granularity = :granularity AND period_start BETWEEN :from AND :to AND (:provider IS NULL OR provider = :provider) ORDER BY period_start, provider")
+                .setParameter("granularity", granularity).setParameter("from", from).setParameter("to", to).setParameter("provider", StationStatisticsRepository.providerParameter(provider)).getResultList();
+        return rows.stream().map(row -> new StationGrowth(LocalDate.parse((String) row[0]), Providers.fromId(((Number) row[1]).intValue()).map(Providers::getProviderName).orElse(String.valueOf(row[1])),
+                ((Number) row[2]).longValue())).toList();
+    }
+}
@@ -0,0 +1,91 @@
+package si.deisinger.business.repository;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.hibernate.query.TypedParameterValue;
+import org.hibernate.type.StandardBasicTypes;
+import si.deisinger.business.model.StationStatistics;
+import si.deisinger.providers.enums.Providers;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains the {@code station_statistics} aggregate table. The table is only ever updated with the stations inserted by a run, so reads never need to scan {@code charging_stations}.
+ * <p>
+ * The aggregates only ever grow, on purpose: rows of {@code charging_stations} are never deleted and their address and power are never changed after the insert, so there is nothing to subtract. A station that
+ * disappears from its provider stays in the table (its {@code last_seen} stops advancing) and is still counted.
+ */
+@ApplicationScoped
+public class StationStatisticsRepository {
+
+    private final EntityManager entityManager;
+
+    public StationStatisticsRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Adds freshly inserted stations to the aggregates. Must run in the transaction that inserted them.
+     *
+     * @param rowIds
+     *         the {@code charging_stations.id} values of the inserted rows
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void addStations(Collection<Long> rowIds) {
+        if (rowIds.isEmpty()) {
+            return;
+        }
+        entityManager.createNativeQuery(addStationsSql("(SELECT provider, address, max_power_kw FROM charging_stations WHERE id IN (:ids)) AS stations")).setParameter("ids", rowIds).executeUpdate();
+    }
+
+    /**
+     * Returns the statement adding stations to the aggregates. Shared with the bulk import, which runs it as a CTE over the rows it inserted, so both paths classify and sum stations the same way.
+     *
+     * @param stations
+     *         the relation holding the stations to add, with {@code provider}, {@code address} and {@code max_power_kw} columns
+     *
+     * @return the {@code INSERT ... ON CONFLICT} statement
+     */
+    public static String addStationsSql(String stations) {
+        return """
+                INSERT INTO station_statistics (provider, region, power_class, station_count, total_power_kw)
+                SELECT provider, postal_region(address), station_power_class(max_power_kw), count(*), coalesce(sum(max_power_kw), 0)
+                FROM %s
+                GROUP BY 1, 2, 3
+                ON CONFLICT (provider, region, power_class) DO UPDATE
+                    SET station_count  = station_statistics.station_count + excluded.station_count,
+                        total_power_kw = station_statistics.total_power_kw + excluded.total_power_kw""".formatted(stations);
+    }
+
+    /**
+     * Returns the aggregates, optionally restricted to one provider.
+     *
+     * @param provider
+     *         the provider, or {@code null} for all providers
+     *
+     * @return the aggregates ordered by provider, region and power class
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<StationStatistics> findStatistics(Providers provider) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT provider, region, power_class, station_count, total_power_kw FROM station_statistics WHERE (:provider IS NULL OR provider = :provider) ORDER BY provider, region, power_class")
+                .setParameter("provider", providerParameter(provider)).getResultList();
+        return rows.stream().map(row -> new StationStatistics(Providers.fromId(((Number) row[0]).intValue()).map(Providers::getProviderName).orElse(String.valueOf(row[0])), (String) row[1], (String) row[2], ((Number) row[3]).longValue(),
+                ((Number) row[4]).doubleValue())).toList();
+    }
+
+    /**
+     * Returns the bind value of an optional provider filter written as {@code (:provider IS NULL OR provider = :provider)}. The value is typed, so a {@code null} is still bound as an integer.
+     *
+     * @param provider
+     *         the provider, or {@code null} for all providers
+     *
+     * @return the provider ID as a typed parameter value
+     */
+    static TypedParameterValue<Integer> providerParameter(Providers provider) {
+        return new TypedParameterValue<>(StandardBasicTypes.INTEGER, provider != null ? provider.getId() : null);
+    }
+}
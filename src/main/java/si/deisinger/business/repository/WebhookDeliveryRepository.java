@@ -0,0 +1,106 @@
+package si.deisinger.business.repository;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import si.deisinger.business.model.WebhookDelivery;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Postgres-backed webhook queue. Deliveries are claimed with {@code FOR UPDATE SKIP LOCKED} and a lease ({@code locked_until}), so several dispatchers (or instances) never deliver the same row concurrently and a
+ * crashed dispatcher's claims become due again once the lease expires.
+ */
+@ApplicationScoped
+public class WebhookDeliveryRepository {
+
+    private final EntityManager entityManager;
+
+    public WebhookDeliveryRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Stores an event and queues one delivery per active subscription. Joins the caller's transaction, so the event is committed together with the station changes it describes.
+     *
+     * @return the number of queued deliveries
+     */
+    @Transactional
+    public int enqueueEvent(Providers provider, String payload) {
+        return entityManager.createNativeQuery("""
+                WITH event AS (
+                    INSERT INTO webhook_event (provider, payload)
+                    SELECT :provider, :payload
+                    WHERE EXISTS (SELECT 1 FROM webhook_subscription WHERE active)
+                    RETURNING id)
+                INSERT INTO webhook_delivery (event_id, subscription_id)
+                SELECT event.id, s.id FROM event CROSS JOIN webhook_subscription s WHERE s.active
+                """).setParameter("provider", provider.getId()).setParameter("payload", payload).executeUpdate();
+    }
+
+    /**
+     * Claims due deliveries of active subscriptions and counts the attempt. A subscription's deliveries that are still leased count against its {@code max_concurrency}, so only free slots are claimed and every
+     * claimed delivery can be sent right away, also while earlier claims of the subscription are in flight.
+     *
+     * @param limit
+     *         the maximum number of deliveries to claim
+     * @param lease
+     *         how long the claim is held before the delivery becomes due again
+     *
+     * @return the claimed deliveries
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<WebhookDelivery> claimDueDeliveries(int limit, Duration lease) {
+        List<Object[]> rows = entityManager.createNativeQuery("""
+                WITH leased AS (
+                    SELECT subscription_id, count(*) AS in_flight FROM webhook_delivery
+                    WHERE status = 'PENDING' AND locked_until >= now()
+                    GROUP BY subscription_id
+                ), candidates AS (
+                    SELECT d.id, row_number() OVER (PARTITION BY d.subscription_id ORDER BY d.next_attempt_at) AS position, greatest(s.max_concurrency, 1) - coalesce(l.in_flight, 0) AS free_slots
+                    FROM webhook_delivery d JOIN webhook_subscription s ON s.id = d.subscription_id LEFT JOIN leased l ON l.subscription_id = d.subscription_id
+                    WHERE d.status = 'PENDING' AND d.next_attempt_at <= now() AND (d.locked_until IS NULL OR d.locked_until < now()) AND s.active
+                ), claimed AS (
+                    UPDATE webhook_delivery SET locked_until = now() + make_interval(secs => :leaseSeconds), attempts = attempts + 1
+                    WHERE id IN (
+                        SELECT d.id FROM webhook_delivery d
+                        WHERE d.id IN (SELECT id FROM candidates WHERE position <= free_slots)
+                          AND d.status = 'PENDING' AND (d.locked_until IS NULL OR d.locked_until < now())
+                        ORDER BY d.next_attempt_at
+                        LIMIT :limit
+                        FOR UPDATE SKIP LOCKED)
+                    RETURNING id, attempts, subscription_id, event_id)
+                SELECT c.id, c.attempts, s.id, s.url, s.secret, s.max_concurrency, e.payload
+                FROM claimed c
+                JOIN webhook_subscription s ON s.id = c.subscription_id
+                JOIN webhook_event e ON e.id = c.event_id
+                """).setParameter("leaseSeconds", lease.toSeconds()).setParameter("limit", limit).getResultList();
+        return rows.stream().map(row -> new WebhookDelivery(((Number) row[0]).longValue(), ((Number) row[1]).intValue(), ((Number) row[2]).longValue(), (String) row[3], (String) row[4], ((Number) row[5]).intValue(), (String) row[6]))
+                .toList();
+    }
+
+    @Transactional
+    public void markDelivered(long id) {
+        entityManager.createNativeQuery("UPDATE webhook_delivery SET status = 'DELIVERED', delivered_at = now(), locked_until = NULL, last_error = NULL WHERE id = :id").setParameter("id", id).executeUpdate();
+    }
+
+    /**
+     * Records a failed attempt.
+     *
+     * @param nextAttemptAt
+     *         when to retry, or {@code null} to give up and mark the delivery as failed
+     */
+    @Transactional
+    public void markAttemptFailed(long id, String error, Instant nextAttemptAt) {
+        if (nextAttemptAt == null) {
+            entityManager.createNativeQuery("UPDATE webhook_delivery SET status = 'FAILED', locked_until = NULL, last_error = :error WHERE id = :id").setParameter("error", error).setParameter("id", id).executeUpdate();
+            return;
+        }
+        entityManager.createNativeQuery("UPDATE webhook_delivery SET next_attempt_at = :nextAttemptAt, locked_until = NULL, last_error = :error WHERE id = :id").setParameter("nextAttemptAt", nextAttemptAt).setParameter("error", error)
+                .setParameter("id", id).executeUpdate();
+    }
+}
@@ -0,0 +1,34 @@
+package si.deisinger.business.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import si.deisinger.business.entity.WebhookSubscriptionEntity;
+
+import java.util.List;
+
+@ApplicationScoped
+public class WebhookSubscriptionRepository implements PanacheRepository<WebhookSubscriptionEntity> {
+
+    @Transactional
+    public WebhookSubscriptionEntity addSubscription(WebhookSubscriptionEntity subscription) {
+        persist(subscription);
+        return subscription;
+    }
+
+    @Transactional
+    public List<WebhookSubscriptionEntity> findActiveSubscriptions() {
+        return list("active", Sort.ascending("id"), true);
+    }
+
+    /**
+     * Deactivates a subscription; pending deliveries to it are dropped by the dispatcher.
+     *
+     * @return {@code true} if an active subscription was deactivated
+     */
+    @Transactional
+    public boolean deactivateSubscription(long id) {
+        return update("active = false where id = ?1 and active = true", id) > 0;
+    }
+}
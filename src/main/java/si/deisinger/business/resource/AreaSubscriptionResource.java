@@ -0,0 +1,114 @@
+package si.deisinger.business.resource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import si.deisinger.business.entity.AreaSubscriptionEntity;
+import si.deisinger.business.exceptions.JsonParsingException;
+import si.deisinger.business.geo.GeoPoint;
+import si.deisinger.business.model.AreaSubscription;
+import si.deisinger.business.repository.AreaSubscriptionRepository;
+import si.deisinger.business.subscription.AreaSubscriptionMatcher;
+import si.deisinger.providers.enums.Providers;
+
+import java.util.List;
+
+/**
+ * REST endpoints to manage area subscriptions for new-station alerts.
+ */
+@Path("/area-subscriptions")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class AreaSubscriptionResource {
+
+    private static final double MAX_RADIUS_METERS = 300_000;
+    private static final int MAX_POLYGON_VERTICES = 1000;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final AreaSubscriptionRepository areaSubscriptionRepository;
+    private final AreaSubscriptionMatcher areaSubscriptionMatcher;
+
+    public AreaSubscriptionResource(AreaSubscriptionRepository areaSubscriptionRepository, AreaSubscriptionMatcher areaSubscriptionMatcher) {
+        this.areaSubscriptionRepository = areaSubscriptionRepository;
+        this.areaSubscriptionMatcher = areaSubscriptionMatcher;
+    }
+
+    @POST
+    public AreaSubscription subscribe(AreaSubscription request) {
+        if (request == null || request.email() == null || !request.email().contains("@")) {
+            throw new BadRequestException("A valid 'email' is required");
+        }
+        Integer providerId = request.provider() == null ? null : Providers.fromName(request.provider()).map(Providers::getId).orElseThrow(() -> new BadRequestException("Unknown provider: " + request.provider()));
+        AreaSubscriptionEntity subscription;
+        if (request.polygon() != null) {
+            validatePolygon(request.polygon());
+            subscription = new AreaSubscriptionEntity(request.email(), null, null, null, toJson(request.polygon()), providerId, request.minPowerKw());
+        } else {
+            if (request.latitude() == null || request.longitude() == null || request.radiusMeters() == null || !new GeoPoint(request.latitude(), request.longitude()).isValid()) {
+                throw new BadRequestException("Either 'polygon' or valid 'latitude', 'longitude' and 'radiusMeters' are required");
+            }
+            if (request.radiusMeters() <= 0 || request.radiusMeters() > MAX_RADIUS_METERS) {
+                throw new BadRequestException("'radiusMeters' must be between 0 and " + (long) MAX_RADIUS_METERS);
+            }
+            subscription = new AreaSubscriptionEntity(request.email(), request.latitude(), request.longitude(), request.radiusMeters(), null, providerId, request.minPowerKw());
+        }
+        areaSubscriptionRepository.addSubscription(subscription);
+        areaSubscriptionMatcher.invalidate();
+        return toModel(subscription);
+    }
+
+    @GET
+    public List<AreaSubscription> list() {
+        return areaSubscriptionRepository.findActiveSubscriptions().stream().map(AreaSubscriptionResource::toModel).toList();
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public void unsubscribe(@PathParam("id") long id) {
+        if (!areaSubscriptionRepository.deactivateSubscription(id)) {
+            throw new NotFoundException("No active area subscription with id " + id);
+        }
+        areaSubscriptionMatcher.invalidate();
+    }
+
+    private static void validatePolygon(double[][] polygon) {
+        if (polygon.length < 3 || polygon.length > MAX_POLYGON_VERTICES) {
+            throw new BadRequestException("'polygon' must have between 3 and " + MAX_POLYGON_VERTICES + " vertices");
+        }
+        for (double[] vertex : polygon) {
+            if (vertex == null || vertex.length != 2 || !new GeoPoint(vertex[0], vertex[1]).isValid()) {
+                throw new BadRequestException("'polygon' vertices must be valid [latitude, longitude] pairs");
+            }
+        }
+    }
+
+    private static AreaSubscription toModel(AreaSubscriptionEntity subscription) {
+        double[][] polygon = null;
+        if (subscription.getPolygon() != null) {
+            try {
+                polygon = OBJECT_MAPPER.readValue(subscription.getPolygon(), double[][].class);
+            } catch (JsonProcessingException e) {
+                throw new JsonParsingException("Failed to parse polygon of area subscription " + subscription.getId(), e);
+            }
+        }
+        String provider = subscription.getProvider() == null ? null : Providers.fromId(subscription.getProvider()).map(Providers::getProviderName).orElse(null);
+        return new AreaSubscription(subscription.getId(), subscription.getEmail(), subscription.getCenterLat(), subscription.getCenterLon(), subscription.getRadiusM(), polygon, provider, subscription.getMinPowerKw());
+    }
+
+    private static String toJson(double[][] polygon) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(polygon);
+        } catch (JsonProcessingException e) {
+            throw new JsonParsingException("Failed to serialize polygon", e);
+        }
+    }
+}
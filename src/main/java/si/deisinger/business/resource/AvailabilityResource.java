@@ -0,0 +1,65 @@
+package si.deisinger.business.resource;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import si.deisinger.business.availability.AvailabilityStore;
+import si.deisinger.business.model.StationAvailability;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * REST endpoint over the rolled-up EVSE availability.
+ */
+@Path("/availability")
+@Produces(MediaType.APPLICATION_JSON)
+public class AvailabilityResource {
+
+    private final AvailabilityStore availabilityStore;
+
+    public AvailabilityResource(AvailabilityStore availabilityStore) {
+        this.availabilityStore = availabilityStore;
+    }
+
+    /**
+     * Time in each status, utilization and uptime of a station, e.g. {@code GET /availability/MegaTel/1234?from=2025-01-01&to=2025-03-31}. Only closed days are included.
+     *
+     * @param providerName
+     *         the provider name
+     * @param stationId
+     *         the provider's station ID
+     * @param from
+     *         optional ISO date of the first day, defaults to 30 days ago
+     * @param to
+     *         optional ISO date of the last day, defaults to yesterday
+     *
+     * @return the availability of the station
+     */
+    @GET
+    @Path("/{provider}/{stationId}")
+    public StationAvailability getStationAvailability(@PathParam("provider") String providerName, @PathParam("stationId") long stationId, @QueryParam("from") String from, @QueryParam("to") String to) {
+        Providers provider = Providers.fromName(providerName).orElseThrow(() -> new NotFoundException("Unknown provider: " + providerName));
+        LocalDate toDate = parseDate("to", to, LocalDate.now().minusDays(1));
+        LocalDate fromDate = parseDate("from", from, toDate.minusDays(29));
+        if (fromDate.isAfter(toDate)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        return availabilityStore.findStationAvailability(provider, stationId, fromDate, toDate)
+                .orElseThrow(() -> new NotFoundException("No availability data for station " + stationId + " of provider " + providerName + " between " + fromDate + " and " + toDate));
+    }
+
+    private static LocalDate parseDate(String name, String value, LocalDate defaultValue) {
+        try {
+            return value == null ? defaultValue : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("'" + name + "' must be an ISO-8601 date, e.g. 2025-01-01");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package si.deisinger.business.resource;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import si.deisinger.business.entity.ProviderRunEntity;
+import si.deisinger.business.model.ProviderRun;
+import si.deisinger.business.repository.ProviderRunRepository;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * REST endpoint over the provider run journal.
+ */
+@Path("/runs")
+@Produces(MediaType.APPLICATION_JSON)
+public class ProviderRunResource {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final ProviderRunRepository providerRunRepository;
+
+    public ProviderRunResource(ProviderRunRepository providerRunRepository) {
+        this.providerRunRepository = providerRunRepository;
+    }
+
+    /**
+     * Journaled runs, newest first, e.g. {@code GET /runs?provider=Petrol&since=2025-01-01T00:00:00Z&limit=100}.
+     *
+     * @param providerName
+     *         optional provider name to restrict the result to
+     * @param since
+     *         optional ISO-8601 instant; only runs started at or after it are returned
+     * @param limit
+     *         the maximum number of runs (at most 1000)
+     *
+     * @return the runs
+     */
+    @GET
+    public List<ProviderRun> getRuns(@QueryParam("provider") String providerName, @QueryParam("since") String since, @QueryParam("limit") @DefaultValue("100") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("'limit' must be between 1 and " + MAX_LIMIT);
+        }
+        Providers provider = providerName == null ? null : Providers.fromName(providerName).orElseThrow(() -> new NotFoundException("Unknown provider: " + providerName));
+        Instant sinceInstant;
+        try {
+            sinceInstant = since == null ? Instant.EPOCH : Instant.parse(since);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("'since' must be an ISO-8601 instant, e.g. 2025-01-01T00:00:00Z");
+        }
+        return providerRunRepository.findRuns(provider, sinceInstant, limit).stream().map(ProviderRunResource::toModel).toList();
+    }
+
+    private static ProviderRun toModel(ProviderRunEntity run) {
+        String provider = Providers.fromId(run.getProvider()).map(Providers::getProviderName).orElse(String.valueOf(run.getProvider()));
+        return new ProviderRun(provider, run.getStartedAt(), run.getFinishedAt(), run.getDurationMs(), run.getFetchMs(), run.getParseMs(), run.getDiffMs(), run.getPersistMs(), run.getNotifyMs(), run.getWireBytes(),
+                run.getDecodedBytes(), run.getStationsFetched(), run.getNewStations(), run.getStationsInserted(), run.getSucceeded(), run.getError());
+    }
+}
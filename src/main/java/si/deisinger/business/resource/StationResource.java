@@ -0,0 +1,100 @@
+package si.deisinger.business.resource;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import si.deisinger.business.geo.CorridorSearch;
+import si.deisinger.business.geo.GeoPoint;
+import si.deisinger.business.geo.PolylineDecoder;
+import si.deisinger.business.model.CorridorQuery;
+import si.deisinger.business.model.CorridorStation;
+import si.deisinger.business.model.StationSearchResult;
+import si.deisinger.business.repository.ChargingStationsRepository;
+
+import java.util.List;
+
+/**
+ * Read-only REST endpoints over the stored charging stations.
+ */
+@Path("/stations")
+@Produces(MediaType.APPLICATION_JSON)
+public class StationResource {
+
+    private static final int MAX_LIMIT = 100;
+    private static final double MAX_BUFFER_METERS = 50_000;
+    private static final int MAX_POLYLINE_LENGTH = 1_000_000;
+
+    private final ChargingStationsRepository chargingStationsRepository;
+    private final CorridorSearch corridorSearch;
+    private final double similarityThreshold;
+
+    public StationResource(ChargingStationsRepository chargingStationsRepository, CorridorSearch corridorSearch,
+            @ConfigProperty(name = "search.similarity-threshold", defaultValue = "0.4") double similarityThreshold) {
+        this.chargingStationsRepository = chargingStationsRepository;
+        this.corridorSearch = corridorSearch;
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    /**
+     * Fuzzy search over station names and addresses, e.g. {@code GET /stations/search?q=celovska}.
+     *
+     * @param query
+     *         the search text
+     * @param limit
+     *         the maximum number of results (1 to 100)
+     *
+     * @return matching stations ordered by descending similarity
+     */
+    @GET
+    @Path("/search")
+    public List<StationSearchResult> search(@QueryParam("q") String query, @QueryParam("limit") @DefaultValue("20") int limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Query parameter 'q' is required");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Query parameter 'limit' must be between 1 and " + MAX_LIMIT);
+        }
+        return chargingStationsRepository.searchStations(query.trim(), similarityThreshold, limit);
+    }
+
+    /**
+     * Stations within a buffer around a route, e.g. {@code POST /stations/corridor} with {@code {"polyline": "...", "bufferMeters": 2000}}.
+     *
+     * @param query
+     *         the encoded route polyline and buffer distance
+     *
+     * @return stations ordered by their position along the route
+     */
+    @POST
+    @Path("/corridor")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public List<CorridorStation> corridor(CorridorQuery query) {
+        if (query == null || query.polyline() == null || query.polyline().isBlank()) {
+            throw new BadRequestException("'polyline' is required");
+        }
+        if (query.polyline().length() > MAX_POLYLINE_LENGTH) {
+            throw new BadRequestException("'polyline' must not be longer than " + MAX_POLYLINE_LENGTH + " characters");
+        }
+        if (query.bufferMeters() == null || query.bufferMeters() <= 0 || query.bufferMeters() > MAX_BUFFER_METERS) {
+            throw new BadRequestException("'bufferMeters' must be between 0 and " + (long) MAX_BUFFER_METERS);
+        }
+        int precision = query.precision() != null ? query.precision() : 5;
+        if (precision != 5 && precision != 6) {
+            throw new BadRequestException("'precision' must be 5 or 6");
+        }
+        List<GeoPoint> route;
+        try {
+            route = PolylineDecoder.decode(query.polyline().trim(), precision);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        return corridorSearch.findStationsAlongRoute(route, query.bufferMeters());
+    }
+}
@@ -0,0 +1,125 @@
+package si.deisinger.business.resource;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import si.deisinger.business.catalog.StationCatalogRegistry;
+import si.deisinger.business.model.CatalogFootprint;
+import si.deisinger.business.model.MunicipalityCoverage;
+import si.deisinger.business.model.StationGrowth;
+import si.deisinger.business.model.StationStatistics;
+import si.deisinger.business.repository.ChargingStationsRepository;
+import si.deisinger.business.repository.StationGrowthRepository;
+import si.deisinger.business.repository.StationStatisticsRepository;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * REST endpoint over the incrementally maintained station statistics.
+ */
+@Path("/statistics")
+@Produces(MediaType.APPLICATION_JSON)
+public class StatisticsResource {
+
+    private static final Set<String> GRANULARITIES = Set.of("day", "week", "month");
+
+    private final StationStatisticsRepository stationStatisticsRepository;
+    private final ChargingStationsRepository chargingStationsRepository;
+    private final StationGrowthRepository stationGrowthRepository;
+    private final StationCatalogRegistry stationCatalogRegistry;
+
+    public StatisticsResource(StationStatisticsRepository stationStatisticsRepository, ChargingStationsRepository chargingStationsRepository, StationGrowthRepository stationGrowthRepository,
+            StationCatalogRegistry stationCatalogRegistry) {
+        this.stationStatisticsRepository = stationStatisticsRepository;
+        this.chargingStationsRepository = chargingStationsRepository;
+        this.stationGrowthRepository = stationGrowthRepository;
+        this.stationCatalogRegistry = stationCatalogRegistry;
+    }
+
+    /**
+     * Station counts and power per provider, region and power class, e.g. {@code GET /statistics?provider=MegaTel}.
+     *
+     * @param providerName
+     *         optional provider name to restrict the result to
+     *
+     * @return the aggregates
+     */
+    @GET
+    public List<StationStatistics> getStatistics(@QueryParam("provider") String providerName) {
+        Providers provider = providerName == null ? null : Providers.fromName(providerName).orElseThrow(() -> new NotFoundException("Unknown provider: " + providerName));
+        return stationStatisticsRepository.findStatistics(provider);
+    }
+
+    /**
+     * Station counts and power per municipality, e.g. {@code GET /statistics/municipalities?provider=Petrol}.
+     *
+     * @param providerName
+     *         optional provider name to restrict the result to
+     *
+     * @return the coverage ordered by statistical region and municipality
+     */
+    @GET
+    @Path("/municipalities")
+    public List<MunicipalityCoverage> getMunicipalityCoverage(@QueryParam("provider") String providerName) {
+        Providers provider = providerName == null ? null : Providers.fromName(providerName).orElseThrow(() -> new NotFoundException("Unknown provider: " + providerName));
+        return chargingStationsRepository.findMunicipalityCoverage(provider);
+    }
+
+    /**
+     * Stations added per day, week or month, e.g. {@code GET /statistics/growth?granularity=month&provider=Petrol&from=2024-01-01&to=2024-12-31}. Weeks start on Monday; periods are in Slovenian local time.
+     *
+     * @param granularity
+     *         {@code day}, {@code week} or {@code month}
+     * @param providerName
+     *         optional provider name to restrict the result to
+     * @param from
+     *         optional ISO date; periods starting before it are excluded
+     * @param to
+     *         optional ISO date; periods starting after it are excluded
+     *
+     * @return the added stations per period and provider, oldest first
+     */
+    @GET
+    @Path("/growth")
+    public List<StationGrowth> getGrowth(@QueryParam("granularity") @DefaultValue("month") String granularity, @QueryParam("provider") String providerName, @QueryParam("from") String from,
+            @QueryParam("to") String to) {
+        if (!GRANULARITIES.contains(granularity)) {
+            throw new BadRequestException("'granularity' must be one of day, week or month");
+        }
+        Providers provider = providerName == null ? null : Providers.fromName(providerName).orElseThrow(() -> new NotFoundException("Unknown provider: " + providerName));
+        LocalDate fromDate = parseDate("from", from, LocalDate.EPOCH);
+        LocalDate toDate = parseDate("to", to, LocalDate.now().plusDays(1));
+        if (fromDate.isAfter(toDate)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        return stationGrowthRepository.findGrowth(granularity, provider, fromDate, toDate);
+    }
+
+    /**
+     * Estimated heap footprint of the in-memory station catalog, per column and dictionary, next to the estimate for the same stations held as entities: {@code GET /statistics/catalog}.
+     *
+     * @return the footprint of the current catalog
+     */
+    @GET
+    @Path("/catalog")
+    public CatalogFootprint getCatalogFootprint() {
+        return stationCatalogRegistry.get().footprint();
+    }
+
+    private static LocalDate parseDate(String name, String value, LocalDate defaultValue) {
+        try {
+            return value == null ? defaultValue : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("'" + name + "' must be an ISO-8601 date, e.g. 2025-01-01");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package si.deisinger.business.resource;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import si.deisinger.business.tiles.StationTiles;
+
+/**
+ * Serves station map tiles in the Mapbox Vector Tile format.
+ */
+@Path("/tiles")
+public class TileResource {
+
+    static final String MVT_MEDIA_TYPE = "application/vnd.mapbox-vector-tile";
+
+    private final StationTiles stationTiles;
+    private final int maxAgeSeconds;
+
+    public TileResource(StationTiles stationTiles, @ConfigProperty(name = "tiles.max-age", defaultValue = "300") int maxAgeSeconds) {
+        this.stationTiles = stationTiles;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    /**
+     * One tile of the {@code stations} layer, e.g. {@code GET /tiles/stations/8/139/90.mvt}. Tiles without stations are empty.
+     *
+     * @param z
+     *         the zoom level
+     * @param x
+     *         the tile column
+     * @param y
+     *         the tile row, counted from the north
+     *
+     * @return the encoded tile
+     */
+    @GET
+    @Path("/stations/{z}/{x}/{y}.mvt")
+    @Produces(MVT_MEDIA_TYPE)
+    public Response getStationTile(@PathParam("z") int z, @PathParam("x") int x, @PathParam("y") int y) {
+        byte[] tile;
+        try {
+            tile = stationTiles.getTile(z, x, y);
+        } catch (IllegalArgumentException e) {
+            throw new NotFoundException(e.getMessage());
+        }
+        return Response.ok(tile, MVT_MEDIA_TYPE).header("Cache-Control", "public, max-age=" + maxAgeSeconds).build();
+    }
+}
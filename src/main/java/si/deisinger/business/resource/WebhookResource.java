@@ -0,0 +1,83 @@
+package si.deisinger.business.resource;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import si.deisinger.business.entity.WebhookSubscriptionEntity;
+import si.deisinger.business.model.WebhookSubscription;
+import si.deisinger.business.repository.WebhookSubscriptionRepository;
+
+import java.net.URI;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * REST endpoints to register and remove webhook subscribers.
+ */
+@Path("/webhooks")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class WebhookResource {
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final int DEFAULT_MAX_CONCURRENCY = 2;
+
+    private final WebhookSubscriptionRepository webhookSubscriptionRepository;
+
+    public WebhookResource(WebhookSubscriptionRepository webhookSubscriptionRepository) {
+        this.webhookSubscriptionRepository = webhookSubscriptionRepository;
+    }
+
+    /**
+     * Registers a subscriber. The response contains the signing secret, which is not returned again.
+     */
+    @POST
+    public WebhookSubscription register(WebhookSubscription request) {
+        if (request == null || request.url() == null || !isHttpUrl(request.url())) {
+            throw new BadRequestException("An absolute http(s) 'url' is required");
+        }
+        int maxConcurrency = request.maxConcurrency() != null ? request.maxConcurrency() : DEFAULT_MAX_CONCURRENCY;
+        if (maxConcurrency < 1) {
+            throw new BadRequestException("'maxConcurrency' must be at least 1");
+        }
+        String secret = request.secret() != null && !request.secret().isBlank() ? request.secret() : generateSecret();
+        WebhookSubscriptionEntity subscription = webhookSubscriptionRepository.addSubscription(new WebhookSubscriptionEntity(request.url(), secret, maxConcurrency));
+        return new WebhookSubscription(subscription.getId(), subscription.getUrl(), secret, maxConcurrency);
+    }
+
+    @GET
+    public List<WebhookSubscription> list() {
+        return webhookSubscriptionRepository.findActiveSubscriptions().stream().map(s -> new WebhookSubscription(s.getId(), s.getUrl(), null, s.getMaxConcurrency())).toList();
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public void remove(@PathParam("id") long id) {
+        if (!webhookSubscriptionRepository.deactivateSubscription(id)) {
+            throw new NotFoundException("No active webhook subscription with id " + id);
+        }
+    }
+
+    private static boolean isHttpUrl(String url) {
+        try {
+            URI uri = URI.create(url);
+            return uri.isAbsolute() && ("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme())) && uri.getHost() != null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String generateSecret() {
+        byte[] secret = new byte[32];
+        SECURE_RANDOM.nextBytes(secret);
+        return HexFormat.of().formatHex(secret);
+    }
+}
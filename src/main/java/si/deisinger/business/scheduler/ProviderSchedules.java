@@ -0,0 +1,167 @@
+package si.deisinger.business.scheduler;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.entity.ProviderScheduleEntity;
+import si.deisinger.business.repository.ProviderScheduleRepository;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Adaptive, persisted check schedule of each provider.
+ * <p>
+ * After every check the provider's change rate (new stations per day) and fetch cost (check duration) are updated as exponentially weighted averages. The next interval aims at {@code scheduler.target-new-stations} new
+ * stations per check: a provider adding ten stations a day is checked more often than one that has not changed in weeks. The interval is stretched for expensive checks and shrunk for cheap ones (by the square root of the
+ * cost relative to {@code scheduler.reference-fetch-cost}, at most by a factor of two), may at most double per check, and always stays within {@code scheduler.min-interval} and {@code scheduler.max-interval}. Every
+ * next run is shifted by up to {@code scheduler.jitter} of the interval, so providers drift apart instead of fetching at the same moment.
+ * <p>
+ * A failed check is retried after {@code scheduler.min-interval}, doubling with every further failure up to the provider's regular interval.
+ * <p>
+ * The schedules are stored in {@code provider_schedule}, so restarts neither reset the learned intervals nor trigger a check of every provider.
+ */
+@ApplicationScoped
+public class ProviderSchedules {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProviderSchedules.class);
+    private static final double SMOOTHING = 0.3;
+    private static final double MAX_COST_FACTOR = 2.0;
+    private static final double MAX_GROWTH = 2.0;
+    private static final Duration INITIAL_STAGGER = Duration.ofMinutes(5);
+    private static final double SECONDS_PER_DAY = 86_400;
+
+    private final ProviderScheduleRepository providerScheduleRepository;
+    private final Duration initialInterval;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final double targetNewStations;
+    private final Duration referenceFetchCost;
+    private final double jitter;
+    private Map<Providers, ProviderScheduleEntity> schedules;
+
+    public ProviderSchedules(ProviderScheduleRepository providerScheduleRepository, @ConfigProperty(name = "scheduler.initial-interval", defaultValue = "12h") Duration initialInterval,
+            @ConfigProperty(name = "scheduler.min-interval", defaultValue = "1h") Duration minInterval, @ConfigProperty(name = "scheduler.max-interval", defaultValue = "48h") Duration maxInterval,
+            @ConfigProperty(name = "scheduler.target-new-stations", defaultValue = "1") double targetNewStations,
+            @ConfigProperty(name = "scheduler.reference-fetch-cost", defaultValue = "30s") Duration referenceFetchCost, @ConfigProperty(name = "scheduler.jitter", defaultValue = "0.1") double jitter) {
+        this.providerScheduleRepository = providerScheduleRepository;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval.compareTo(minInterval) < 0 ? minInterval : maxInterval;
+        this.initialInterval = clamp(initialInterval.getSeconds(), this.minInterval, this.maxInterval);
+        this.targetNewStations = Math.max(0.01, targetNewStations);
+        this.referenceFetchCost = referenceFetchCost;
+        this.jitter = Math.clamp(jitter, 0.0, 0.5);
+    }
+
+    /**
+     * Returns the providers whose next check is due. Providers without a schedule get one, due within the next few minutes, so first checks are spread out as well.
+     *
+     * @param providers
+     *         the providers to consider
+     * @param now
+     *         the current time
+     *
+     * @return the due providers, most overdue first
+     */
+    public synchronized List<Providers> findDueProviders(List<Providers> providers, Instant now) {
+        Map<Providers, ProviderScheduleEntity> loaded = getSchedules();
+        for (Providers provider : providers) {
+            if (!loaded.containsKey(provider)) {
+                ProviderScheduleEntity schedule = new ProviderScheduleEntity(provider.getId(), initialInterval.getSeconds(),
+                        now.plusMillis(ThreadLocalRandom.current().nextLong(INITIAL_STAGGER.toMillis())));
+                providerScheduleRepository.saveSchedule(schedule);
+                loaded.put(provider, schedule);
+                LOG.info("Scheduled first check of provider {} at {}", provider, schedule.getNextRunAt());
+            }
+        }
+        return providers.stream().filter(provider -> !loaded.get(provider).getNextRunAt().isAfter(now))
+                .sorted((a, b) -> loaded.get(a).getNextRunAt().compareTo(loaded.get(b).getNextRunAt())).toList();
+    }
+
+    /**
+     * Adapts the provider's interval to a successful check and schedules the next one.
+     *
+     * @param provider
+     *         the checked provider
+     * @param newStations
+     *         the number of new stations the check found
+     * @param fetchCost
+     *         how long the check took
+     * @param finishedAt
+     *         when the check finished
+     */
+    public synchronized void recordSuccess(Providers provider, int newStations, Duration fetchCost, Instant finishedAt) {
+        ProviderScheduleEntity schedule = getSchedule(provider, finishedAt);
+        long previousInterval = schedule.getIntervalSeconds();
+        double elapsedDays = (schedule.getLastRunAt() != null ? Duration.between(schedule.getLastRunAt(), finishedAt).getSeconds() : previousInterval) / SECONDS_PER_DAY;
+        double observedRate = newStations / Math.max(elapsedDays, minInterval.getSeconds() / SECONDS_PER_DAY);
+        double changeRate = schedule.getLastRunAt() != null ? smooth(schedule.getChangeRate(), observedRate) : observedRate;
+        double fetchCostMs = schedule.getFetchCostMs() != null ? smooth(schedule.getFetchCostMs(), fetchCost.toMillis()) : fetchCost.toMillis();
+
+        double intervalSeconds = changeRate > 0 ? targetNewStations / changeRate * SECONDS_PER_DAY : maxInterval.getSeconds();
+        double costFactor = Math.clamp(Math.sqrt(fetchCostMs / Math.max(1, referenceFetchCost.toMillis())), 1 / MAX_COST_FACTOR, MAX_COST_FACTOR);
+        intervalSeconds = Math.min(intervalSeconds * costFactor, previousInterval * MAX_GROWTH);
+        Duration interval = clamp((long) intervalSeconds, minInterval, maxInterval);
+
+        schedule.setChangeRate(changeRate);
+        schedule.setFetchCostMs(fetchCostMs);
+        schedule.setIntervalSeconds(interval.getSeconds());
+        schedule.setLastRunAt(finishedAt);
+        schedule.setConsecutiveFailures(0);
+        schedule.setNextRunAt(finishedAt.plus(withJitter(interval)));
+        providerScheduleRepository.saveSchedule(schedule);
+        LOG.info("Next check of provider {} at {} (interval {} min, {} new stations/day, check {} ms)", provider, schedule.getNextRunAt(), interval.toMinutes(), String.format("%.2f", changeRate),
+                Math.round(fetchCostMs));
+    }
+
+    /**
+     * Schedules a retry after a failed check. The learned interval is kept.
+     *
+     * @param provider
+     *         the checked provider
+     * @param finishedAt
+     *         when the check failed
+     */
+    public synchronized void recordFailure(Providers provider, Instant finishedAt) {
+        ProviderScheduleEntity schedule = getSchedule(provider, finishedAt);
+        int failures = schedule.getConsecutiveFailures() + 1;
+        long backoffSeconds = minInterval.getSeconds() << Math.min(failures - 1, 20);
+        Duration retry = Duration.ofSeconds(Math.min(backoffSeconds, schedule.getIntervalSeconds()));
+        schedule.setConsecutiveFailures(failures);
+        schedule.setNextRunAt(finishedAt.plus(withJitter(retry)));
+        providerScheduleRepository.saveSchedule(schedule);
+        LOG.info("Retrying provider {} at {} after {} consecutive failure(s)", provider, schedule.getNextRunAt(), failures);
+    }
+
+    private ProviderScheduleEntity getSchedule(Providers provider, Instant now) {
+        return getSchedules().computeIfAbsent(provider, p -> new ProviderScheduleEntity(p.getId(), initialInterval.getSeconds(), now));
+    }
+
+    private Map<Providers, ProviderScheduleEntity> getSchedules() {
+        if (schedules == null) {
+            Map<Providers, ProviderScheduleEntity> loaded = new EnumMap<>(Providers.class);
+            providerScheduleRepository.findSchedules().forEach(schedule -> Providers.fromId(schedule.getProvider()).ifPresent(provider -> loaded.put(provider, schedule)));
+            schedules = loaded;
+        }
+        return schedules;
+    }
+
+    private Duration withJitter(Duration interval) {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter + Double.MIN_VALUE);
+        return Duration.ofSeconds(Math.round(interval.getSeconds() * factor));
+    }
+
+    private static double smooth(double previous, double observed) {
+        return SMOOTHING * observed + (1 - SMOOTHING) * previous;
+    }
+
+    private static Duration clamp(long seconds, Duration min, Duration max) {
+        return Duration.ofSeconds(Math.clamp(seconds, min.getSeconds(), max.getSeconds()));
+    }
+}
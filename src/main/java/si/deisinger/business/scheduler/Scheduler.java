@@ -1,10 +1,13 @@
 package si.deisinger.business.scheduler;
 
 import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import si.deisinger.business.ProviderProcessor;
+import si.deisinger.business.archive.SnapshotArchive;
 import si.deisinger.business.exceptions.UnsupportedProviderException;
 import si.deisinger.providers.enums.Providers;
 import si.deisinger.providers.model.efrend.EfrendLocationPins;
@@ -13,46 +16,186 @@ import si.deisinger.providers.model.megatel.MegaTelLocationPins;
 import si.deisinger.providers.model.mooncharge.MoonChargeLocation;
 import si.deisinger.providers.model.petrol.PetrolLocations;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
 /**
  * Scheduler responsible for invoking periodic provider checks.
  * <p>
- * This scheduler iterates over the providers defined in the {@link Providers} enum and invokes {@link ProviderProcessor#checkProviderStations(Providers, Class)} for each.
+ * Every provider defined in the {@link Providers} enum has its own schedule, adapted to its change rate and check cost by {@link ProviderSchedules}. A short tick starts
+ * {@link ProviderProcessor#checkProviderStations(Providers, Class)} for every provider that is due and not already being checked.
  * <p>
+ * Providers are checked concurrently, each on its own virtual thread, so a provider waiting on its API or the database does not hold up the others and does not occupy a platform thread. At most
+ * {@code scheduler.provider-concurrency} providers run at once; requests to the same host are further bounded by the adaptive limiter in {@code ApiController}.
  */
 @ApplicationScoped
 public class Scheduler {
 
     private static final Logger LOG = LoggerFactory.getLogger(Scheduler.class);
     private final ProviderProcessor providerProcessor;
+    private final SnapshotArchive snapshotArchive;
+    private final ProviderSchedules providerSchedules;
+    private final Semaphore providerPermits;
+    private final Set<Providers> runningProviders = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
-    public Scheduler(ProviderProcessor providerProcessor) {
+    public Scheduler(ProviderProcessor providerProcessor, SnapshotArchive snapshotArchive, ProviderSchedules providerSchedules,
+            @ConfigProperty(name = "scheduler.provider-concurrency", defaultValue = "4") int providerConcurrency) {
         this.providerProcessor = providerProcessor;
+        this.snapshotArchive = snapshotArchive;
+        this.providerSchedules = providerSchedules;
+        this.providerPermits = new Semaphore(Math.max(1, providerConcurrency));
+    }
+
+    /**
+     * Returns the class the provider's location data is deserialized into.
+     *
+     * @param provider
+     *         the provider
+     *
+     * @return the location class, or an empty optional if the provider is disabled
+     *
+     * @throws UnsupportedProviderException
+     *         if the provider is not known to the scheduler
+     */
+    public static Optional<Class<?>> getLocationClass(Providers provider) throws UnsupportedProviderException {
+        return switch (provider) {
+            case GREMONAELEKTRIKO -> Optional.of(GNELocationPins.class);
+            case PETROL -> Optional.of(PetrolLocations[].class);
+            case MOONCHARGE -> Optional.of(MoonChargeLocation[].class);
+            case EFREND -> Optional.of(EfrendLocationPins.class);
+            case MEGATEL -> Optional.of(MegaTelLocationPins.class);
+            case IMPLERA, AVANT2GO -> Optional.empty(); // Not implemented due to SSL issues.
+            default -> throw new UnsupportedProviderException("Unexpected provider: " + provider);
+        };
     }
 
     /**
-     * The main scheduled method which checks each provider on a fixed interval.
-     * <p>
-     * The scheduling interval is parameterized via configuration (with a default of 12 hours).
+     * Starts the checks of the providers that are due. Returns without waiting for them; a provider still being checked is not started again.
      */
-    @Scheduled(every = "{scheduler.interval:12h}")
+    @Scheduled(every = "{scheduler.tick:1m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
     void schedule() {
-        for (Providers provider : Providers.values()) {
-            try {
-                LOG.info("Checking provider: {}", provider.getProviderName());
-                switch (provider) {
-                    case GREMONAELEKTRIKO -> providerProcessor.checkProviderStations(provider, GNELocationPins.class);
-                    case PETROL -> providerProcessor.checkProviderStations(provider, PetrolLocations[].class);
-                    case MOONCHARGE -> providerProcessor.checkProviderStations(provider, MoonChargeLocation[].class);
-                    case EFREND -> providerProcessor.checkProviderStations(provider, EfrendLocationPins.class);
-                    case MEGATEL -> providerProcessor.checkProviderStations(provider, MegaTelLocationPins.class);
-                    case IMPLERA, AVANT2GO -> // Not implemented due to SSL issues. Skip processing.
-                            LOG.info("Provider {} is disabled (not implemented)", provider.getProviderName());
-                    default -> throw new UnsupportedProviderException("Unexpected provider: " + provider);
+        for (Providers provider : providerSchedules.findDueProviders(getEnabledProviders(), Instant.now())) {
+            if (runningProviders.add(provider)) {
+                executor.submit(() -> {
+                    try {
+                        return runCheck(provider);
+                    } finally {
+                        runningProviders.remove(provider);
+                    }
+                });
+            }
+        }
+    }
+
+    @Scheduled(every = "{archive.retention-interval:12h}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void applyRetention() {
+        try {
+            snapshotArchive.applyRetention();
+        } catch (Exception e) {
+            LOG.error("Error while applying snapshot retention: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs one full cycle over all providers, regardless of their schedules, and waits for it. A failing provider is logged and does not stop the remaining ones.
+     *
+     * @return the number of providers whose check failed
+     */
+    public int checkAllProviders() {
+        int failedProviders = 0;
+        try {
+            // Providers the tick is already checking are left to that check.
+            List<Future<Boolean>> checks = Stream.of(Providers.values()).filter(runningProviders::add).map(provider -> executor.submit(() -> {
+                try {
+                    return runCheck(provider);
+                } finally {
+                    runningProviders.remove(provider);
+                }
+            })).toList();
+            for (Future<Boolean> check : checks) {
+                if (!check.get()) {
+                    failedProviders++;
                 }
-            } catch (Exception e) {
-                // Log error and continue with the next provider
-                LOG.error("Error while checking provider {}: {}", provider.getProviderName(), e.getMessage(), e);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking providers", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unexpected error while checking providers", e.getCause());
         }
+        applyRetention();
+        return failedProviders;
+    }
+
+    /**
+     * Checks one provider once a concurrency permit is free.
+     */
+    private boolean runCheck(Providers provider) throws InterruptedException {
+        providerPermits.acquire();
+        try {
+            return checkProvider(provider);
+        } finally {
+            providerPermits.release();
+        }
+    }
+
+    /**
+     * Checks one provider and schedules its next check. A failure is logged and does not affect the other providers.
+     *
+     * @param provider
+     *         the provider to check
+     *
+     * @return {@code false} if the check failed
+     */
+    private boolean checkProvider(Providers provider) {
+        long started = System.nanoTime();
+        try {
+            LOG.info("Checking provider: {}", provider.getProviderName());
+            Optional<Class<?>> locationClass = getLocationClass(provider);
+            if (locationClass.isEmpty()) {
+                LOG.info("Provider {} is disabled (not implemented)", provider.getProviderName());
+                return true;
+            }
+            int newStations = providerProcessor.checkProviderStations(provider, locationClass.get());
+            providerSchedules.recordSuccess(provider, newStations, Duration.ofNanos(System.nanoTime() - started), Instant.now());
+            return true;
+        } catch (Exception e) {
+            LOG.error("Error while checking provider {}: {}", provider.getProviderName(), e.getMessage(), e);
+            try {
+                providerSchedules.recordFailure(provider, Instant.now());
+            } catch (RuntimeException scheduleError) {
+                LOG.error("Failed to reschedule provider {}: {}", provider.getProviderName(), scheduleError.getMessage(), scheduleError);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns the providers that are implemented; disabled providers are not scheduled.
+     */
+    private static List<Providers> getEnabledProviders() {
+        return Stream.of(Providers.values()).filter(provider -> {
+            try {
+                return getLocationClass(provider).isPresent();
+            } catch (UnsupportedProviderException e) {
+                return false;
+            }
+        }).toList();
     }
 }
@@ -0,0 +1,86 @@
+package si.deisinger.business.subscription;
+
+import si.deisinger.business.geo.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable uniform-grid index over the bounding boxes of area subscriptions.
+ * <p>
+ * Every subscription is registered in each grid cell its bounding box overlaps. Looking up a station visits one cell and tests only the subscriptions registered there, so matching cost depends on how many areas overlap
+ * the station rather than on the total number of subscriptions. Areas spanning more than {@value #MAX_CELLS_PER_AREA} cells are kept in a separate list that is always tested.
+ */
+final class AreaSubscriptionIndex {
+
+    /** About 5.5 km north-south and 3.9 km east-west at Slovenian latitudes. */
+    private static final double CELL_DEGREES = 0.05;
+    private static final int MAX_CELLS_PER_AREA = 4096;
+    private static final int[] NO_CANDIDATES = new int[0];
+
+    private final SubscriptionArea[] areas;
+    private final Map<Long, int[]> cells;
+    private final int[] oversizedAreas;
+
+    AreaSubscriptionIndex(List<SubscriptionArea> subscriptionAreas) {
+        this.areas = subscriptionAreas.toArray(new SubscriptionArea[0]);
+        Map<Long, List<Integer>> cellLists = new HashMap<>();
+        List<Integer> oversized = new ArrayList<>();
+        for (int i = 0; i < areas.length; i++) {
+            SubscriptionArea area = areas[i];
+            int minRow = row(area.minLat);
+            int maxRow = row(area.maxLat);
+            int minColumn = column(area.minLon);
+            int maxColumn = column(area.maxLon);
+            if ((long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1) > MAX_CELLS_PER_AREA) {
+                oversized.add(i);
+                continue;
+            }
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minColumn; c <= maxColumn; c++) {
+                    cellLists.computeIfAbsent(key(r, c), k -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+        this.cells = new HashMap<>(cellLists.size() * 2);
+        cellLists.forEach((cell, list) -> cells.put(cell, list.stream().mapToInt(Integer::intValue).toArray()));
+        this.oversizedAreas = oversized.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    int size() {
+        return areas.length;
+    }
+
+    /**
+     * Returns the subscriptions whose area contains the point and whose filters accept the station.
+     */
+    List<SubscriptionArea> match(GeoPoint point, Integer provider, Double maxPowerKw) {
+        List<SubscriptionArea> matches = new ArrayList<>();
+        collect(cells.getOrDefault(key(row(point.latitude()), column(point.longitude())), NO_CANDIDATES), point, provider, maxPowerKw, matches);
+        collect(oversizedAreas, point, provider, maxPowerKw, matches);
+        return matches;
+    }
+
+    private void collect(int[] candidates, GeoPoint point, Integer provider, Double maxPowerKw, List<SubscriptionArea> matches) {
+        for (int candidate : candidates) {
+            SubscriptionArea area = areas[candidate];
+            if (area.accepts(provider, maxPowerKw) && area.contains(point)) {
+                matches.add(area);
+            }
+        }
+    }
+
+    private static int row(double latitude) {
+        return (int) Math.floor(latitude / CELL_DEGREES);
+    }
+
+    private static int column(double longitude) {
+        return (int) Math.floor(longitude / CELL_DEGREES);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+}
@@ -0,0 +1,125 @@
+package si.deisinger.business.subscription;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.controller.EmailController;
+import si.deisinger.business.entity.AreaSubscriptionEntity;
+import si.deisinger.business.entity.ChargingStationsEntity;
+import si.deisinger.business.exceptions.JsonParsingException;
+import si.deisinger.business.geo.GeoPoint;
+import si.deisinger.business.model.StationChange;
+import si.deisinger.business.repository.AreaSubscriptionRepository;
+import si.deisinger.providers.enums.Providers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Matches new stations against area subscriptions and emails each subscriber the stations in their area.
+ * <p>
+ * Subscriptions are held in an {@link AreaSubscriptionIndex} that is built from the database on first use and rebuilt after {@link #invalidate()}, which the REST API calls whenever a subscription changes. Every
+ * invalidation starts a new generation, and an index is only installed if no invalidation happened while it was built, so an index read before a change can never replace the rebuild that follows it.
+ */
+@ApplicationScoped
+public class AreaSubscriptionMatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AreaSubscriptionMatcher.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final AreaSubscriptionRepository areaSubscriptionRepository;
+    private final EmailController emailController;
+    private final AtomicReference<IndexGeneration> index = new AtomicReference<>(new IndexGeneration(0, null));
+
+    public AreaSubscriptionMatcher(AreaSubscriptionRepository areaSubscriptionRepository, EmailController emailController) {
+        this.areaSubscriptionRepository = areaSubscriptionRepository;
+        this.emailController = emailController;
+    }
+
+    /**
+     * Sends one email per subscriber listing the new stations in their areas.
+     *
+     * @param provider
+     *         the provider the stations belong to
+     * @param stations
+     *         the stations added by the run
+     */
+    public void notifyMatches(Providers provider, List<ChargingStationsEntity> stations) {
+        long started = System.nanoTime();
+        AreaSubscriptionIndex currentIndex = getIndex();
+        Map<String, List<StationChange>> stationsByEmail = new LinkedHashMap<>();
+        for (ChargingStationsEntity station : stations) {
+            Optional<GeoPoint> point = GeoPoint.fromStationLocation(station.getProvider(), station.getLocation());
+            if (point.isEmpty()) {
+                continue;
+            }
+            StationChange change = new StationChange(station.getStationId(), station.getFriendlyName(), station.getAddress(), station.getLocation(), station.getMaxPowerKw());
+            for (SubscriptionArea area : currentIndex.match(point.get(), station.getProvider(), station.getMaxPowerKw())) {
+                List<StationChange> matched = stationsByEmail.computeIfAbsent(area.email, email -> new ArrayList<>());
+                // Overlapping areas of the same subscriber must not list a station twice.
+                if (!matched.contains(change)) {
+                    matched.add(change);
+                }
+            }
+        }
+        LOG.info("Matched {} new stations of provider {} against {} area subscriptions in {} µs: {} subscribers to notify", stations.size(), provider, currentIndex.size(), (System.nanoTime() - started) / 1_000,
+                stationsByEmail.size());
+        stationsByEmail.forEach((email, matched) -> {
+            try {
+                emailController.sendAreaAlert(email, provider, OBJECT_MAPPER.writer().withDefaultPrettyPrinter().writeValueAsString(matched));
+            } catch (JsonProcessingException e) {
+                throw new JsonParsingException("Failed to serialize area alert for provider: " + provider, e);
+            }
+        });
+    }
+
+    /**
+     * Drops the index so it is rebuilt from the database on the next match.
+     */
+    public void invalidate() {
+        index.updateAndGet(current -> new IndexGeneration(current.generation() + 1, null));
+    }
+
+    private AreaSubscriptionIndex getIndex() {
+        IndexGeneration current = index.get();
+        if (current.index() != null) {
+            return current.index();
+        }
+        AreaSubscriptionIndex built = new AreaSubscriptionIndex(areaSubscriptionRepository.findActiveSubscriptions().stream().map(AreaSubscriptionMatcher::toArea).flatMap(Optional::stream).toList());
+        // Fails if invalidate() ran during the build; the next match then rebuilds from the changed subscriptions.
+        index.compareAndSet(current, new IndexGeneration(current.generation(), built));
+        return built;
+    }
+
+    private static Optional<SubscriptionArea> toArea(AreaSubscriptionEntity subscription) {
+        if (subscription.getPolygon() != null) {
+            try {
+                double[][] vertices = OBJECT_MAPPER.readValue(subscription.getPolygon(), double[][].class);
+                double[] lats = new double[vertices.length];
+                double[] lons = new double[vertices.length];
+                for (int i = 0; i < vertices.length; i++) {
+                    lats[i] = vertices[i][0];
+                    lons[i] = vertices[i][1];
+                }
+                return Optional.of(SubscriptionArea.polygon(subscription.getId(), subscription.getEmail(), subscription.getProvider(), subscription.getMinPowerKw(), lats, lons));
+            } catch (JsonProcessingException | ArrayIndexOutOfBoundsException e) {
+                LOG.warn("Ignoring area subscription {} with invalid polygon: {}", subscription.getId(), e.getMessage());
+                return Optional.empty();
+            }
+        }
+        return Optional.of(SubscriptionArea.circle(subscription.getId(), subscription.getEmail(), subscription.getProvider(), subscription.getMinPowerKw(), new GeoPoint(subscription.getCenterLat(), subscription.getCenterLon()),
+                subscription.getRadiusM()));
+    }
+
+    /**
+     * The index of one generation of subscriptions, or {@code null} until it is built.
+     */
+    private record IndexGeneration(long generation, AreaSubscriptionIndex index) {
+    }
+}
@@ -0,0 +1,95 @@
+package si.deisinger.business.subscription;
+
+import si.deisinger.business.geo.GeoPoint;
+
+/**
+ * Immutable, matching-ready form of an area subscription: a circle or a polygon with its bounding box and filters.
+ */
+final class SubscriptionArea {
+
+    final long id;
+    final String email;
+    final Integer provider;
+    final Double minPowerKw;
+    final double minLat;
+    final double maxLat;
+    final double minLon;
+    final double maxLon;
+
+    private final GeoPoint center;
+    private final double radiusMeters;
+    private final double[] polygonLats;
+    private final double[] polygonLons;
+
+    private SubscriptionArea(long id, String email, Integer provider, Double minPowerKw, GeoPoint center, double radiusMeters, double[] polygonLats, double[] polygonLons) {
+        this.id = id;
+        this.email = email;
+        this.provider = provider;
+        this.minPowerKw = minPowerKw;
+        this.center = center;
+        this.radiusMeters = radiusMeters;
+        this.polygonLats = polygonLats;
+        this.polygonLons = polygonLons;
+        if (polygonLats != null) {
+            double latMin = Double.POSITIVE_INFINITY;
+            double latMax = Double.NEGATIVE_INFINITY;
+            double lonMin = Double.POSITIVE_INFINITY;
+            double lonMax = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < polygonLats.length; i++) {
+                latMin = Math.min(latMin, polygonLats[i]);
+                latMax = Math.max(latMax, polygonLats[i]);
+                lonMin = Math.min(lonMin, polygonLons[i]);
+                lonMax = Math.max(lonMax, polygonLons[i]);
+            }
+            this.minLat = latMin;
+            this.maxLat = latMax;
+            this.minLon = lonMin;
+            this.maxLon = lonMax;
+        } else {
+            double dLat = radiusMeters / GeoPoint.METERS_PER_DEGREE_LATITUDE;
+            double dLon = radiusMeters / (GeoPoint.METERS_PER_DEGREE_LATITUDE * Math.max(0.01, Math.cos(Math.toRadians(center.latitude()))));
+            this.minLat = center.latitude() - dLat;
+            this.maxLat = center.latitude() + dLat;
+            this.minLon = center.longitude() - dLon;
+            this.maxLon = center.longitude() + dLon;
+        }
+    }
+
+    static SubscriptionArea circle(long id, String email, Integer provider, Double minPowerKw, GeoPoint center, double radiusMeters) {
+        return new SubscriptionArea(id, email, provider, minPowerKw, center, radiusMeters, null, null);
+    }
+
+    static SubscriptionArea polygon(long id, String email, Integer provider, Double minPowerKw, double[] lats, double[] lons) {
+        return new SubscriptionArea(id, email, provider, minPowerKw, null, 0, lats, lons);
+    }
+
+    /**
+     * Checks the provider and power filters.
+     */
+    boolean accepts(Integer stationProvider, Double stationMaxPowerKw) {
+        if (provider != null && !provider.equals(stationProvider)) {
+            return false;
+        }
+        return minPowerKw == null || (stationMaxPowerKw != null && stationMaxPowerKw >= minPowerKw);
+    }
+
+    /**
+     * Exact containment test: haversine distance for circles, ray casting for polygons.
+     */
+    boolean contains(GeoPoint point) {
+        if (point.latitude() < minLat || point.latitude() > maxLat || point.longitude() < minLon || point.longitude() > maxLon) {
+            return false;
+        }
+        if (polygonLats == null) {
+            return center.distanceMeters(point) <= radiusMeters;
+        }
+        boolean inside = false;
+        for (int i = 0, j = polygonLats.length - 1; i < polygonLats.length; j = i++) {
+            if ((polygonLats[i] > point.latitude()) != (polygonLats[j] > point.latitude())
+                    && point.longitude() < (polygonLons[j] - polygonLons[i]) * (point.latitude() - polygonLats[i]) / (polygonLats[j] - polygonLats[i]) + polygonLons[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,174 @@
+package si.deisinger.business.tiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes point features as a single-layer Mapbox Vector Tile (specification version 2.1), writing the protobuf wire format directly.
+ * <p>
+ * Only what station tiles need is supported: point geometries, a feature id, and string, integer, double and boolean attributes. Attribute keys and values are deduplicated per layer as the specification requires.
+ */
+final class MvtEncoder {
+
+    static final int EXTENT = 4096;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_FIXED64 = 1;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+    private static final int GEOMETRY_TYPE_POINT = 1;
+    private static final int COMMAND_MOVE_TO_ONE = (1 << 3) | 1;
+
+    private MvtEncoder() {
+    }
+
+    /**
+     * A point feature in tile coordinates.
+     *
+     * @param id
+     *         the feature id
+     * @param x
+     *         the x coordinate, 0 to {@link #EXTENT}
+     * @param y
+     *         the y coordinate, 0 to {@link #EXTENT}, growing downwards
+     * @param properties
+     *         the attributes; values must be {@link String}, {@link Long}, {@link Integer}, {@link Double} or {@link Boolean}, {@code null} values are skipped
+     */
+    record Feature(long id, int x, int y, Map<String, Object> properties) {
+    }
+
+    /**
+     * Encodes a tile with one layer.
+     *
+     * @param layerName
+     *         the layer name
+     * @param features
+     *         the features of the layer
+     *
+     * @return the encoded tile; an empty array if there are no features
+     */
+    static byte[] encode(String layerName, List<Feature> features) {
+        if (features.isEmpty()) {
+            return new byte[0];
+        }
+        Map<String, Integer> keys = new LinkedHashMap<>();
+        Map<Object, Integer> values = new LinkedHashMap<>();
+        List<byte[]> encodedFeatures = new ArrayList<>(features.size());
+        for (Feature feature : features) {
+            encodedFeatures.add(encodeFeature(feature, keys, values));
+        }
+
+        ProtobufWriter layer = new ProtobufWriter();
+        layer.writeUInt(15, 2);
+        layer.writeString(1, layerName);
+        for (byte[] feature : encodedFeatures) {
+            layer.writeBytes(2, feature);
+        }
+        for (String key : keys.keySet()) {
+            layer.writeString(3, key);
+        }
+        for (Object value : values.keySet()) {
+            layer.writeBytes(4, encodeValue(value));
+        }
+        layer.writeUInt(5, EXTENT);
+
+        ProtobufWriter tile = new ProtobufWriter();
+        tile.writeBytes(3, layer.toByteArray());
+        return tile.toByteArray();
+    }
+
+    private static byte[] encodeFeature(Feature feature, Map<String, Integer> keys, Map<Object, Integer> values) {
+        List<Integer> tags = new ArrayList<>(feature.properties().size() * 2);
+        feature.properties().forEach((key, value) -> {
+            if (value != null) {
+                Object normalized = value instanceof Integer i ? Long.valueOf(i) : value;
+                tags.add(keys.computeIfAbsent(key, k -> keys.size()));
+                tags.add(values.computeIfAbsent(normalized, v -> values.size()));
+            }
+        });
+        ProtobufWriter out = new ProtobufWriter();
+        out.writeUInt(1, feature.id());
+        out.writePackedUInts(2, tags.stream().mapToLong(Integer::longValue).toArray());
+        out.writeUInt(3, GEOMETRY_TYPE_POINT);
+        out.writePackedUInts(4, new long[] { COMMAND_MOVE_TO_ONE, zigZag(feature.x()), zigZag(feature.y()) });
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeValue(Object value) {
+        ProtobufWriter out = new ProtobufWriter();
+        switch (value) {
+            case String s -> out.writeString(1, s);
+            case Double d -> out.writeDouble(3, d);
+            case Long l -> out.writeSInt(6, l);
+            case Boolean b -> out.writeUInt(7, b ? 1 : 0);
+            default -> throw new IllegalArgumentException("Unsupported tile attribute type: " + value.getClass().getSimpleName());
+        }
+        return out.toByteArray();
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Minimal protobuf writer for the field types used by vector tiles.
+     */
+    private static final class ProtobufWriter {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void writeUInt(int field, long value) {
+            writeTag(field, WIRE_VARINT);
+            writeVarint(value);
+        }
+
+        void writeSInt(int field, long value) {
+            writeUInt(field, zigZag(value));
+        }
+
+        void writeDouble(int field, double value) {
+            writeTag(field, WIRE_FIXED64);
+            long bits = Double.doubleToLongBits(value);
+            for (int i = 0; i < 8; i++) {
+                out.write((int) (bits >>> (8 * i)) & 0xFF);
+            }
+        }
+
+        void writeString(int field, String value) {
+            writeBytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void writeBytes(int field, byte[] value) {
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(value.length);
+            out.writeBytes(value);
+        }
+
+        void writePackedUInts(int field, long[] values) {
+            ProtobufWriter packed = new ProtobufWriter();
+            for (long value : values) {
+                packed.writeVarint(value);
+            }
+            writeBytes(field, packed.toByteArray());
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private void writeTag(int field, int wireType) {
+            writeVarint(((long) field << 3) | wireType);
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package si.deisinger.business.tiles;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.catalog.StationCatalog;
+import si.deisinger.business.catalog.StationCatalogRegistry;
+import si.deisinger.business.geo.GeoPoint;
+import si.deisinger.providers.enums.Providers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Serves Mapbox Vector Tiles of the stored stations from an in-memory snapshot.
+ * <p>
+ * Each tile has one layer, {@code stations}. Below {@code tiles.cluster-max-zoom}, stations in the same cell of an 8x8 grid per tile are merged into a cluster feature ({@code cluster=true}, {@code point_count},
+ * {@code max_power_kw} of the most powerful station, {@code provider} or {@code mixed}); single stations and all stations from that zoom on are features with {@code station_id}, {@code provider}, {@code name} and
+ * {@code max_power_kw}.
+ * <p>
+ * The snapshot is built from the {@link StationCatalogRegistry station catalog}, and rendered tiles are kept in an LRU cache. When the registry has published a new catalog, the snapshot is rebuilt and compared with the
+ * previous one, and only the tiles containing an added, removed or changed station are dropped from the cache. Those that were cached are rendered again right away, so popular tiles stay warm. A periodic check does
+ * this even while no tile is requested.
+ */
+@ApplicationScoped
+public class StationTiles {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StationTiles.class);
+    private static final String LAYER_NAME = "stations";
+    private static final int CLUSTER_CELLS = 8;
+    private static final int CLUSTER_CELL_SIZE = MvtEncoder.EXTENT / CLUSTER_CELLS;
+
+    private final StationCatalogRegistry stationCatalogRegistry;
+    private final int maxZoom;
+    private final int clusterMaxZoom;
+    private final Map<TileKey, byte[]> cache;
+    private volatile Snapshot snapshot;
+
+    public StationTiles(StationCatalogRegistry stationCatalogRegistry, @ConfigProperty(name = "tiles.max-zoom", defaultValue = "16") int maxZoom,
+            @ConfigProperty(name = "tiles.cluster-max-zoom", defaultValue = "11") int clusterMaxZoom, @ConfigProperty(name = "tiles.cache-size", defaultValue = "20000") int cacheSize) {
+        this.stationCatalogRegistry = stationCatalogRegistry;
+        this.maxZoom = Math.clamp(maxZoom, 0, 22);
+        this.clusterMaxZoom = clusterMaxZoom;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileKey, byte[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Returns an encoded tile.
+     *
+     * @param z
+     *         the zoom level, 0 to {@code tiles.max-zoom}
+     * @param x
+     *         the tile column
+     * @param y
+     *         the tile row, counted from the north
+     *
+     * @return the tile; an empty array if no station falls into it
+     *
+     * @throws IllegalArgumentException
+     *         if the tile coordinates are out of range
+     */
+    public byte[] getTile(int z, int x, int y) {
+        if (z < 0 || z > maxZoom || x < 0 || y < 0 || x >= (1 << z) || y >= (1 << z)) {
+            throw new IllegalArgumentException("Tile " + z + "/" + x + "/" + y + " is out of range");
+        }
+        TileKey key = new TileKey(z, x, y);
+        synchronized (cache) {
+            byte[] cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Snapshot current = getSnapshot();
+        byte[] tile = render(current, key);
+        synchronized (cache) {
+            // Do not cache a tile rendered from a snapshot that has been replaced in the meantime.
+            if (current == snapshot) {
+                cache.put(key, tile);
+            }
+        }
+        return tile;
+    }
+
+    @Scheduled(every = "{tiles.refresh-interval:30s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refresh() {
+        // Nothing to refresh until the first tile has been requested.
+        if (snapshot != null) {
+            getSnapshot();
+        }
+    }
+
+    /**
+     * Returns the station snapshot of the current catalog, building it on first use and when the catalog has been replaced.
+     */
+    private Snapshot getSnapshot() {
+        StationCatalog catalog = stationCatalogRegistry.get();
+        Snapshot current = snapshot;
+        if (current != null && current.catalog() == catalog) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.catalog() == catalog) {
+                return current;
+            }
+            long started = System.nanoTime();
+            Snapshot next = loadSnapshot(catalog);
+            if (current == null) {
+                snapshot = next;
+                LOG.info("Loaded {} stations for map tiles in {} ms", next.stations().length, (System.nanoTime() - started) / 1_000_000);
+                return next;
+            }
+            Set<TileKey> touched = findTouchedTiles(current, next);
+            List<TileKey> rerender = new ArrayList<>();
+            synchronized (cache) {
+                snapshot = next;
+                for (TileKey key : touched) {
+                    if (cache.remove(key) != null) {
+                        rerender.add(key);
+                    }
+                }
+            }
+            for (TileKey key : rerender) {
+                byte[] tile = render(next, key);
+                synchronized (cache) {
+                    if (snapshot == next) {
+                        cache.put(key, tile);
+                    }
+                }
+            }
+            LOG.info("Station map tiles refreshed: {} tiles touched by changed stations, {} cached tiles rendered again in {} ms", touched.size(), rerender.size(), (System.nanoTime() - started) / 1_000_000);
+            return next;
+        }
+    }
+
+    private Snapshot loadSnapshot(StationCatalog catalog) {
+        List<TileStation> stations = new ArrayList<>();
+        for (int row = 0; row < catalog.size(); row++) {
+            Optional<GeoPoint> point = catalog.getLocation(row);
+            if (point.isEmpty()) {
+                continue;
+            }
+            int providerId = catalog.getProviderId(row);
+            String provider = Providers.fromId(providerId).map(Providers::getProviderName).orElse(String.valueOf(providerId));
+            stations.add(new TileStation(catalog.getId(row), catalog.getStationId(row), provider, catalog.getFriendlyName(row), catalog.getMaxPowerKwOrNull(row), mercatorX(point.get().longitude()),
+                    mercatorY(point.get().latitude())));
+        }
+        TileStation[] byX = stations.toArray(new TileStation[0]);
+        Arrays.sort(byX, Comparator.comparingDouble(TileStation::x));
+        return new Snapshot(catalog, byX);
+    }
+
+    /**
+     * Returns the tiles, at every zoom level, that contain an added or removed station or either position of a changed one.
+     */
+    private Set<TileKey> findTouchedTiles(Snapshot previous, Snapshot next) {
+        Map<Long, TileStation> before = new HashMap<>();
+        for (TileStation station : previous.stations()) {
+            before.put(station.id(), station);
+        }
+        List<TileStation> changed = new ArrayList<>();
+        for (TileStation station : next.stations()) {
+            TileStation old = before.remove(station.id());
+            if (!station.equals(old)) {
+                changed.add(station);
+                if (old != null) {
+                    changed.add(old);
+                }
+            }
+        }
+        changed.addAll(before.values());
+        Set<TileKey> touched = new HashSet<>();
+        for (TileStation station : changed) {
+            for (int z = 0; z <= maxZoom; z++) {
+                int tiles = 1 << z;
+                touched.add(new TileKey(z, Math.min((int) (station.x() * tiles), tiles - 1), Math.min((int) (station.y() * tiles), tiles - 1)));
+            }
+        }
+        return touched;
+    }
+
+    private byte[] render(Snapshot current, TileKey key) {
+        double tiles = 1 << key.z();
+        double minX = key.x() / tiles;
+        double maxX = (key.x() + 1) / tiles;
+        double minY = key.y() / tiles;
+        double maxY = (key.y() + 1) / tiles;
+        List<TileStation> inTile = new ArrayList<>();
+        TileStation[] stations = current.stations();
+        for (int i = firstAtOrAfter(stations, minX); i < stations.length && stations[i].x() < maxX; i++) {
+            if (stations[i].y() >= minY && stations[i].y() < maxY) {
+                inTile.add(stations[i]);
+            }
+        }
+        List<MvtEncoder.Feature> features = new ArrayList<>();
+        if (key.z() < clusterMaxZoom) {
+            Map<Integer, List<TileStation>> cells = new LinkedHashMap<>();
+            for (TileStation station : inTile) {
+                int cellX = Math.min(toTile(station.x(), minX, tiles) / CLUSTER_CELL_SIZE, CLUSTER_CELLS - 1);
+                int cellY = Math.min(toTile(station.y(), minY, tiles) / CLUSTER_CELL_SIZE, CLUSTER_CELLS - 1);
+                cells.computeIfAbsent(cellY * CLUSTER_CELLS + cellX, cell -> new ArrayList<>()).add(station);
+            }
+            for (List<TileStation> cell : cells.values()) {
+                features.add(cell.size() == 1 ? toFeature(cell.getFirst(), minX, minY, tiles) : toCluster(cell, minX, minY, tiles));
+            }
+        } else {
+            for (TileStation station : inTile) {
+                features.add(toFeature(station, minX, minY, tiles));
+            }
+        }
+        return MvtEncoder.encode(LAYER_NAME, features);
+    }
+
+    private static MvtEncoder.Feature toFeature(TileStation station, double minX, double minY, double tiles) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("station_id", station.stationId());
+        properties.put("provider", station.provider());
+        properties.put("name", station.name());
+        properties.put("max_power_kw", station.maxPowerKw());
+        return new MvtEncoder.Feature(station.id(), toTile(station.x(), minX, tiles), toTile(station.y(), minY, tiles), properties);
+    }
+
+    /**
+     * Merges the stations of a cluster cell into one feature at their centroid. The feature id is the smallest member id, so it stays stable while members are added.
+     */
+    private static MvtEncoder.Feature toCluster(List<TileStation> members, double minX, double minY, double tiles) {
+        double sumX = 0;
+        double sumY = 0;
+        Double maxPowerKw = null;
+        long id = Long.MAX_VALUE;
+        Set<String> providers = new HashSet<>();
+        for (TileStation member : members) {
+            sumX += member.x();
+            sumY += member.y();
+            if (member.maxPowerKw() != null && (maxPowerKw == null || member.maxPowerKw() > maxPowerKw)) {
+                maxPowerKw = member.maxPowerKw();
+            }
+            id = Math.min(id, member.id());
+            providers.add(member.provider());
+        }
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("cluster", true);
+        properties.put("point_count", (long) members.size());
+        properties.put("provider", providers.size() == 1 ? providers.iterator().next() : "mixed");
+        properties.put("max_power_kw", maxPowerKw);
+        return new MvtEncoder.Feature(id, toTile(sumX / members.size(), minX, tiles), toTile(sumY / members.size(), minY, tiles), properties);
+    }
+
+    private static int firstAtOrAfter(TileStation[] stations, double x) {
+        int low = 0;
+        int high = stations.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (stations[middle].x() < x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int toTile(double world, double tileMin, double tiles) {
+        return (int) Math.clamp(Math.floor((world - tileMin) * tiles * MvtEncoder.EXTENT), 0, MvtEncoder.EXTENT - 1);
+    }
+
+    /**
+     * Web Mercator x of a longitude, normalized to 0 (180° W) to 1 (180° E).
+     */
+    private static double mercatorX(double longitude) {
+        return (longitude + 180) / 360;
+    }
+
+    /**
+     * Web Mercator y of a latitude, normalized to 0 (north edge) to 1 (south edge).
+     */
+    private static double mercatorY(double latitude) {
+        double radians = Math.toRadians(Math.clamp(latitude, -85.05112878, 85.05112878));
+        return (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2;
+    }
+
+    private record TileKey(int z, int x, int y) {
+    }
+
+    private record TileStation(long id, long stationId, String provider, String name, Double maxPowerKw, double x, double y) {
+    }
+
+    private record Snapshot(StationCatalog catalog, TileStation[] stations) {
+    }
+}
@@ -0,0 +1,195 @@
+package si.deisinger.business.webhook;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.model.WebhookDelivery;
+import si.deisinger.business.repository.WebhookDeliveryRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers queued webhook events.
+ * <p>
+ * Due deliveries are claimed from the Postgres queue and sent in parallel on virtual threads. Only a subscriber's free slots are claimed, its configured number of concurrent requests minus its deliveries still in
+ * flight, so no claimed delivery waits for a slot while its lease runs down. Whenever a delivery finishes, the freed slot is claimed again at once, so a slow subscriber only holds back its own deliveries. A poll
+ * keeps claiming until nothing is due and nothing is in flight. Failed deliveries are retried with exponential backoff and jitter until {@code webhook.retry.max-attempts} is reached. Delivery is at-least-once;
+ * receivers can deduplicate on the {@code X-Webhook-Delivery} header.
+ * <p>
+ * Every request carries {@code X-Webhook-Timestamp} and {@code X-Webhook-Signature: sha256=<hex>}, the HMAC-SHA256 of {@code <timestamp>.<body>} keyed with the subscriber's secret.
+ */
+@ApplicationScoped
+public class WebhookDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WebhookDispatcher.class);
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final WebhookDeliveryRepository webhookDeliveryRepository;
+    private final int batchSize;
+    private final Duration requestTimeout;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public WebhookDispatcher(WebhookDeliveryRepository webhookDeliveryRepository, @ConfigProperty(name = "webhook.batch-size", defaultValue = "100") int batchSize,
+            @ConfigProperty(name = "webhook.request-timeout", defaultValue = "10s") Duration requestTimeout, @ConfigProperty(name = "webhook.lease", defaultValue = "15m") Duration lease,
+            @ConfigProperty(name = "webhook.retry.max-attempts", defaultValue = "10") int maxAttempts, @ConfigProperty(name = "webhook.retry.initial-backoff", defaultValue = "30s") Duration initialBackoff,
+            @ConfigProperty(name = "webhook.retry.max-backoff", defaultValue = "6h") Duration maxBackoff) {
+        this.webhookDeliveryRepository = webhookDeliveryRepository;
+        this.batchSize = batchSize;
+        this.requestTimeout = requestTimeout;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Scheduled(every = "{webhook.poll-interval:10s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void poll() {
+        try {
+            // Deliveries still in flight when this returns keep their lease, so the next poll does not claim their slots again.
+            dispatchDueDeliveries(lease);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends due deliveries until nothing is due and nothing is in flight, or the timeout passes. At most {@code webhook.batch-size} deliveries are in flight at once; each finished delivery frees its slot, which is
+     * claimed again right away, so deliveries to other subscribers never wait for a slow one.
+     *
+     * @param timeout
+     *         how long to keep claiming; deliveries still in flight then finish in the background
+     *
+     * @return the number of claimed deliveries
+     *
+     * @throws InterruptedException
+     *         if interrupted while waiting for a delivery to finish
+     */
+    public int dispatchDueDeliveries(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Semaphore finished = new Semaphore(0);
+        int inFlight = 0;
+        int claimed = 0;
+        while (true) {
+            if (inFlight < batchSize) {
+                // Deliveries that fail get a later attempt time, so claiming stops once the due deliveries are sent.
+                List<WebhookDelivery> deliveries = webhookDeliveryRepository.claimDueDeliveries(batchSize - inFlight, lease);
+                if (!deliveries.isEmpty()) {
+                    LOG.info("Dispatching {} webhook deliveries, {} already in flight", deliveries.size(), inFlight);
+                }
+                for (WebhookDelivery delivery : deliveries) {
+                    executor.execute(() -> {
+                        try {
+                            deliver(delivery);
+                        } finally {
+                            finished.release();
+                        }
+                    });
+                }
+                inFlight += deliveries.size();
+                claimed += deliveries.size();
+            }
+            if (inFlight == 0) {
+                return claimed;
+            }
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0 || !finished.tryAcquire(remainingNanos, TimeUnit.NANOSECONDS)) {
+                LOG.warn("Webhook dispatch timed out after {} with {} deliveries in flight", timeout, inFlight);
+                return claimed;
+            }
+            // Wait for one delivery, then count every other one that finished meanwhile before claiming the freed slots.
+            inFlight -= 1 + finished.drainPermits();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void deliver(WebhookDelivery delivery) {
+        try {
+            try {
+                send(delivery);
+            } catch (IOException | IllegalStateException | IllegalArgumentException e) {
+                handleFailure(delivery, e.getMessage());
+                return;
+            }
+            webhookDeliveryRepository.markDelivered(delivery.id());
+            LOG.debug("Delivered webhook {} to {}", delivery.id(), delivery.url());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // The lease expires and the delivery becomes due again.
+            LOG.warn("Webhook delivery {} interrupted", delivery.id());
+        } catch (RuntimeException e) {
+            // E.g. the database is unavailable; the lease expires and the delivery becomes due again.
+            LOG.error("Unexpected error while delivering webhook {} to {}: {}", delivery.id(), delivery.url(), e.getMessage(), e);
+        }
+    }
+
+    private void send(WebhookDelivery delivery) throws IOException, InterruptedException {
+        String timestamp = String.valueOf(Instant.now().getEpochSecond());
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(delivery.url())).timeout(requestTimeout).header("Content-Type", "application/json").header("X-Webhook-Delivery", String.valueOf(delivery.id()))
+                .header("X-Webhook-Timestamp", timestamp).header("X-Webhook-Signature", "sha256=" + sign(delivery.secret(), timestamp + "." + delivery.payload()))
+                .POST(HttpRequest.BodyPublishers.ofString(delivery.payload(), StandardCharsets.UTF_8)).build();
+        HttpResponse<Void> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new IllegalStateException("Non-success HTTP status " + response.statusCode() + " from " + delivery.url());
+        }
+    }
+
+    private void handleFailure(WebhookDelivery delivery, String error) {
+        String truncatedError = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        if (delivery.attempt() >= maxAttempts) {
+            LOG.error("Webhook delivery {} to {} failed permanently after {} attempts: {}", delivery.id(), delivery.url(), delivery.attempt(), error);
+            webhookDeliveryRepository.markAttemptFailed(delivery.id(), truncatedError, null);
+            return;
+        }
+        Duration backoff = backoff(delivery.attempt());
+        LOG.warn("Webhook delivery {} to {} failed (attempt {}), retrying in {}s: {}", delivery.id(), delivery.url(), delivery.attempt(), backoff.toSeconds(), error);
+        webhookDeliveryRepository.markAttemptFailed(delivery.id(), truncatedError, Instant.now().plus(backoff));
+    }
+
+    /**
+     * Exponential backoff capped at {@code webhook.retry.max-backoff}, with up to 20% random jitter so retries of many deliveries do not arrive in lockstep.
+     */
+    private Duration backoff(int attempt) {
+        long exponential = initialBackoff.toMillis() << Math.min(attempt - 1, 30);
+        long capped = Math.min(exponential, maxBackoff.toMillis());
+        return Duration.ofMillis(capped + ThreadLocalRandom.current().nextLong(capped / 5 + 1));
+    }
+
+    private static String sign(String secret, String content) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
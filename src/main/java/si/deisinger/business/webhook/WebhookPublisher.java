@@ -0,0 +1,60 @@
+package si.deisinger.business.webhook;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.deisinger.business.entity.ChargingStationsEntity;
+import si.deisinger.business.exceptions.JsonParsingException;
+import si.deisinger.business.model.StationChange;
+import si.deisinger.business.repository.WebhookDeliveryRepository;
+import si.deisinger.providers.enums.Providers;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns the station changes of a provider run into one webhook event and queues it for every active subscriber. Delivery happens asynchronously in {@link WebhookDispatcher}, so publishing costs a single insert.
+ */
+@ApplicationScoped
+public class WebhookPublisher {
+
+    static final String STATIONS_ADDED_EVENT = "stations.added";
+
+    private static final Logger LOG = LoggerFactory.getLogger(WebhookPublisher.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final WebhookDeliveryRepository webhookDeliveryRepository;
+
+    public WebhookPublisher(WebhookDeliveryRepository webhookDeliveryRepository) {
+        this.webhookDeliveryRepository = webhookDeliveryRepository;
+    }
+
+    /**
+     * Queues a {@value #STATIONS_ADDED_EVENT} event for the given stations. Joins the caller's transaction.
+     *
+     * @param provider
+     *         the provider the stations belong to
+     * @param stations
+     *         the stations added by the run
+     */
+    public void publishNewStations(Providers provider, List<ChargingStationsEntity> stations) {
+        if (stations.isEmpty()) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("event", STATIONS_ADDED_EVENT);
+        payload.put("provider", provider.getProviderName());
+        payload.put("createdAt", Instant.now().toString());
+        payload.put("stations", stations.stream().map(station -> new StationChange(station.getStationId(), station.getFriendlyName(), station.getAddress(), station.getLocation(), station.getMaxPowerKw())).toList());
+        try {
+            int deliveries = webhookDeliveryRepository.enqueueEvent(provider, OBJECT_MAPPER.writeValueAsString(payload));
+            LOG.info("Queued {} webhook deliveries about {} new stations for provider {}", deliveries, stations.size(), provider);
+        } catch (JsonProcessingException e) {
+            throw new JsonParsingException("Failed to serialize webhook payload for provider: " + provider, e);
+        }
+    }
+}
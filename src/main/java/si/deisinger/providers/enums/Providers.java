@@ -1,5 +1,6 @@
 package si.deisinger.providers.enums;
 
+import java.util.Arrays;
 import java.util.Optional;
 
 //@formatter:off
@@ -87,6 +88,30 @@ public enum Providers {
         return Optional.ofNullable(ampecoUrl);
     }
 
+    /**
+     * Returns the provider with the given database id.
+     *
+     * @param id
+     *         id in database
+     *
+     * @return an Optional with the provider, empty if no provider has this id.
+     */
+    public static Optional<Providers> fromId(int id) {
+        return Arrays.stream(values()).filter(provider -> provider.id == id).findFirst();
+    }
+
+    /**
+     * Returns the provider matching the given name, ignoring case. Both the constant name and the provider name are accepted.
+     *
+     * @param name
+     *         the provider name, e.g. {@code MEGATEL} or {@code MegaTel}
+     *
+     * @return an Optional with the provider, empty if no provider matches.
+     */
+    public static Optional<Providers> fromName(String name) {
+        return Arrays.stream(values()).filter(provider -> provider.name().equalsIgnoreCase(name) || provider.providerName.equalsIgnoreCase(name)).findFirst();
+    }
+
     @Override
     public String toString() {
         return providerName;
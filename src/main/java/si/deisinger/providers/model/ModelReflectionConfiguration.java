@@ -0,0 +1,39 @@
+package si.deisinger.providers.model;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import si.deisinger.providers.model.ampeco.AmpecoDetailedLocation;
+import si.deisinger.providers.model.ampeco.AmpecoLocationPins;
+import si.deisinger.providers.model.avant2go.Avant2GoLocations;
+import si.deisinger.providers.model.efrend.EfrendDetailedLocation;
+import si.deisinger.providers.model.efrend.EfrendLocationPins;
+import si.deisinger.providers.model.gremonaelektriko.GNEDetailedLocation;
+import si.deisinger.providers.model.gremonaelektriko.GNELocationPins;
+import si.deisinger.providers.model.implera.ImpleraLocations;
+import si.deisinger.providers.model.megatel.MegaTelDetailedLocation;
+import si.deisinger.providers.model.megatel.MegaTelLocationPins;
+import si.deisinger.providers.model.mooncharge.MoonChargeLocation;
+import si.deisinger.providers.model.petrol.PetrolLocations;
+
+/**
+ * Registers all provider model classes for reflection so Jackson can (de)serialize them in a native image.
+ * <p>
+ * The model classes are only ever reached through {@code ObjectMapper.readValue(..., Class)}, which native-image analysis cannot see. New model classes (including nested ones) must be added here.
+ */
+//@formatter:off
+@RegisterForReflection(targets = {
+        AmpecoDetailedLocation.class, AmpecoDetailedLocation.Locations.class, AmpecoDetailedLocation.Zone.class, AmpecoDetailedLocation.Evse.class, AmpecoDetailedLocation.Connector.class,
+        AmpecoLocationPins.class, AmpecoLocationPins.Pin.class,
+        GNEDetailedLocation.class, GNELocationPins.class,
+        EfrendDetailedLocation.class, EfrendLocationPins.class,
+        MegaTelDetailedLocation.class, MegaTelLocationPins.class,
+        PetrolLocations.class, PetrolLocations[].class, PetrolLocations.Access.class, PetrolLocations.AccessType.class, PetrolLocations.Address.class, PetrolLocations.Country.class,
+        MoonChargeLocation.class, MoonChargeLocation[].class, MoonChargeLocation.Access.class, MoonChargeLocation.AccessType.class, MoonChargeLocation.Address.class, MoonChargeLocation.Country.class, MoonChargeLocation.RoamingActor.class,
+        Avant2GoLocations.class, Avant2GoLocations.Address.class, Avant2GoLocations.GeoLocation.class, Avant2GoLocations.Info.class, Avant2GoLocations.Pagination.class, Avant2GoLocations.Result.class,
+        ImpleraLocations.class, ImpleraLocations.marker.class
+})
+//@formatter:on
+public final class ModelReflectionConfiguration {
+
+    private ModelReflectionConfiguration() {
+    }
+}
@@ -0,0 +1,14 @@
+-- Index of raw provider responses kept in the local content-addressed archive
+CREATE TABLE provider_snapshot
+(
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    provider    INT          NOT NULL REFERENCES providers (id) ON DELETE CASCADE,
+    request_key VARCHAR(1024) NOT NULL,
+    fetched_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+    sha256      CHAR(64)     NOT NULL,
+    raw_size    BIGINT       NOT NULL,
+    stored_size BIGINT       NOT NULL
+);
+
+CREATE INDEX provider_snapshot_provider_fetched_at_idx ON provider_snapshot (provider, fetched_at);
+CREATE INDEX provider_snapshot_sha256_idx ON provider_snapshot (sha256);
@@ -0,0 +1,6 @@
+-- Slovenian municipality and statistical region, assigned from boundary polygons by the application
+ALTER TABLE charging_stations
+    ADD COLUMN municipality       VARCHAR(255),
+    ADD COLUMN statistical_region VARCHAR(255);
+
+CREATE INDEX charging_stations_municipality_idx ON charging_stations (municipality);
@@ -0,0 +1,14 @@
+-- When the application first and last saw each station in a provider response. Stations stored before this migration keep NULL first_seen.
+ALTER TABLE charging_stations
+    ADD COLUMN first_seen TIMESTAMP WITH TIME ZONE,
+    ADD COLUMN last_seen  TIMESTAMP WITH TIME ZONE;
+
+-- Stations added per provider and day, week (starting Monday) or month, in Slovenian local time. Updated with every insert.
+CREATE TABLE station_growth
+(
+    granularity  VARCHAR(5) NOT NULL CHECK (granularity IN ('day', 'week', 'month')),
+    period_start DATE       NOT NULL,
+    provider     INT        NOT NULL REFERENCES providers (id) ON DELETE CASCADE,
+    added        BIGINT     NOT NULL,
+    PRIMARY KEY (granularity, period_start, provider)
+);
@@ -0,0 +1,31 @@
+-- One series per EVSE. Providers that only report counts per location get one series per EVSE slot of the location.
+CREATE TABLE availability_series
+(
+    id         SERIAL PRIMARY KEY,
+    provider   INT          NOT NULL REFERENCES providers (id) ON DELETE CASCADE,
+    station_id BIGINT       NOT NULL,
+    evse_id    VARCHAR(100) NOT NULL,
+    UNIQUE (provider, station_id, evse_id)
+);
+
+-- One row per series and day (Slovenian local time), partitioned by month; the application creates the partitions.
+-- initial_status holds from midnight; transitions holds the status changes of the day, each a varint of seconds since the
+-- previous change (or midnight) followed by the status code (0 unknown, 1 available, 2 occupied, 3 faulty). status and
+-- last_change_at are the latest state, so a change is appended without reading the row. The *_s columns are the seconds
+-- spent in each status, filled when the day is rolled up; transitions are cleared after the retention period.
+CREATE TABLE availability_day
+(
+    series_id      INT                      NOT NULL REFERENCES availability_series (id) ON DELETE CASCADE,
+    day            DATE                     NOT NULL,
+    initial_status SMALLINT                 NOT NULL,
+    status         SMALLINT                 NOT NULL,
+    last_change_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    transitions    BYTEA,
+    available_s    INT,
+    occupied_s     INT,
+    faulty_s       INT,
+    unknown_s      INT,
+    PRIMARY KEY (series_id, day)
+) PARTITION BY RANGE (day);
+
+CREATE INDEX availability_day_pending_rollup_idx ON availability_day (day) WHERE available_s IS NULL;
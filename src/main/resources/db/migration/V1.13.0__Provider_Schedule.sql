@@ -0,0 +1,12 @@
+-- Independent check schedule of each provider, adapted after every run (see ProviderSchedules).
+-- change_rate is the smoothed number of new stations per day, fetch_cost_ms the smoothed duration of a check.
+CREATE TABLE provider_schedule
+(
+    provider             INT PRIMARY KEY REFERENCES providers (id) ON DELETE CASCADE,
+    interval_seconds     BIGINT                   NOT NULL,
+    next_run_at          TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_run_at          TIMESTAMP WITH TIME ZONE,
+    change_rate          DOUBLE PRECISION         NOT NULL DEFAULT 0,
+    fetch_cost_ms        DOUBLE PRECISION,
+    consecutive_failures INT                      NOT NULL DEFAULT 0
+);
@@ -0,0 +1,22 @@
+-- Change counter of the station columns held in memory; unlike provider_station_version it also counts the
+-- application's own updates (e.g. the municipality backfill), but not last_seen updates, which touch no cached column
+CREATE TABLE station_content_version
+(
+    id      BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO station_content_version DEFAULT VALUES;
+
+CREATE OR REPLACE FUNCTION bump_station_content_version() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    UPDATE station_content_version SET version = version + 1;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER charging_stations_content_version_update
+    AFTER UPDATE OF station_id, provider, friendly_name, address, location, max_power_kw, municipality, statistical_region ON charging_stations
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_station_content_version();
@@ -0,0 +1,3 @@
+-- NOTIFIED: area alerts went out and the export was requested, only the new-stations email is left
+ALTER TABLE provider_run_checkpoint DROP CONSTRAINT provider_run_checkpoint_stage_check;
+ALTER TABLE provider_run_checkpoint ADD CONSTRAINT provider_run_checkpoint_stage_check CHECK (stage IN ('FETCHED', 'DIFFED', 'PERSISTED', 'NOTIFIED'));
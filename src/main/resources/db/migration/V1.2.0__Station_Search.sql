@@ -0,0 +1,12 @@
+-- Fuzzy station search: diacritic folding (unaccent) plus trigram matching (pg_trgm)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() is only STABLE, so an IMMUTABLE wrapper pinned to the dictionary is required to use it in an index expression
+CREATE OR REPLACE FUNCTION station_search_text(friendly_name TEXT, address TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE AS
+$$
+SELECT public.unaccent('public.unaccent', lower(coalesce(friendly_name, '') || ' ' || coalesce(address, '')))
+$$;
+
+CREATE INDEX charging_stations_search_trgm_idx ON charging_stations USING gin (station_search_text(friendly_name, address) gin_trgm_ops);
@@ -0,0 +1,46 @@
+-- Maximum charging power of a station, where the provider reports it
+ALTER TABLE charging_stations ADD COLUMN max_power_kw DOUBLE PRECISION NULL;
+
+-- Region derived from the first digit of the Slovenian postal code in the address
+CREATE OR REPLACE FUNCTION postal_region(address TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE AS
+$$
+SELECT CASE substring(address FROM '(?:^|[^0-9])([1-9])[0-9]{3}(?:[^0-9]|$)')
+           WHEN '1' THEN 'Ljubljana'
+           WHEN '2' THEN 'Maribor'
+           WHEN '3' THEN 'Celje'
+           WHEN '4' THEN 'Kranj'
+           WHEN '5' THEN 'Nova Gorica'
+           WHEN '6' THEN 'Koper'
+           WHEN '8' THEN 'Novo mesto'
+           WHEN '9' THEN 'Murska Sobota'
+           ELSE 'UNKNOWN'
+           END
+$$;
+
+CREATE OR REPLACE FUNCTION station_power_class(max_power_kw DOUBLE PRECISION) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE AS
+$$
+SELECT CASE
+           WHEN max_power_kw IS NULL THEN 'UNKNOWN'
+           WHEN max_power_kw <= 22 THEN 'AC'
+           WHEN max_power_kw <= 50 THEN 'DC'
+           ELSE 'HPC'
+           END
+$$;
+
+-- Aggregates maintained incrementally whenever stations are inserted
+CREATE TABLE station_statistics
+(
+    provider       INT              NOT NULL REFERENCES providers (id) ON DELETE CASCADE,
+    region         VARCHAR(64)      NOT NULL,
+    power_class    VARCHAR(16)      NOT NULL,
+    station_count  BIGINT           NOT NULL,
+    total_power_kw DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (provider, region, power_class)
+);
+
+INSERT INTO station_statistics (provider, region, power_class, station_count, total_power_kw)
+SELECT provider, postal_region(address), station_power_class(max_power_kw), count(*), coalesce(sum(max_power_kw), 0)
+FROM charging_stations
+GROUP BY 1, 2, 3;
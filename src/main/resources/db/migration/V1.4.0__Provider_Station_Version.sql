@@ -0,0 +1,47 @@
+-- Per-provider change counter used to detect writes to charging_stations that bypass the application's known-station registry
+CREATE TABLE provider_station_version
+(
+    provider INT PRIMARY KEY REFERENCES providers (id) ON DELETE CASCADE,
+    version  BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO provider_station_version (provider)
+SELECT id
+FROM providers;
+
+-- Writes made by the application set css.registry_managed_write for their transaction and update the registry themselves
+CREATE OR REPLACE FUNCTION bump_provider_station_version() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF current_setting('css.registry_managed_write', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP = 'INSERT' THEN
+        UPDATE provider_station_version SET version = version + 1 WHERE provider IN (SELECT provider FROM new_rows);
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE provider_station_version SET version = version + 1 WHERE provider IN (SELECT provider FROM old_rows);
+    ELSIF TG_OP = 'UPDATE' THEN
+        UPDATE provider_station_version SET version = version + 1 WHERE provider IN (SELECT provider FROM new_rows UNION SELECT provider FROM old_rows);
+    ELSE
+        UPDATE provider_station_version SET version = version + 1;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER charging_stations_version_insert
+    AFTER INSERT ON charging_stations REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_provider_station_version();
+
+CREATE TRIGGER charging_stations_version_update
+    AFTER UPDATE ON charging_stations REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_provider_station_version();
+
+CREATE TRIGGER charging_stations_version_delete
+    AFTER DELETE ON charging_stations REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_provider_station_version();
+
+CREATE TRIGGER charging_stations_version_truncate
+    AFTER TRUNCATE ON charging_stations
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_provider_station_version();
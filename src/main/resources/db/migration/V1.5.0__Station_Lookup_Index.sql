@@ -0,0 +1,2 @@
+-- Lookup of stations by provider and provider station id (diff, registry load and bulk import deduplication)
+CREATE INDEX charging_stations_provider_station_id_idx ON charging_stations (provider, station_id);
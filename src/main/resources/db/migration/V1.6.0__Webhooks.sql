@@ -0,0 +1,35 @@
+-- Outbound webhook subscribers
+CREATE TABLE webhook_subscription
+(
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    url             VARCHAR(2048) NOT NULL,
+    secret          VARCHAR(255)  NOT NULL,
+    max_concurrency INT           NOT NULL DEFAULT 2,
+    active          BOOLEAN       NOT NULL DEFAULT TRUE,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- One event per provider run with changes; the payload is shared by all of its deliveries
+CREATE TABLE webhook_event
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    provider   INT  NOT NULL REFERENCES providers (id) ON DELETE CASCADE,
+    payload    TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- Durable delivery queue: one row per event and subscriber
+CREATE TABLE webhook_delivery
+(
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_id        BIGINT      NOT NULL REFERENCES webhook_event (id) ON DELETE CASCADE,
+    subscription_id BIGINT      NOT NULL REFERENCES webhook_subscription (id) ON DELETE CASCADE,
+    status          VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts        INT         NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    locked_until    TIMESTAMP WITH TIME ZONE NULL,
+    last_error      TEXT        NULL,
+    delivered_at    TIMESTAMP WITH TIME ZONE NULL
+);
+
+CREATE INDEX webhook_delivery_due_idx ON webhook_delivery (next_attempt_at) WHERE status = 'PENDING';
@@ -0,0 +1,16 @@
+-- New-station alerts for a geographic area: either a circle (center + radius) or a polygon
+CREATE TABLE area_subscription
+(
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email         VARCHAR(255)     NOT NULL,
+    center_lat    DOUBLE PRECISION NULL,
+    center_lon    DOUBLE PRECISION NULL,
+    radius_m      DOUBLE PRECISION NULL,
+    -- JSON array of [latitude, longitude] vertices
+    polygon       TEXT             NULL,
+    provider      INT              NULL REFERENCES providers (id) ON DELETE CASCADE,
+    min_power_kw  DOUBLE PRECISION NULL,
+    active        BOOLEAN          NOT NULL DEFAULT TRUE,
+    created_at    TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    CHECK ((center_lat IS NOT NULL AND center_lon IS NOT NULL AND radius_m IS NOT NULL) OR polygon IS NOT NULL)
+);
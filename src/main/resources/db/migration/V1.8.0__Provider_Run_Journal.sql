@@ -0,0 +1,23 @@
+-- One row per provider check with per-stage timings, transfer volume and outcome
+CREATE TABLE provider_run
+(
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    provider          INT                      NOT NULL REFERENCES providers (id) ON DELETE CASCADE,
+    started_at        TIMESTAMP WITH TIME ZONE NOT NULL,
+    finished_at       TIMESTAMP WITH TIME ZONE NOT NULL,
+    duration_ms       BIGINT                   NOT NULL,
+    fetch_ms          BIGINT                   NOT NULL,
+    parse_ms          BIGINT                   NOT NULL,
+    diff_ms           BIGINT                   NOT NULL,
+    persist_ms        BIGINT                   NOT NULL,
+    notify_ms         BIGINT                   NOT NULL,
+    wire_bytes        BIGINT                   NOT NULL,
+    decoded_bytes     BIGINT                   NOT NULL,
+    stations_fetched  INT                      NOT NULL,
+    new_stations      INT                      NOT NULL,
+    stations_inserted INT                      NOT NULL,
+    succeeded         BOOLEAN                  NOT NULL,
+    error             TEXT
+);
+
+CREATE INDEX provider_run_provider_started_at_idx ON provider_run (provider, started_at);
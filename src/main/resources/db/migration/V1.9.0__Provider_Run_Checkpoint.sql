@@ -0,0 +1,11 @@
+-- Progress of the current run of each provider, so a crashed run resumes instead of starting over.
+-- The row is deleted once the run has notified; snapshots maps request keys to archived response hashes (JSON).
+CREATE TABLE provider_run_checkpoint
+(
+    provider        INT PRIMARY KEY REFERENCES providers (id) ON DELETE CASCADE,
+    started_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    stage           VARCHAR(16)              NOT NULL CHECK (stage IN ('FETCHED', 'DIFFED', 'PERSISTED')),
+    snapshots       TEXT                     NOT NULL,
+    new_station_ids BIGINT[]
+);
@@ -0,0 +1,111 @@
+package si.deisinger.business.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransitionCodecTest {
+
+    private static final long DAY_SECONDS = 86_400;
+
+    @Test
+    void encodesVarintBoundaries() {
+        int occupied = EvseStatus.OCCUPIED.getCode();
+        assertArrayEquals(bytes(0x00, occupied), TransitionCodec.encode(0, EvseStatus.OCCUPIED));
+        assertArrayEquals(bytes(0x7F, occupied), TransitionCodec.encode(127, EvseStatus.OCCUPIED));
+        assertArrayEquals(bytes(0x80, 0x01, occupied), TransitionCodec.encode(128, EvseStatus.OCCUPIED));
+        assertArrayEquals(bytes(0xFF, 0x7F, occupied), TransitionCodec.encode(16_383, EvseStatus.OCCUPIED));
+        assertArrayEquals(bytes(0x80, 0x80, 0x01, occupied), TransitionCodec.encode(16_384, EvseStatus.OCCUPIED));
+        // 25 hours, the longest delta within a day, still fits the documented four bytes.
+        assertEquals(4, TransitionCodec.encode(90_000, EvseStatus.OCCUPIED).length);
+    }
+
+    @Test
+    void clampsNegativeDeltaToZero() {
+        assertArrayEquals(TransitionCodec.encode(0, EvseStatus.FAULTY), TransitionCodec.encode(-5, EvseStatus.FAULTY));
+    }
+
+    @Test
+    void sumsDurationsPerStatus() {
+        byte[] transitions = concat(TransitionCodec.encode(3_600, EvseStatus.OCCUPIED), TransitionCodec.encode(16_384, EvseStatus.AVAILABLE), TransitionCodec.encode(127, EvseStatus.FAULTY));
+
+        long[] durations = TransitionCodec.durations(EvseStatus.AVAILABLE, transitions, DAY_SECONDS);
+
+        assertEquals(3_600 + 127, durations[EvseStatus.AVAILABLE.getCode()]);
+        assertEquals(16_384, durations[EvseStatus.OCCUPIED.getCode()]);
+        assertEquals(DAY_SECONDS - 3_600 - 16_384 - 127, durations[EvseStatus.FAULTY.getCode()]);
+        assertEquals(0, durations[EvseStatus.UNKNOWN.getCode()]);
+    }
+
+    @Test
+    void withoutTransitionsTheWholeDayIsInitialStatus() {
+        long[] durations = TransitionCodec.durations(EvseStatus.OCCUPIED, null, 23 * 3_600);
+
+        assertEquals(23 * 3_600, durations[EvseStatus.OCCUPIED.getCode()]);
+        assertEquals(23 * 3_600, sum(durations));
+    }
+
+    @Test
+    void clampsChangesPastTheEndOfTheDay() {
+        byte[] transitions = concat(TransitionCodec.encode(DAY_SECONDS - 10, EvseStatus.OCCUPIED), TransitionCodec.encode(3_600, EvseStatus.AVAILABLE));
+
+        long[] durations = TransitionCodec.durations(EvseStatus.AVAILABLE, transitions, DAY_SECONDS);
+
+        assertEquals(DAY_SECONDS - 10, durations[EvseStatus.AVAILABLE.getCode()]);
+        assertEquals(10, durations[EvseStatus.OCCUPIED.getCode()]);
+        assertEquals(DAY_SECONDS, sum(durations));
+    }
+
+    @Test
+    void rejectsTruncatedVarint() {
+        // Continuation bit set on the last byte.
+        assertThrows(IllegalArgumentException.class, () -> TransitionCodec.durations(EvseStatus.AVAILABLE, bytes(0x80), DAY_SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> TransitionCodec.durations(EvseStatus.AVAILABLE, bytes(0x10, EvseStatus.OCCUPIED.getCode(), 0xFF, 0xFF), DAY_SECONDS));
+    }
+
+    @Test
+    void rejectsTransitionWithoutStatus() {
+        byte[] entry = TransitionCodec.encode(16_384, EvseStatus.OCCUPIED);
+        byte[] truncated = new byte[entry.length - 1];
+        System.arraycopy(entry, 0, truncated, 0, truncated.length);
+
+        assertThrows(IllegalArgumentException.class, () -> TransitionCodec.durations(EvseStatus.AVAILABLE, truncated, DAY_SECONDS));
+    }
+
+    @Test
+    void rejectsOverlongVarint() {
+        byte[] overlong = new byte[11];
+        Arrays.fill(overlong, (byte) 0x80);
+
+        assertThrows(IllegalArgumentException.class, () -> TransitionCodec.durations(EvseStatus.AVAILABLE, overlong, DAY_SECONDS));
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... entries) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] entry : entries) {
+            out.writeBytes(entry);
+        }
+        return out.toByteArray();
+    }
+
+    private static long sum(long[] durations) {
+        long sum = 0;
+        for (long duration : durations) {
+            sum += duration;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,118 @@
+package si.deisinger.business.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundaryIndexTest {
+
+    /**
+     * An outer municipality from (0,0) to (10,10) with a hole from (4,4) to (6,6) that is a municipality of its own, and a two-part municipality east of it.
+     */
+    private static final String ENCLAVE = """
+            {"type": "FeatureCollection", "features": [
+              {"type": "Feature", "properties": {"name": "Outer", "region": "North"}, "geometry": {"type": "Polygon", "coordinates": [
+                [[0, 0], [10, 0], [10, 10], [0, 10], [0, 0]],
+                [[4, 4], [6, 4], [6, 6], [4, 6], [4, 4]]]}},
+              {"type": "Feature", "properties": {"name": "Enclave", "region": "North"}, "geometry": {"type": "Polygon", "coordinates": [
+                [[4, 4], [6, 4], [6, 6], [4, 6], [4, 4]]]}},
+              {"type": "Feature", "properties": {"name": "Split"}, "geometry": {"type": "MultiPolygon", "coordinates": [
+                [[[20, 0], [22, 0], [22, 2], [20, 2], [20, 0]]],
+                [[[30, 0], [32, 0], [32, 2], [30, 2], [30, 0]]]]}}
+            ]}
+            """;
+
+    @Test
+    void pointInHoleBelongsToTheEnclave() throws IOException {
+        BoundaryIndex index = read(ENCLAVE);
+
+        assertEquals(3, index.size());
+        assertEquals(Optional.of(new BoundaryIndex.Area("Outer", "North")), index.find(new GeoPoint(2, 2)));
+        assertEquals(Optional.of(new BoundaryIndex.Area("Enclave", "North")), index.find(new GeoPoint(5, 5)));
+        // Inside the outer ring's bounding box and the hole's, but only the enclave contains it.
+        assertEquals("Enclave", index.find(new GeoPoint(4.5, 5.5)).orElseThrow().municipality());
+        assertEquals("Outer", index.find(new GeoPoint(7, 5)).orElseThrow().municipality());
+    }
+
+    @Test
+    void pointInHoleWithoutEnclaveIsOutside() throws IOException {
+        BoundaryIndex index = read("""
+                {"type": "FeatureCollection", "features": [
+                  {"type": "Feature", "properties": {"name": "Ring"}, "geometry": {"type": "Polygon", "coordinates": [
+                    [[0, 0], [10, 0], [10, 10], [0, 10], [0, 0]],
+                    [[2, 2], [4, 2], [4, 4], [2, 4], [2, 2]],
+                    [[6, 6], [8, 6], [8, 8], [6, 8], [6, 6]]]}}
+                ]}
+                """);
+
+        assertTrue(index.find(new GeoPoint(3, 3)).isEmpty());
+        assertTrue(index.find(new GeoPoint(7, 7)).isEmpty());
+        assertEquals("Ring", index.find(new GeoPoint(5, 5)).orElseThrow().municipality());
+        assertNull(index.find(new GeoPoint(5, 5)).orElseThrow().statisticalRegion());
+    }
+
+    @Test
+    void findsEveryPartOfMultiPolygon() throws IOException {
+        BoundaryIndex index = read(ENCLAVE);
+
+        assertEquals("Split", index.find(new GeoPoint(1, 21)).orElseThrow().municipality());
+        assertEquals("Split", index.find(new GeoPoint(1, 31)).orElseThrow().municipality());
+        assertTrue(index.find(new GeoPoint(1, 25)).isEmpty());
+    }
+
+    @Test
+    void findsCellsOfLargeGrid() throws IOException {
+        // 30 x 30 unit squares need three levels of nodes.
+        int size = 30;
+        StringBuilder json = new StringBuilder("{\"type\": \"FeatureCollection\", \"features\": [");
+        for (int lat = 0; lat < size; lat++) {
+            for (int lon = 0; lon < size; lon++) {
+                if (lat > 0 || lon > 0) {
+                    json.append(',');
+                }
+                json.append("{\"type\": \"Feature\", \"properties\": {\"name\": \"").append(lat).append('/').append(lon).append("\"}, \"geometry\": {\"type\": \"Polygon\", \"coordinates\": [[")
+                        .append(vertex(lon, lat)).append(',').append(vertex(lon + 1, lat)).append(',').append(vertex(lon + 1, lat + 1)).append(',').append(vertex(lon, lat + 1)).append(',')
+                        .append(vertex(lon, lat)).append("]]}}");
+            }
+        }
+        BoundaryIndex index = read(json.append("]}").toString());
+
+        assertEquals(size * size, index.size());
+        for (int lat = 0; lat < size; lat++) {
+            for (int lon = 0; lon < size; lon++) {
+                assertEquals(lat + "/" + lon, index.find(new GeoPoint(lat + 0.5, lon + 0.5)).orElseThrow().municipality());
+            }
+        }
+        assertTrue(index.find(new GeoPoint(size + 0.5, 0.5)).isEmpty());
+    }
+
+    @Test
+    void rejectsFeatureWithoutMunicipality() {
+        assertThrows(IllegalArgumentException.class, () -> read("""
+                {"type": "FeatureCollection", "features": [
+                  {"type": "Feature", "properties": {}, "geometry": {"type": "Polygon", "coordinates": [[[0, 0], [1, 0], [1, 1], [0, 0]]]}}
+                ]}
+                """));
+    }
+
+    @Test
+    void rejectsDocumentWithoutFeatures() {
+        assertThrows(IllegalArgumentException.class, () -> read("{\"type\": \"Feature\"}"));
+    }
+
+    private static String vertex(int lon, int lat) {
+        return "[" + lon + ", " + lat + "]";
+    }
+
+    private static BoundaryIndex read(String geoJson) throws IOException {
+        return BoundaryIndex.fromGeoJson(new ByteArrayInputStream(geoJson.getBytes(StandardCharsets.UTF_8)), "name", "region");
+    }
+}
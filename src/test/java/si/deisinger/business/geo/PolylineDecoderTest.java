@@ -0,0 +1,62 @@
+package si.deisinger.business.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolylineDecoderTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void decodesGoogleReferencePolyline() {
+        List<GeoPoint> points = PolylineDecoder.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@", 5);
+
+        assertEquals(3, points.size());
+        assertPoint(38.5, -120.2, points.get(0));
+        assertPoint(40.7, -120.95, points.get(1));
+        assertPoint(43.252, -126.453, points.get(2));
+    }
+
+    @Test
+    void decodesPrecisionSix() {
+        List<GeoPoint> points = PolylineDecoder.decode("e~azvAmpjtZc`dJeeom@", 6);
+
+        assertEquals(2, points.size());
+        assertPoint(46.056947, 14.505751, points.get(0));
+        assertPoint(46.239749, 15.267706, points.get(1));
+    }
+
+    @Test
+    void decodesEmptyPolyline() {
+        assertTrue(PolylineDecoder.decode("", 5).isEmpty());
+    }
+
+    @Test
+    void rejectsTruncatedPolyline() {
+        // The last longitude chunk still has its continuation bit set.
+        assertThrows(IllegalArgumentException.class, () -> PolylineDecoder.decode("_p~iF~ps|", 5));
+        // A latitude without a longitude.
+        assertThrows(IllegalArgumentException.class, () -> PolylineDecoder.decode("_p~iF", 5));
+    }
+
+    @Test
+    void rejectsInvalidCharacter() {
+        assertThrows(IllegalArgumentException.class, () -> PolylineDecoder.decode("_p~iF ps|U", 5));
+    }
+
+    @Test
+    void rejectsCoordinateOutOfRange() {
+        // 38.5 degrees decoded with precision 0 is 3850000 degrees.
+        assertThrows(IllegalArgumentException.class, () -> PolylineDecoder.decode("_p~iF~ps|U", 0));
+    }
+
+    private static void assertPoint(double latitude, double longitude, GeoPoint point) {
+        assertEquals(latitude, point.latitude(), DELTA);
+        assertEquals(longitude, point.longitude(), DELTA);
+    }
+}
@@ -0,0 +1,51 @@
+package si.deisinger.business.importer;
+
+import org.junit.jupiter.api.Test;
+import si.deisinger.business.geo.GeoPoint;
+import si.deisinger.providers.enums.Providers;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StationImporterTest {
+
+    private static final Map<String, String> LJUBLJANA = Map.of("station_id", "1", "latitude", "46.056947", "longitude", " 14.505751 ");
+
+    @Test
+    void importedCoordinatesReadBackInEveryProvidersOrder() {
+        for (Providers provider : Providers.values()) {
+            String location = StationImporter.getLocation(LJUBLJANA, provider);
+
+            assertEquals(new GeoPoint(46.056947, 14.505751), GeoPoint.fromStationLocation(provider.getId(), location).orElseThrow(), provider.getProviderName());
+        }
+    }
+
+    @Test
+    void writesPetrolLocationsLongitudeFirst() {
+        // Same format as Access.toString() of the Petrol and MoonCharge APIs.
+        assertEquals("14.505751, 46.056947", StationImporter.getLocation(LJUBLJANA, Providers.PETROL));
+        assertEquals("46.056947,14.505751", StationImporter.getLocation(LJUBLJANA, Providers.GREMONAELEKTRIKO));
+    }
+
+    @Test
+    void keepsLocationColumnAsIs() {
+        assertEquals("14.5, 46.0", StationImporter.getLocation(Map.of("location", "14.5, 46.0", "latitude", "1", "longitude", "2"), Providers.PETROL));
+        assertNull(StationImporter.getLocation(Map.of("latitude", "46.0"), Providers.PETROL));
+    }
+
+    @Test
+    void acceptsOnlyStationIdsInBigintRange() {
+        assertTrue(StationImporter.isStationId("0"));
+        assertTrue(StationImporter.isStationId(" 42 "));
+        assertTrue(StationImporter.isStationId(String.valueOf(Long.MAX_VALUE)));
+        assertFalse(StationImporter.isStationId("9223372036854775808"));
+        assertFalse(StationImporter.isStationId("123456789012345678901234567890"));
+        assertFalse(StationImporter.isStationId("-1"));
+        assertFalse(StationImporter.isStationId("12a"));
+        assertFalse(StationImporter.isStationId(null));
+    }
+}
@@ -0,0 +1,92 @@
+package si.deisinger.business.registry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashSetTest {
+
+    @Test
+    void addsAndFindsValues() {
+        LongHashSet set = new LongHashSet();
+
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.add(-42));
+        assertTrue(set.add(0));
+
+        assertEquals(3, set.size());
+        assertTrue(set.contains(42));
+        assertTrue(set.contains(-42));
+        assertTrue(set.contains(0));
+        assertFalse(set.contains(43));
+    }
+
+    @Test
+    void probesPastCollisionsAndAcrossRehashes() {
+        // Sequential IDs and IDs that differ only in their high bits form long probe runs in a table that is at most half full.
+        LongHashSet set = new LongHashSet(1);
+        Set<Long> expected = new HashSet<>();
+        for (long i = 0; i < 5_000; i++) {
+            add(set, expected, i);
+            add(set, expected, i << 32);
+            add(set, expected, Long.MAX_VALUE - i);
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long value : expected) {
+            assertTrue(set.contains(value), "missing " + value);
+            assertFalse(set.add(value));
+        }
+        for (long i = 5_000; i < 10_000; i++) {
+            assertFalse(set.contains(i));
+            assertFalse(set.contains(i << 32));
+        }
+    }
+
+    @Test
+    void matchesHashSetOnRandomValues() {
+        Random random = new Random(7);
+        LongHashSet set = new LongHashSet(16);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            // A narrow range so that many values are added twice.
+            long value = random.nextInt(15_000) * 1_000_003L;
+            assertEquals(expected.add(value), set.add(value));
+        }
+
+        assertEquals(expected.size(), set.size());
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).sorted().toArray(), values);
+    }
+
+    @Test
+    void storesTheEmptySlotMarker() {
+        LongHashSet set = new LongHashSet();
+
+        assertFalse(set.contains(Long.MIN_VALUE));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertFalse(set.add(Long.MIN_VALUE));
+        assertTrue(set.add(1));
+
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertEquals(2, set.size());
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(new long[] { Long.MIN_VALUE, 1 }, values);
+    }
+
+    private static void add(LongHashSet set, Set<Long> expected, long value) {
+        assertEquals(expected.add(value), set.add(value));
+    }
+}
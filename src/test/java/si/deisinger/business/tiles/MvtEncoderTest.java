@@ -0,0 +1,241 @@
+package si.deisinger.business.tiles;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MvtEncoderTest {
+
+    @Test
+    void encodesEmptyTileAsNoBytes() {
+        assertEquals(0, MvtEncoder.encode("stations", List.of()).length);
+    }
+
+    @Test
+    void encodesKnownTile() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("name", "A");
+        properties.put("power", 150.0);
+        byte[] tile = MvtEncoder.encode("s", List.of(new MvtEncoder.Feature(7, 1, 2, properties)));
+
+        // Checked by hand against the vector tile .proto: tile.layers (3) holding version, name, one feature, two keys, two values and the extent.
+        byte[] layer = concat(bytes(0x78, 0x02), bytes(0x0A, 0x01, 's'), bytes(0x12, 0x0F, 0x08, 0x07, 0x12, 0x04, 0x00, 0x00, 0x01, 0x01, 0x18, 0x01, 0x22, 0x03, 0x09, 0x02, 0x04),
+                bytes(0x1A, 0x04, 'n', 'a', 'm', 'e'), bytes(0x1A, 0x05, 'p', 'o', 'w', 'e', 'r'), bytes(0x22, 0x03, 0x0A, 0x01, 'A'), concat(bytes(0x22, 0x09, 0x19), littleEndian(Double.doubleToLongBits(150.0))),
+                bytes(0x28, 0x80, 0x20));
+        assertArrayEquals(concat(bytes(0x1A, layer.length), layer), tile);
+    }
+
+    @Test
+    void decodesFeaturesWithSharedKeysAndValues() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("provider", "Petrol");
+        first.put("count", 3);
+        first.put("fast", true);
+        first.put("missing", null);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("provider", "Petrol");
+        second.put("count", -3L);
+        second.put("fast", false);
+        byte[] tile = MvtEncoder.encode("stations", List.of(new MvtEncoder.Feature(1, 0, MvtEncoder.EXTENT, first), new MvtEncoder.Feature(2, -5, 17, second)));
+
+        Layer layer = Layer.decode(tile);
+
+        assertEquals("stations", layer.name);
+        assertEquals(2, layer.version);
+        assertEquals(MvtEncoder.EXTENT, layer.extent);
+        assertEquals(List.of("provider", "count", "fast"), layer.keys);
+        // The integer 3 is stored as the same value as a long 3, and "Petrol" only once.
+        assertEquals(List.of("Petrol", 3L, true, -3L, false), layer.values);
+        assertEquals(2, layer.features.size());
+        assertEquals(Map.of("provider", "Petrol", "count", 3L, "fast", true), layer.properties(layer.features.get(0)));
+        assertEquals(Map.of("provider", "Petrol", "count", -3L, "fast", false), layer.properties(layer.features.get(1)));
+
+        Feature point = layer.features.get(1);
+        assertEquals(2, point.id);
+        assertEquals(1, point.type);
+        // MoveTo with a count of one, then the zigzag encoded coordinates.
+        assertEquals(List.of(9L, 9L, 34L), point.geometry);
+        assertEquals(List.of(9L, 0L, (long) MvtEncoder.EXTENT * 2), layer.features.get(0).geometry);
+    }
+
+    @Test
+    void encodesLargeIdsAsMultiByteVarints() {
+        byte[] tile = MvtEncoder.encode("stations", List.of(new MvtEncoder.Feature(Long.MAX_VALUE, 0, 0, Map.of())));
+
+        Feature feature = Layer.decode(tile).features.getFirst();
+        assertEquals(Long.MAX_VALUE, feature.id);
+        assertTrue(feature.tags.isEmpty());
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+
+    private static byte[] littleEndian(long bits) {
+        byte[] bytes = new byte[8];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (bits >>> (8 * i));
+        }
+        return bytes;
+    }
+
+    private record Feature(long id, List<Long> tags, long type, List<Long> geometry) {
+    }
+
+    /**
+     * The single layer of a decoded tile, read with a minimal protobuf reader independent of the encoder.
+     */
+    private static final class Layer {
+
+        private String name;
+        private long version;
+        private long extent;
+        private final List<Feature> features = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private final List<Object> values = new ArrayList<>();
+
+        static Layer decode(byte[] tile) {
+            Reader reader = new Reader(tile);
+            assertEquals(3, reader.tag() >>> 3);
+            Layer layer = new Layer();
+            Reader fields = new Reader(reader.bytes());
+            assertTrue(reader.done());
+            while (!fields.done()) {
+                long tag = fields.tag();
+                switch ((int) (tag >>> 3)) {
+                    case 1 -> layer.name = new String(fields.bytes(), StandardCharsets.UTF_8);
+                    case 2 -> layer.features.add(decodeFeature(fields.bytes()));
+                    case 3 -> layer.keys.add(new String(fields.bytes(), StandardCharsets.UTF_8));
+                    case 4 -> layer.values.add(decodeValue(fields.bytes()));
+                    case 5 -> layer.extent = fields.varint();
+                    case 15 -> layer.version = fields.varint();
+                    default -> throw new AssertionError("Unexpected layer field " + (tag >>> 3));
+                }
+            }
+            return layer;
+        }
+
+        Map<String, Object> properties(Feature feature) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            for (int i = 0; i < feature.tags().size(); i += 2) {
+                properties.put(keys.get(feature.tags().get(i).intValue()), values.get(feature.tags().get(i + 1).intValue()));
+            }
+            return properties;
+        }
+
+        private static Feature decodeFeature(byte[] bytes) {
+            Reader reader = new Reader(bytes);
+            long id = 0;
+            long type = 0;
+            List<Long> tags = List.of();
+            List<Long> geometry = List.of();
+            while (!reader.done()) {
+                long tag = reader.tag();
+                switch ((int) (tag >>> 3)) {
+                    case 1 -> id = reader.varint();
+                    case 2 -> tags = new Reader(reader.bytes()).packed();
+                    case 3 -> type = reader.varint();
+                    case 4 -> geometry = new Reader(reader.bytes()).packed();
+                    default -> throw new AssertionError("Unexpected feature field " + (tag >>> 3));
+                }
+            }
+            return new Feature(id, tags, type, geometry);
+        }
+
+        private static Object decodeValue(byte[] bytes) {
+            Reader reader = new Reader(bytes);
+            long tag = reader.tag();
+            Object value = switch ((int) (tag >>> 3)) {
+                case 1 -> new String(reader.bytes(), StandardCharsets.UTF_8);
+                case 3 -> Double.longBitsToDouble(reader.fixed64());
+                case 6 -> {
+                    long zigZag = reader.varint();
+                    yield (zigZag >>> 1) ^ -(zigZag & 1);
+                }
+                case 7 -> reader.varint() != 0;
+                default -> throw new AssertionError("Unexpected value field " + (tag >>> 3));
+            };
+            assertTrue(reader.done());
+            return value;
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        boolean done() {
+            return position == bytes.length;
+        }
+
+        long tag() {
+            return varint();
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        long fixed64() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value |= (long) (bytes[position++] & 0xFF) << (8 * i);
+            }
+            return value;
+        }
+
+        byte[] bytes() {
+            int length = (int) varint();
+            byte[] value = new byte[length];
+            System.arraycopy(bytes, position, value, 0, length);
+            position += length;
+            return value;
+        }
+
+        List<Long> packed() {
+            List<Long> values = new ArrayList<>();
+            while (!done()) {
+                values.add(varint());
+            }
+            return values;
+        }
+    }
+}